@@ -0,0 +1,277 @@
+package Benchmark;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * This is the BenchmarkRunner class, a small JMH-style harness for the game engine and the protocol codecs.
+ *
+ * Every benchmark is warmed up and then measured for several fixed-length iterations, once on a single thread
+ * and once with several threads sharing the same state (contended). Results are printed as a table and written
+ * as a tab-separated report, so two releases can be compared with the compare command.
+ *
+ * Usage:
+ *   java Benchmark.BenchmarkRunner run [report file] [filter]
+ *   java Benchmark.BenchmarkRunner compare &lt;baseline report&gt; &lt;candidate report&gt;
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class BenchmarkRunner {
+	private static final int WARMUP_ITERATIONS = Integer.getInteger("bench.warmup", 3);
+	private static final int MEASURE_ITERATIONS = Integer.getInteger("bench.iterations", 5);
+	private static final long ITERATION_MILLIS = Long.getLong("bench.millis", 500);
+	private static final int CONTENDED_THREADS = Integer.getInteger("bench.threads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+	// Results are folded into this field so the JIT cannot remove the measured work.
+	static volatile long sink;
+
+    /**
+     * This is the Operation interface representing the measured work.
+     * It runs a batch of operations and returns a value derived from their results.
+     */
+	public interface Operation {
+		long run(int batch);
+	}
+
+    /**
+     * This is the BenchmarkCase class representing one named benchmark.
+     * The state supplier is called once per run; in the contended run every thread shares that state.
+     */
+	public static final class BenchmarkCase {
+		private final String name;
+		private final Supplier<Operation> state;
+		private final boolean contended;
+
+        /**
+         * This is the constructor for a benchmark.
+         *
+         * @param name      The String name of the benchmark.
+         * @param state     The Supplier creating the operation and the state it works on.
+         * @param contended The boolean telling whether a multi-threaded run sharing one state is also measured.
+         */
+		public BenchmarkCase(String name, Supplier<Operation> state, boolean contended) {
+			this.name = name;
+			this.state = state;
+			this.contended = contended;
+		}
+	}
+
+    /**
+     * This is the Result class representing the measured throughput of one benchmark run.
+     */
+	private static final class Result {
+		private final String name;
+		private final int threads;
+		private final double opsPerSecond;
+		private final double error;
+
+		Result(String name, int threads, double opsPerSecond, double error) {
+			this.name = name;
+			this.threads = threads;
+			this.opsPerSecond = opsPerSecond;
+			this.error = error;
+		}
+
+		String key() {
+			return name + "@" + threads;
+		}
+	}
+
+    /**
+     * This is the main method to run the benchmarks or compare two reports.
+     *
+     * @param args Command line arguments
+     * @throws Exception If a report cannot be read or written.
+     */
+	public static void main(String[] args) throws Exception {
+		if ((args.length >= 3) && args[0].equals("compare")) {
+			compare(Paths.get(args[1]), Paths.get(args[2]));
+			return;
+		}
+		String reportFile = (args.length >= 2) ? args[1] : "bench-results/report-" + System.currentTimeMillis() + ".tsv";
+		String filter = (args.length >= 3) ? args[2] : "";
+
+		List<BenchmarkCase> benchmarks = new ArrayList<>();
+		benchmarks.addAll(GameBenchmarks.all());
+		benchmarks.addAll(ProtocolBenchmarks.all());
+
+		List<Result> results = new ArrayList<>();
+		System.out.printf("%-40s %8s %16s %12s%n", "Benchmark", "Threads", "ops/s", "error");
+		for (BenchmarkCase benchmark : benchmarks) {
+			if (!benchmark.name.contains(filter)) {
+				continue;
+			}
+			results.add(print(measure(benchmark, 1)));
+			if (benchmark.contended) {
+				results.add(print(measure(benchmark, CONTENDED_THREADS)));
+			}
+		}
+		write(Paths.get(reportFile), results);
+		System.out.println("Report written to " + reportFile);
+	}
+
+    /**
+     * This is the measure method.
+     * It warms a benchmark up and measures its throughput over several iterations.
+     *
+     * @param benchmark The BenchmarkCase to be measured.
+     * @param threads   The Integer number of threads; more than one means they share one state.
+     *
+     * @return Result the mean throughput and its standard deviation.
+     *
+     * @throws InterruptedException If the run is interrupted.
+     */
+	private static Result measure(BenchmarkCase benchmark, int threads) throws InterruptedException {
+		// With several threads, all of them work on the same state to measure contention
+		Operation[] operations = new Operation[threads];
+		Arrays.fill(operations, benchmark.state.get());
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+				iteration(pool, operations);
+			}
+			double[] samples = new double[MEASURE_ITERATIONS];
+			for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+				samples[i] = iteration(pool, operations);
+			}
+			double mean = Arrays.stream(samples).average().orElse(0);
+			double variance = Arrays.stream(samples).map(x -> (x - mean) * (x - mean)).sum() / Math.max(1, samples.length - 1);
+			return new Result(benchmark.name, threads, mean, Math.sqrt(variance));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+    /**
+     * This is the iteration method.
+     * It runs every thread for the iteration length and returns the total throughput.
+     *
+     * @param pool       The ExecutorService running the threads.
+     * @param operations The Operation array, one entry per thread.
+     *
+     * @return double the operations per second summed over all threads.
+     *
+     * @throws InterruptedException If the run is interrupted.
+     */
+	private static double iteration(ExecutorService pool, Operation[] operations) throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<long[]>> futures = new ArrayList<>();
+		for (Operation operation : operations) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				long deadline = System.nanoTime() + ITERATION_MILLIS * 1_000_000;
+				long began = System.nanoTime();
+				long ops = 0;
+				long result = 0;
+				while (System.nanoTime() < deadline) {
+					result += operation.run(1024);
+					ops += 1024;
+				}
+				sink += result;
+				return new long[] { ops, System.nanoTime() - began };
+			}));
+		}
+		start.countDown();
+		double total = 0;
+		for (Future<long[]> future : futures) {
+			try {
+				long[] measured = future.get();
+				total += measured[0] * 1e9 / measured[1];
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return total;
+	}
+
+    /**
+     * This is the print method.
+     *
+     * @param result The Result to be printed.
+     *
+     * @return Result the same result, for chaining.
+     */
+	private static Result print(Result result) {
+		System.out.printf("%-40s %8d %16.0f %12.0f%n", result.name, result.threads, result.opsPerSecond, result.error);
+		return result;
+	}
+
+    /**
+     * This is the write method.
+     * It writes the results as a tab-separated report, with the JVM version in a comment line.
+     *
+     * @param file    The Path of the report.
+     * @param results The List of results.
+     *
+     * @throws IOException If the report cannot be written.
+     */
+	private static void write(Path file, List<Result> results) throws IOException {
+		if (file.toAbsolutePath().getParent() != null) {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+		}
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+			out.println("# java " + System.getProperty("java.version") + ", " + Runtime.getRuntime().availableProcessors() + " cpus");
+			out.println("benchmark\tthreads\tops_per_second\terror");
+			for (Result result : results) {
+				out.printf(Locale.ROOT, "%s\t%d\t%.1f\t%.1f%n", result.name, result.threads, result.opsPerSecond, result.error);
+			}
+		}
+	}
+
+    /**
+     * This is the read method.
+     * It reads a report written by write.
+     *
+     * @param file The Path of the report.
+     *
+     * @return Map the results by benchmark and thread count, in report order.
+     *
+     * @throws IOException If the report cannot be read.
+     */
+	private static Map<String, Result> read(Path file) throws IOException {
+		Map<String, Result> results = new LinkedHashMap<>();
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			if (line.startsWith("#") || line.startsWith("benchmark\t") || line.isBlank()) {
+				continue;
+			}
+			String[] fields = line.split("\t");
+			Result result = new Result(fields[0], Integer.parseInt(fields[1]), Double.parseDouble(fields[2]), Double.parseDouble(fields[3]));
+			results.put(result.key(), result);
+		}
+		return results;
+	}
+
+    /**
+     * This is the compare method.
+     * It prints the change in throughput of every benchmark present in both reports.
+     *
+     * @param baseline  The Path of the older report.
+     * @param candidate The Path of the newer report.
+     *
+     * @throws IOException If a report cannot be read.
+     */
+	private static void compare(Path baseline, Path candidate) throws IOException {
+		Map<String, Result> before = read(baseline);
+		Map<String, Result> after = read(candidate);
+		System.out.printf("%-40s %8s %16s %16s %9s%n", "Benchmark", "Threads", "baseline ops/s", "candidate ops/s", "change");
+		for (Result result : after.values()) {
+			Result old = before.get(result.key());
+			if (old == null) {
+				System.out.printf("%-40s %8d %16s %16.0f %9s%n", result.name, result.threads, "-", result.opsPerSecond, "new");
+				continue;
+			}
+			double change = (result.opsPerSecond - old.opsPerSecond) * 100 / old.opsPerSecond;
+			// A change within the combined error of both runs is reported as noise
+			boolean noise = Math.abs(result.opsPerSecond - old.opsPerSecond) <= (result.error + old.error);
+			System.out.printf("%-40s %8d %16.0f %16.0f %+8.1f%%%s%n", result.name, result.threads, old.opsPerSecond,
+					result.opsPerSecond, change, noise ? " ~" : "");
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package Benchmark;
+
+import Benchmark.BenchmarkRunner.BenchmarkCase;
+import Protocol.Message;
+import Server.Connection;
+import Server.GameBoard;
+import Server.GridBoard;
+import Server.Room;
+import Server.RoomRegistry;
+import Server.SharedView;
+import Server.TimerWheel;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the GameBenchmarks class defining the benchmarks of the game rules in SharedView and GridBoard,
+ * and of matching players into rooms.
+ * Each benchmark is measured uncontended on one thread and contended with several threads on one board.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class GameBenchmarks {
+	private static final String PLAYER_1 = "Player 1";
+	private static final String PLAYER_2 = "Player 2";
+
+	// A player that ignores every message, standing in for both players of the matched rooms.
+	private static final Connection IDLE_PLAYER = new Connection() {
+		@Override
+		public void send(Message message) {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	private GameBenchmarks() {
+	}
+
+    /**
+     * This is the all method.
+     *
+     * @return List the game benchmarks.
+     */
+	public static List<BenchmarkCase> all() {
+		List<BenchmarkCase> benchmarks = new ArrayList<>();
+
+		// Fill the board cell by cell, restarting it every nine moves
+		benchmarks.add(new BenchmarkCase("sharedView.checkButton", () -> {
+			SharedView view = new SharedView();
+			return batch -> {
+				long placed = 0;
+				for (int i = 0; i < batch; i++) {
+					int cell = i % 9;
+					if (cell == 0) {
+						view.restart();
+					}
+					if (view.checkButton(cell / 3, cell % 3, ((i & 1) == 0) ? PLAYER_1 : PLAYER_2)) {
+						placed++;
+					}
+				}
+				return placed;
+			};
+		}, true));
+
+		// The same moves through the single atomic move-and-evaluate call
+		benchmarks.add(new BenchmarkCase("sharedView.applyMove", () -> {
+			SharedView view = new SharedView();
+			return batch -> {
+				long result = 0;
+				for (int i = 0; i < batch; i++) {
+					int cell = i % 9;
+					if (cell == 0) {
+						view.restart();
+					}
+					result += view.applyMove(((i & 1) == 0) ? 1 : 2, cell / 3, cell % 3).ordinal();
+				}
+				return result;
+			};
+		}, true));
+
+		benchmarks.add(new BenchmarkCase("sharedView.checkWinningCondition", () -> {
+			SharedView view = midGame();
+			return batch -> {
+				long wins = 0;
+				for (int i = 0; i < batch; i++) {
+					if (view.checkWinningCondition(((i & 1) == 0) ? PLAYER_1 : PLAYER_2)) {
+						wins++;
+					}
+				}
+				return wins;
+			};
+		}, true));
+
+		benchmarks.add(new BenchmarkCase("sharedView.checkDrawCondition", () -> {
+			SharedView view = midGame();
+			return batch -> {
+				long draws = 0;
+				for (int i = 0; i < batch; i++) {
+					if (view.checkDrawCondition()) {
+						draws++;
+					}
+				}
+				return draws;
+			};
+		}, true));
+
+		benchmarks.add(new BenchmarkCase("sharedView.restart", () -> {
+			SharedView view = new SharedView();
+			return batch -> {
+				for (int i = 0; i < batch; i++) {
+					view.restart();
+				}
+				return batch;
+			};
+		}, true));
+
+		// Five-in-a-row moves on growing boards; the cost per move should not grow with the board
+		for (int size : new int[] { 15, 31 }) {
+			benchmarks.add(new BenchmarkCase("gridBoard.applyMove." + size + "x" + size, () -> {
+				GridBoard board = new GridBoard(size, 5);
+				int cells = size * size;
+				return batch -> {
+					long result = 0;
+					for (int i = 0; i < batch; i++) {
+						// Walk the cells with a stride coprime to the board, so marks scatter and rarely form lines
+						int cell = (int) ((i * 7L) % cells);
+						GameBoard.MoveResult moveResult = board.applyMove(((i & 1) == 0) ? 1 : 2, cell / size, cell % size);
+						if ((moveResult != GameBoard.MoveResult.PLACED) && (moveResult != GameBoard.MoveResult.REJECTED)) {
+							board.restart();
+						}
+						result += moveResult.ordinal();
+					}
+					return result;
+				};
+			}, true));
+		}
+
+		// Players joining without a room id; every second join makes a match and opens a room, which is then closed
+		benchmarks.add(new BenchmarkCase("matchmaker.join", () -> {
+			RoomRegistry rooms = new RoomRegistry();
+			return batch -> {
+				long matched = 0;
+				for (int i = 0; i < batch; i++) {
+					Room room = rooms.getMatchmaker().join(IDLE_PLAYER, 3, 3, 0).getRoom();
+					if (room != null) {
+						rooms.leave(room, IDLE_PLAYER);
+						matched++;
+					}
+				}
+				return matched;
+			};
+		}, true));
+
+		// A turn clock replaced by a move: one deadline a minute ahead scheduled and the previous one cancelled
+		benchmarks.add(new BenchmarkCase("timer.schedule+cancel", () -> {
+			TimerWheel wheel = new TimerWheel("bench-timer-wheel", 100, 512);
+			return batch -> {
+				TimerWheel.Timeout previous = wheel.schedule(() -> {}, 1, TimeUnit.MINUTES);
+				for (int i = 1; i < batch; i++) {
+					TimerWheel.Timeout next = wheel.schedule(() -> {}, 1, TimeUnit.MINUTES);
+					previous.cancel();
+					previous = next;
+				}
+				previous.cancel();
+				return wheel.pending();
+			};
+		}, true));
+
+		return benchmarks;
+	}
+
+    /**
+     * This is the midGame method.
+     *
+     * @return SharedView a board with six marks and no winner, so every check has to look at the whole board.
+     */
+	private static SharedView midGame() {
+		SharedView view = new SharedView();
+		view.checkButton(0, 0, PLAYER_1);
+		view.checkButton(1, 1, PLAYER_2);
+		view.checkButton(0, 1, PLAYER_1);
+		view.checkButton(0, 2, PLAYER_2);
+		view.checkButton(2, 0, PLAYER_1);
+		view.checkButton(1, 0, PLAYER_2);
+		return view;
+	}
+}
@@ -0,0 +1,117 @@
+package Benchmark;
+
+import Benchmark.BenchmarkRunner.BenchmarkCase;
+import Protocol.BinaryCodec;
+import Protocol.Message;
+import Protocol.TextCodec;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * This is the ProtocolBenchmarks class defining the benchmarks of command parsing and response formatting.
+ * The codecs are stateless, so they are only measured on one thread. The legacy benchmark repeats the
+ * split-based parsing the server used before the codecs, as a fixed point of comparison.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class ProtocolBenchmarks {
+	// Inputs are read from arrays rather than constants, so the JIT cannot fold the parsing away.
+	private static final String[] JOINS = { "Name Submitted", "Name Submitted room r-17" };
+	private static final String[] MOVES = { "Player 1 pressed the Button at row 1 and col 2", "Player 2 pressed the Button at row 0 and col 0" };
+	private static final String[] RESULTS = { "Player 2 successfully pressed the Button at row 2 and col 0", "Player 1 wins" };
+
+	private ProtocolBenchmarks() {
+	}
+
+    /**
+     * This is the all method.
+     *
+     * @return List the protocol benchmarks.
+     */
+	public static List<BenchmarkCase> all() {
+		List<BenchmarkCase> benchmarks = new ArrayList<>();
+
+		benchmarks.add(new BenchmarkCase("text.decode.join", () -> batch -> {
+			long result = 0;
+			for (int i = 0; i < batch; i++) {
+				result += TextCodec.decode(JOINS[i & 1]).getType();
+			}
+			return result;
+		}, false));
+
+		benchmarks.add(new BenchmarkCase("text.decode.move", () -> batch -> {
+			long result = 0;
+			for (int i = 0; i < batch; i++) {
+				Message message = TextCodec.decode(MOVES[i & 1]);
+				result += message.getRow() + message.getCol();
+			}
+			return result;
+		}, false));
+
+		benchmarks.add(new BenchmarkCase("text.decode.result", () -> batch -> {
+			long result = 0;
+			for (int i = 0; i < batch; i++) {
+				result += TextCodec.decode(RESULTS[i & 1]).getPlayer();
+			}
+			return result;
+		}, false));
+
+		benchmarks.add(new BenchmarkCase("legacy.split.move", () -> batch -> {
+			long result = 0;
+			for (int i = 0; i < batch; i++) {
+				String[] commands = MOVES[i & 1].split("\\s+");
+				result += Integer.parseInt(commands[7]) + Integer.parseInt(commands[10]);
+			}
+			return result;
+		}, false));
+
+		benchmarks.add(new BenchmarkCase("text.encode.joined", () -> batch -> {
+			long result = 0;
+			for (int i = 0; i < batch; i++) {
+				result += TextCodec.encode(Message.joined(1 + (i & 1))).hashCode();
+			}
+			return result;
+		}, false));
+
+		benchmarks.add(new BenchmarkCase("text.encode.moved", () -> batch -> {
+			long result = 0;
+			for (int i = 0; i < batch; i++) {
+				result += TextCodec.encode(Message.moved(1 + (i & 1), i % 3, (i >> 2) % 3)).hashCode();
+			}
+			return result;
+		}, false));
+
+		benchmarks.add(new BenchmarkCase("text.encode.result", () -> batch -> {
+			long result = 0;
+			for (int i = 0; i < batch; i++) {
+				result += TextCodec.encode(((i & 1) == 0) ? Message.win(1 + (i & 2) / 2) : Message.draw()).hashCode();
+			}
+			return result;
+		}, false));
+
+		benchmarks.add(new BenchmarkCase("binary.encode.moved", () -> batch -> {
+			long result = 0;
+			for (int i = 0; i < batch; i++) {
+				result += BinaryCodec.encode(Message.moved(1 + (i & 1), i % 3, (i >> 2) % 3))[4];
+			}
+			return result;
+		}, false));
+
+		benchmarks.add(new BenchmarkCase("binary.decode.move", () -> {
+			byte[][] frames = { BinaryCodec.encode(Message.move(1, 1, 2)), BinaryCodec.encode(Message.move(2, 0, 0)) };
+			return batch -> {
+				long result = 0;
+				for (int i = 0; i < batch; i++) {
+					Message message = BinaryCodec.decode(ByteBuffer.wrap(frames[i & 1]));
+					result += message.getRow() + message.getCol();
+				}
+				return result;
+			};
+		}, false));
+
+		return benchmarks;
+	}
+}
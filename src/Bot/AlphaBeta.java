@@ -0,0 +1,204 @@
+package Bot;
+
+import Server.BitBoard;
+
+/**
+ * This is the AlphaBeta class, the search engine of the computer opponent.
+ *
+ * It runs a negamax search with alpha-beta pruning and iterative deepening, so it always has a move ready
+ * when its time budget runs out. Positions are stored in a transposition table under the key of their
+ * canonical symmetry, which folds the eight rotations and reflections of a position into one entry.
+ * An 18-bit key indexes the table directly, so it needs no hashing and no collision check; every entry is
+ * one int, written with a single store, so all concurrent searches share it safely without locks.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class AlphaBeta {
+	// A won position scores WIN plus the number of free cells left, so quicker wins score higher.
+	private static final int WIN = 100;
+	// The order moves are tried in: centre, corners, then edges, which prunes the most.
+	private static final int[] ORDER = { 4, 0, 2, 6, 8, 1, 3, 5, 7 };
+
+	// Entry layout: bits 0-8 score + 256, bits 9-12 searched depth, bits 13-14 bound; 0 means empty.
+	private static final int EXACT = 1;
+	private static final int LOWER = 2;
+	private static final int UPPER = 3;
+	private static final int[] TABLE = new int[1 << 18];
+
+	private final long deadline;
+	private int nodes;
+	private boolean aborted;
+
+    /**
+     * This is the constructor for one search.
+     *
+     * @param deadline The long System.nanoTime at which the search stops.
+     */
+	private AlphaBeta(long deadline) {
+		this.deadline = deadline;
+	}
+
+    /**
+     * This is the bestMove method.
+     * It searches ever deeper until the position is solved or the budget is spent,
+     * and returns the best move of the deepest completed search.
+     *
+     * @param mine        The Integer mask of the marks of the player to move.
+     * @param theirs      The Integer mask of the opponent's marks.
+     * @param budgetNanos The long time the search may take.
+     *
+     * @return int the chosen cell between 0 and 8, or -1 if the board is full or already won.
+     */
+	public static int bestMove(int mine, int theirs, long budgetNanos) {
+		int free = ~(mine | theirs) & BitBoard.FULL;
+		if ((free == 0) || BitBoard.isWinningMask(mine) || BitBoard.isWinningMask(theirs)) {
+			return -1;
+		}
+		AlphaBeta search = new AlphaBeta(System.nanoTime() + budgetNanos);
+		int best = -1;
+		for (int cell : ORDER) {
+			if ((free & (1 << cell)) != 0) {
+				best = cell;
+				break;
+			}
+		}
+		int empties = Integer.bitCount(free);
+		for (int depth = 1; depth <= empties; depth++) {
+			int move = search.root(mine, theirs, depth, best);
+			if (search.aborted) {
+				break;
+			}
+			best = move;
+		}
+		return best;
+	}
+
+    /**
+     * This is the score method.
+     * It solves a position completely, ignoring any time budget.
+     *
+     * @param mine   The Integer mask of the marks of the player to move.
+     * @param theirs The Integer mask of the opponent's marks.
+     *
+     * @return int the value for the player to move: positive wins, 0 draws, negative loses.
+     */
+	public static int score(int mine, int theirs) {
+		return new AlphaBeta(Long.MAX_VALUE).negamax(mine, theirs, 9, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+    /**
+     * This is the root method.
+     * It searches every move of the root position to the given depth, trying the previous best move first.
+     *
+     * @param mine     The Integer mask of the marks of the player to move.
+     * @param theirs   The Integer mask of the opponent's marks.
+     * @param depth    The Integer number of moves to look ahead.
+     * @param previous The Integer best move of the previous depth.
+     *
+     * @return int the best move found, meaningless if the search was aborted.
+     */
+	private int root(int mine, int theirs, int depth, int previous) {
+		int free = ~(mine | theirs) & BitBoard.FULL;
+		int best = previous;
+		int alpha = -Integer.MAX_VALUE;
+		for (int i = -1; i < ORDER.length; i++) {
+			int cell = (i < 0) ? previous : ORDER[i];
+			if (((i >= 0) && (cell == previous)) || ((free & (1 << cell)) == 0)) {
+				continue;
+			}
+			int value = -negamax(theirs, mine | (1 << cell), depth - 1, -Integer.MAX_VALUE, -alpha);
+			if (aborted) {
+				return best;
+			}
+			if (value > alpha) {
+				alpha = value;
+				best = cell;
+			}
+		}
+		return best;
+	}
+
+    /**
+     * This is the negamax method.
+     *
+     * @param mine   The Integer mask of the marks of the player to move.
+     * @param theirs The Integer mask of the opponent, who made the last move.
+     * @param depth  The Integer number of moves still to look ahead.
+     * @param alpha  The Integer score the player to move is already guaranteed.
+     * @param beta   The Integer score the opponent is already guaranteed, negated.
+     *
+     * @return int the value of the position for the player to move.
+     */
+	private int negamax(int mine, int theirs, int depth, int alpha, int beta) {
+		int free = ~(mine | theirs) & BitBoard.FULL;
+		if (BitBoard.isWinningMask(theirs)) {
+			return -(WIN + Integer.bitCount(free));
+		}
+		if (free == 0) {
+			return 0;
+		}
+		if (depth == 0) {
+			return evaluate(mine, theirs);
+		}
+		if ((++nodes & 255) == 0 && System.nanoTime() > deadline) {
+			aborted = true;
+			return 0;
+		}
+
+		int key = Symmetry.canonicalKey(mine, theirs);
+		int entry = TABLE[key];
+		if ((entry != 0) && (((entry >>> 9) & 15) >= depth)) {
+			int value = (entry & 511) - 256;
+			int bound = entry >>> 13;
+			if ((bound == EXACT) || ((bound == LOWER) && (value >= beta)) || ((bound == UPPER) && (value <= alpha))) {
+				return value;
+			}
+		}
+
+		int originalAlpha = alpha;
+		int best = -Integer.MAX_VALUE;
+		for (int cell : ORDER) {
+			if ((free & (1 << cell)) == 0) {
+				continue;
+			}
+			int value = -negamax(theirs, mine | (1 << cell), depth - 1, -beta, -alpha);
+			if (aborted) {
+				return 0;
+			}
+			best = Math.max(best, value);
+			alpha = Math.max(alpha, value);
+			if (alpha >= beta) {
+				break;
+			}
+		}
+
+		int bound = (best <= originalAlpha) ? UPPER : ((best >= beta) ? LOWER : EXACT);
+		TABLE[key] = (bound << 13) | (Math.min(depth, 15) << 9) | (best + 256);
+		return best;
+	}
+
+    /**
+     * This is the evaluate method.
+     * It estimates an unfinished position by its open lines: each line free of the opponent's marks counts
+     * for the player, and each line free of the player's marks counts against them.
+     *
+     * @param mine   The Integer mask of the marks of the player to move.
+     * @param theirs The Integer mask of the opponent's marks.
+     *
+     * @return int the estimate, always smaller in size than any won or lost score.
+     */
+	private static int evaluate(int mine, int theirs) {
+		int value = 0;
+		for (int line : BitBoard.LINES) {
+			if ((line & theirs) == 0) {
+				value += Integer.bitCount(line & mine);
+			}
+			if ((line & mine) == 0) {
+				value -= Integer.bitCount(line & theirs);
+			}
+		}
+		return value;
+	}
+}
@@ -0,0 +1,167 @@
+package Bot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * This is the PerfectPlay class giving the solved outcome and best move of every reachable 3 x 3 position.
+ *
+ * A position is indexed by its base-3 number: cell i contributes 3^i once for a Player 1 mark and twice for
+ * a Player 2 mark. Two 512-entry tables turn each player's 9-bit mask into its share of the index, so a
+ * lookup is two array reads, an addition and one byte read, without allocation. Each entry is one byte:
+ * the best move in bits 0-3 (NO_MOVE if there is none) and the status in bits 4-6. Player 1 always moves
+ * first, so the side to move follows from the number of marks.
+ *
+ * The table is written offline by PerfectPlayGenerator and memory-mapped at startup. If the file is missing,
+ * the same table is built in memory, which takes a few milliseconds.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class PerfectPlay {
+	// The number of entries, 3^9.
+	public static final int SIZE = 19683;
+	// The move stored for positions without one.
+	public static final int NO_MOVE = 15;
+
+	// The position cannot arise when Player 1 moves first.
+	public static final int UNREACHABLE = 0;
+	// The player to move wins with perfect play.
+	public static final int WIN = 1;
+	// Perfect play from both sides ends in a draw.
+	public static final int DRAW = 2;
+	// The player to move loses against perfect play.
+	public static final int LOSS = 3;
+	// The game is over: Player 1 completed a line.
+	public static final int PLAYER_1_WON = 4;
+	// The game is over: Player 2 completed a line.
+	public static final int PLAYER_2_WON = 5;
+	// The game is over: the board is full without a line.
+	public static final int BOARD_FULL = 6;
+
+	// PLAYER_1_INDEX[mask] and PLAYER_2_INDEX[mask] are the shares of a player's marks in the base-3 index.
+	private static final int[] PLAYER_1_INDEX = new int[512];
+	private static final int[] PLAYER_2_INDEX = new int[512];
+	static {
+		for (int mask = 0; mask < 512; mask++) {
+			int power = 1;
+			for (int cell = 0; cell < 9; cell++) {
+				if ((mask & (1 << cell)) != 0) {
+					PLAYER_1_INDEX[mask] += power;
+				}
+				power *= 3;
+			}
+			PLAYER_2_INDEX[mask] = 2 * PLAYER_1_INDEX[mask];
+		}
+	}
+
+	private static volatile ByteBuffer table;
+
+	private PerfectPlay() {
+	}
+
+    /**
+     * This is the load method called at startup.
+     * It memory-maps the table file written by PerfectPlayGenerator, or builds the table in memory if the
+     * file is missing or has the wrong size.
+     *
+     * @param file The Path of the table file.
+     *
+     * @return String a description of where the table came from.
+     */
+	public static synchronized String load(Path file) {
+		try {
+			if (Files.isRegularFile(file) && (Files.size(file) == SIZE)) {
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					table = channel.map(FileChannel.MapMode.READ_ONLY, 0, SIZE);
+				}
+				return "mapped " + file;
+			}
+		} catch (IOException e) {
+			// fall back to building the table
+		}
+		table = ByteBuffer.wrap(PerfectPlayGenerator.generate());
+		return "built in memory (" + file + " not found)";
+	}
+
+    /**
+     * This is the entry method.
+     *
+     * @param player1 The Integer mask of Player 1's marks.
+     * @param player2 The Integer mask of Player 2's marks.
+     *
+     * @return int the table entry of the position.
+     */
+	private static int entry(int player1, int player2) {
+		ByteBuffer current = table;
+		if (current == null) {
+			load(Paths.get(System.getProperty("bot.table", "perfect-play.bin")));
+			current = table;
+		}
+		return current.get(index(player1, player2));
+	}
+
+    /**
+     * This is the index method.
+     *
+     * @param player1 The Integer mask of Player 1's marks.
+     * @param player2 The Integer mask of Player 2's marks; it must not overlap player1.
+     *
+     * @return int the base-3 index of the position.
+     */
+	public static int index(int player1, int player2) {
+		return PLAYER_1_INDEX[player1] + PLAYER_2_INDEX[player2];
+	}
+
+    /**
+     * This is the status method.
+     *
+     * @param player1 The Integer mask of Player 1's marks.
+     * @param player2 The Integer mask of Player 2's marks.
+     *
+     * @return int one of UNREACHABLE, WIN, DRAW, LOSS (for the player to move), PLAYER_1_WON, PLAYER_2_WON or BOARD_FULL.
+     */
+	public static int status(int player1, int player2) {
+		if ((player1 & player2) != 0) {
+			return UNREACHABLE;
+		}
+		return (entry(player1, player2) >>> 4) & 7;
+	}
+
+    /**
+     * This is the bestMove method.
+     * Among equally good moves it picks the quickest win or the slowest loss.
+     *
+     * @param player1 The Integer mask of Player 1's marks.
+     * @param player2 The Integer mask of Player 2's marks.
+     *
+     * @return int the best cell between 0 and 8 for the player to move, or -1 if the game is over or unreachable.
+     */
+	public static int bestMove(int player1, int player2) {
+		if ((player1 & player2) != 0) {
+			return -1;
+		}
+		int entry = entry(player1, player2);
+		// Unreachable entries are left zero by the generator, which would read as cell 0
+		if (((entry >>> 4) & 7) == UNREACHABLE) {
+			return -1;
+		}
+		int move = entry & 15;
+		return (move == NO_MOVE) ? -1 : move;
+	}
+
+    /**
+     * This is the playerToMove method.
+     *
+     * @param player1 The Integer mask of Player 1's marks.
+     * @param player2 The Integer mask of Player 2's marks.
+     *
+     * @return int 1 or 2 for the player whose turn it is, assuming Player 1 moved first.
+     */
+	public static int playerToMove(int player1, int player2) {
+		return (Integer.bitCount(player1) > Integer.bitCount(player2)) ? 2 : 1;
+	}
+}
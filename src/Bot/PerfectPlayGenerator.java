@@ -0,0 +1,112 @@
+package Bot;
+
+import Server.BitBoard;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * This is the PerfectPlayGenerator class, the offline generator of the PerfectPlay table.
+ * It solves every position reachable from the empty board, Player 1 moving first, by a memoised
+ * negamax search and writes one byte per base-3 index.
+ *
+ * Usage: java Bot.PerfectPlayGenerator [file]   (default perfect-play.bin)
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class PerfectPlayGenerator {
+	// A won position scores WIN plus the number of free cells left, so quicker wins score higher.
+	private static final int WIN = 10;
+	// The order moves are tried in, which also breaks ties between equally good moves.
+	private static final int[] ORDER = { 4, 0, 2, 6, 8, 1, 3, 5, 7 };
+
+	private PerfectPlayGenerator() {
+	}
+
+    /**
+     * This is the main method to write the table file.
+     *
+     * @param args Command line arguments
+     * @throws IOException If the file cannot be written.
+     */
+	public static void main(String[] args) throws IOException {
+		Path file = Paths.get((args.length > 0) ? args[0] : "perfect-play.bin");
+		byte[] table = generate();
+		Files.write(file, table);
+		long reachable = 0;
+		for (byte entry : table) {
+			if (entry != 0) {
+				reachable++;
+			}
+		}
+		System.out.println(reachable + " reachable positions written to " + file);
+	}
+
+    /**
+     * This is the generate method.
+     *
+     * @return byte[] the table, PerfectPlay.SIZE entries laid out as described in PerfectPlay.
+     */
+	public static byte[] generate() {
+		byte[] table = new byte[PerfectPlay.SIZE];
+		int[] scores = new int[PerfectPlay.SIZE];
+		Arrays.fill(scores, Integer.MIN_VALUE);
+		solve(0, 0, table, scores);
+		return table;
+	}
+
+    /**
+     * This is the solve method.
+     * It stores the entry of a position and of every position reachable from it.
+     *
+     * @param player1 The Integer mask of Player 1's marks.
+     * @param player2 The Integer mask of Player 2's marks.
+     * @param table   The byte array of entries being filled.
+     * @param scores  The Integer array of solved scores, Integer.MIN_VALUE where not solved yet.
+     *
+     * @return int the score for the player to move: positive wins, 0 draws, negative loses.
+     */
+	private static int solve(int player1, int player2, byte[] table, int[] scores) {
+		int index = PerfectPlay.index(player1, player2);
+		if (scores[index] != Integer.MIN_VALUE) {
+			return scores[index];
+		}
+		int free = ~(player1 | player2) & BitBoard.FULL;
+		boolean firstToMove = PerfectPlay.playerToMove(player1, player2) == 1;
+
+		int status;
+		int move = PerfectPlay.NO_MOVE;
+		int score;
+		if (BitBoard.isWinningMask(player1) || BitBoard.isWinningMask(player2)) {
+			// Only the player who just moved can have a line, so the player to move has lost
+			status = BitBoard.isWinningMask(player1) ? PerfectPlay.PLAYER_1_WON : PerfectPlay.PLAYER_2_WON;
+			score = -(WIN + Integer.bitCount(free));
+		}
+		else if (free == 0) {
+			status = PerfectPlay.BOARD_FULL;
+			score = 0;
+		}
+		else {
+			score = Integer.MIN_VALUE;
+			for (int cell : ORDER) {
+				if ((free & (1 << cell)) == 0) {
+					continue;
+				}
+				int value = firstToMove
+						? -solve(player1 | (1 << cell), player2, table, scores)
+						: -solve(player1, player2 | (1 << cell), table, scores);
+				if (value > score) {
+					score = value;
+					move = cell;
+				}
+			}
+			status = (score > 0) ? PerfectPlay.WIN : ((score == 0) ? PerfectPlay.DRAW : PerfectPlay.LOSS);
+		}
+		table[index] = (byte) ((status << 4) | move);
+		scores[index] = score;
+		return score;
+	}
+}
@@ -0,0 +1,132 @@
+package Bot;
+
+/**
+ * This is the Symmetry class mapping 3 x 3 boards onto the eight rotations and reflections of the square.
+ * Boards that differ only by a symmetry have the same outcome, so searches and tables only need to
+ * store one canonical representative of each.
+ *
+ * Cells are numbered row * 3 + col, and a board is a pair of 9-bit masks.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class Symmetry {
+	// The number of symmetries of the square; transform 0 is the identity.
+	public static final int COUNT = 8;
+
+	// CELLS[t][cell] is the cell that cell is moved to by transform t, and INVERSE[t] undoes it.
+	private static final int[][] CELLS = new int[COUNT][9];
+	private static final int[][] INVERSE = new int[COUNT][9];
+	// MASKS[t][mask] is the mask moved by transform t, so a whole board is transformed with two lookups.
+	private static final int[][] MASKS = new int[COUNT][512];
+	static {
+		for (int row = 0; row < 3; row++) {
+			for (int col = 0; col < 3; col++) {
+				int[] targets = {
+					row * 3 + col,               // identity
+					col * 3 + (2 - row),         // rotate 90
+					(2 - row) * 3 + (2 - col),   // rotate 180
+					(2 - col) * 3 + row,         // rotate 270
+					row * 3 + (2 - col),         // mirror left-right
+					(2 - row) * 3 + col,         // mirror top-bottom
+					col * 3 + row,               // mirror on the main diagonal
+					(2 - col) * 3 + (2 - row)    // mirror on the anti-diagonal
+				};
+				for (int t = 0; t < COUNT; t++) {
+					CELLS[t][row * 3 + col] = targets[t];
+					INVERSE[t][targets[t]] = row * 3 + col;
+				}
+			}
+		}
+		for (int t = 0; t < COUNT; t++) {
+			for (int mask = 0; mask < 512; mask++) {
+				int moved = 0;
+				for (int cell = 0; cell < 9; cell++) {
+					if ((mask & (1 << cell)) != 0) {
+						moved |= 1 << CELLS[t][cell];
+					}
+				}
+				MASKS[t][mask] = moved;
+			}
+		}
+	}
+
+	private Symmetry() {
+	}
+
+    /**
+     * This is the transform method.
+     *
+     * @param transform The Integer symmetry between 0 and 7.
+     * @param mask      The Integer mask of cells.
+     *
+     * @return int the mask moved by the symmetry.
+     */
+	public static int transform(int transform, int mask) {
+		return MASKS[transform][mask];
+	}
+
+    /**
+     * This is the transformCell method.
+     *
+     * @param transform The Integer symmetry between 0 and 7.
+     * @param cell      The Integer cell between 0 and 8.
+     *
+     * @return int the cell moved by the symmetry.
+     */
+	public static int transformCell(int transform, int cell) {
+		return CELLS[transform][cell];
+	}
+
+    /**
+     * This is the inverseCell method.
+     * It maps a cell of the transformed board back onto the original board.
+     *
+     * @param transform The Integer symmetry between 0 and 7.
+     * @param cell      The Integer cell between 0 and 8 on the transformed board.
+     *
+     * @return int the cell on the original board.
+     */
+	public static int inverseCell(int transform, int cell) {
+		return INVERSE[transform][cell];
+	}
+
+    /**
+     * This is the canonicalTransform method.
+     * It finds the symmetry giving the board its smallest key, so all eight variants agree on one of them.
+     *
+     * @param first  The Integer mask of the first player's marks.
+     * @param second The Integer mask of the second player's marks.
+     *
+     * @return int the symmetry between 0 and 7 producing the canonical board.
+     */
+	public static int canonicalTransform(int first, int second) {
+		int best = 0;
+		int bestKey = first | (second << 9);
+		for (int t = 1; t < COUNT; t++) {
+			int key = MASKS[t][first] | (MASKS[t][second] << 9);
+			if (key < bestKey) {
+				bestKey = key;
+				best = t;
+			}
+		}
+		return best;
+	}
+
+    /**
+     * This is the canonicalKey method.
+     *
+     * @param first  The Integer mask of the first player's marks.
+     * @param second The Integer mask of the second player's marks.
+     *
+     * @return int the 18-bit key of the canonical board, the first player's marks in the low 9 bits.
+     */
+	public static int canonicalKey(int first, int second) {
+		int bestKey = first | (second << 9);
+		for (int t = 1; t < COUNT; t++) {
+			bestKey = Math.min(bestKey, MASKS[t][first] | (MASKS[t][second] << 9));
+		}
+		return bestKey;
+	}
+}
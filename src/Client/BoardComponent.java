@@ -0,0 +1,276 @@
+package Client;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * This is the BoardComponent class painting the game board as one component instead of a button per cell.
+ *
+ * The board keeps the mark of every cell in a byte array. Placing a mark repaints that cell's rectangle only,
+ * and Swing merges the cells marked in quick succession into a single paint, so spectating or replaying a fast
+ * game costs a few small copies rather than a relayout of the board. Painting only visits the cells inside the
+ * clip, and draws the marks from the SpriteCache, scaled once per cell size. A press is located from the mouse
+ * coordinates and reported to the CellListener with its row and column.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class BoardComponent extends JComponent {
+	private static final long serialVersionUID = 1L;
+	private static final Color ENABLED = Color.WHITE;
+	private static final Color DISABLED = new Color(0xEEEEEE);
+
+	private int boardSize;
+	private byte[] cells;
+	private CellListener listener;
+	private int pressed = -1;
+
+    /**
+     * This is the CellListener interface for the presses on the board.
+     */
+	public interface CellListener {
+
+        /**
+         * This is the cellPressed method called when the player presses an enabled board.
+         *
+         * @param row The Integer indicates the row index.
+         * @param col The Integer indicates the column index.
+         */
+		void cellPressed(int row, int col);
+	}
+
+    /**
+     * This is the constructor to construct an empty board.
+     *
+     * @param size The Integer indicates the number of rows and columns.
+     */
+	public BoardComponent(int size) {
+		setBoardSize(size);
+		setOpaque(true);
+		MouseAdapter mouse = new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e) {
+				pressed = (isEnabled() && SwingUtilities.isLeftMouseButton(e)) ? cellAt(e.getX(), e.getY()) : -1;
+			}
+
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				// Like a button, a press counts if it is released over the cell it started on
+				int cell = pressed;
+				pressed = -1;
+				if ((cell >= 0) && (cell == cellAt(e.getX(), e.getY())) && isEnabled() && (listener != null)) {
+					listener.cellPressed(cell / boardSize, cell % boardSize);
+				}
+			}
+		};
+		addMouseListener(mouse);
+	}
+
+    /**
+     * This is the setBoardSize method.
+     * It clears the board and gives it the specified number of rows and columns.
+     *
+     * @param size The Integer indicates the number of rows and columns.
+     */
+	public void setBoardSize(int size) {
+		boardSize = size;
+		cells = new byte[size * size];
+		pressed = -1;
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * This is the board size getter method.
+	 *
+	 * @return int the number of rows and columns of the board.
+	 */
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	/**
+	 * This is the setCellListener method.
+	 *
+	 * @param listener The CellListener called when a cell is pressed.
+	 */
+	public void setCellListener(CellListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * This is the setMark method.
+	 * It places a mark and repaints the cell, if the mark changed.
+	 *
+	 * @param row    The Integer indicates the row index.
+	 * @param col    The Integer indicates the column index.
+	 * @param player The Integer indicates the mark, 0 for none, 1 for X and 2 for O.
+	 */
+	public void setMark(int row, int col, int player) {
+		int cell = row * boardSize + col;
+		if (cells[cell] != player) {
+			cells[cell] = (byte) player;
+			repaint(cellBounds(row, col));
+		}
+	}
+
+	/**
+	 * This is the mark getter method.
+	 *
+	 * @param row The Integer indicates the row index.
+	 * @param col The Integer indicates the column index.
+	 *
+	 * @return int 0 for an empty cell, 1 for X and 2 for O.
+	 */
+	public int getMark(int row, int col) {
+		return cells[row * boardSize + col];
+	}
+
+	/**
+	 * This is the clear method.
+	 * It removes every mark.
+	 */
+	public void clear() {
+		Arrays.fill(cells, (byte) 0);
+		repaint();
+	}
+
+	/**
+	 * This is the setEnabled method.
+	 * A disabled board ignores presses and is painted grey.
+	 *
+	 * @param enabled The boolean true to accept presses.
+	 */
+	@Override
+	public void setEnabled(boolean enabled) {
+		if (enabled != isEnabled()) {
+			super.setEnabled(enabled);
+			repaint();
+		}
+	}
+
+	/**
+	 * This is the preferred size getter method.
+	 *
+	 * @return Dimension 100 pixels per cell on the 3 x 3 board, and at least 24 on larger boards.
+	 */
+	@Override
+	public Dimension getPreferredSize() {
+		if (isPreferredSizeSet()) {
+			return super.getPreferredSize();
+		}
+		int cell = (boardSize == 3) ? 100 : Math.max(24, 360 / boardSize);
+		return new Dimension(cell * boardSize, cell * boardSize);
+	}
+
+    /**
+     * This is the cellSize method.
+     *
+     * @return int the width and height of one cell, so that the board fits the component.
+     */
+	private int cellSize() {
+		return Math.max(1, Math.min(getWidth(), getHeight()) / boardSize);
+	}
+
+    /**
+     * This is the cellBounds method.
+     *
+     * @param row The Integer indicates the row index.
+     * @param col The Integer indicates the column index.
+     *
+     * @return Rectangle the area of the cell within the component.
+     */
+	private Rectangle cellBounds(int row, int col) {
+		int cell = cellSize();
+		return new Rectangle(originX() + col * cell, originY() + row * cell, cell, cell);
+	}
+
+    /**
+     * This is the originX method.
+     *
+     * @return int the left edge of the board, which is centred in the component.
+     */
+	private int originX() {
+		return (getWidth() - cellSize() * boardSize) / 2;
+	}
+
+    /**
+     * This is the originY method.
+     *
+     * @return int the top edge of the board, which is centred in the component.
+     */
+	private int originY() {
+		return (getHeight() - cellSize() * boardSize) / 2;
+	}
+
+    /**
+     * This is the cellAt method.
+     * It hit-tests a point of the component.
+     *
+     * @param x The Integer x coordinate.
+     * @param y The Integer y coordinate.
+     *
+     * @return int the index row * size + column of the cell at the point, or -1 if it is off the board.
+     */
+	int cellAt(int x, int y) {
+		int cell = cellSize();
+		int dx = x - originX();
+		int dy = y - originY();
+		if ((dx < 0) || (dy < 0)) {
+			return -1;
+		}
+		int col = dx / cell;
+		int row = dy / cell;
+		return ((row < boardSize) && (col < boardSize)) ? row * boardSize + col : -1;
+	}
+
+    /**
+     * This is the paintComponent method.
+     * It paints the cells that intersect the clip, which is a single cell when only a mark was placed.
+     *
+     * @param g The Graphics to paint with.
+     */
+	@Override
+	protected void paintComponent(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		g.setColor(getParent() != null ? getParent().getBackground() : getBackground());
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+		int cell = cellSize();
+		int x0 = originX();
+		int y0 = originY();
+		int firstCol = Math.max(0, (clip.x - x0) / cell);
+		int lastCol = Math.min(boardSize - 1, (clip.x + clip.width - 1 - x0) / cell);
+		int firstRow = Math.max(0, (clip.y - y0) / cell);
+		int lastRow = Math.min(boardSize - 1, (clip.y + clip.height - 1 - y0) / cell);
+
+		SpriteCache sprites = SpriteCache.get();
+		int spriteSize = Math.max(8, cell * 3 / 5);
+		int inset = (cell - spriteSize) / 2;
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int col = firstCol; col <= lastCol; col++) {
+				int x = x0 + col * cell;
+				int y = y0 + row * cell;
+				g.setColor(isEnabled() ? ENABLED : DISABLED);
+				g.fillRect(x, y, cell, cell);
+				g.setColor(Color.BLACK);
+				g.drawRect(x, y, cell - 1, cell - 1);
+				int mark = cells[row * boardSize + col];
+				if (mark != 0) {
+					g.drawImage(sprites.sprite(mark, spriteSize), x + inset, y + inset, null);
+				}
+			}
+		}
+	}
+}
@@ -1,4 +1,5 @@
 package Client;
+import Logging.EventLog;
 import javax.swing.SwingUtilities;
 
 /**
@@ -20,6 +21,7 @@ public class Client {
      * @param args Command line arguments
      */
 	public static void main(String[] args) {
+		EventLog.start("client");
 		SwingUtilities.invokeLater(new Runnable() {
 			@Override
 			public void run() {
@@ -0,0 +1,573 @@
+package Client;
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+import Protocol.BinaryCodec;
+import Protocol.Message;
+import Protocol.TextCodec;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This is the GameClient class, a headless connection to the server for one player.
+ *
+ * Every command returns a CompletableFuture completed by the server's answer: join, playBot and rematch
+ * once the player is seated, move with the player's MOVED or REJECTED message, hint with the SUGGESTED cell,
+ * and exit once the room reports the game over. The server answers a connection in the order it was asked,
+ * so the pending futures of each kind are kept in a queue and completed first in, first out. A request the server
+ * would not answer (a move before the player is seated, a hint out of turn or on a larger board) fails at once
+ * instead of being queued, and moves, hints and exits fail after client.replyMillis without an answer, so a lost
+ * answer cannot leave every later one completing the request before it.
+ *
+ * Every message received is folded into an immutable GameState and passed to the Listeners, on the thread
+ * reading from the server; a Listener must return quickly and never block. If the connection drops during a
+ * game, the client reconnects for resume.graceMillis and resumes the game with the token the server sent.
+ *
+ * The client does not use Swing, so bots, tests and load tools can run thousands of them in one JVM, giving
+ * them an Executor of virtual threads to read with.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class GameClient implements Closeable {
+	// How long to keep trying to reconnect; the server holds the game for as long by default.
+	private static final long RESUME_WINDOW_MILLIS = Long.getLong("resume.graceMillis", 30000);
+	// How long a move, hint or exit waits for the server's answer.
+	private static final long REPLY_MILLIS = Long.getLong("client.replyMillis", 10000);
+
+    /**
+     * This is the Listener interface for the stream of states.
+     */
+	public interface Listener {
+
+        /**
+         * This is the stateChanged method called on the reading thread after every message and reconnect.
+         *
+         * @param state   The GameState after the message.
+         * @param message The Message received, or null if the connection dropped or could not be resumed.
+         */
+		void stateChanged(GameState state, Message message);
+	}
+
+	private final String host;
+	private final int port;
+	private final boolean offerBinary;
+	private final Executor reader;
+
+	private volatile Socket socket;
+	private DataInputStream in;
+	private volatile OutputStream out;
+	private BufferedReader lines;
+	private volatile boolean binary;
+	private volatile boolean closed;
+
+	private final AtomicReference<GameState> state = new AtomicReference<>(GameState.initial());
+	private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+	// The token the server sent at join, to resume the game with if the connection drops; null once the player quits.
+	private volatile String resumeToken;
+
+	private final Queue<CompletableFuture<GameState>> joins = new ConcurrentLinkedQueue<>();
+	private final Queue<CompletableFuture<Message>> moves = new ConcurrentLinkedQueue<>();
+	private final Queue<CompletableFuture<Message>> hints = new ConcurrentLinkedQueue<>();
+	private final Queue<CompletableFuture<Void>> exits = new ConcurrentLinkedQueue<>();
+
+    /**
+     * This is the constructor for a client that offers the binary protocol and reads on a thread of its own.
+     *
+     * @param host The String host of the server.
+     * @param port The Integer port of the server.
+     */
+	public GameClient(String host, int port) {
+		this(host, port, true, null);
+	}
+
+    /**
+     * This is the constructor for a client.
+     *
+     * @param host   The String host of the server.
+     * @param port   The Integer port of the server.
+     * @param binary The boolean true to offer the binary protocol, false to speak text.
+     * @param reader The Executor running the loop reading from the server, or null for a thread of its own.
+     */
+	public GameClient(String host, int port, boolean binary, Executor reader) {
+		this.host = host;
+		this.port = port;
+		this.offerBinary = binary;
+		this.reader = reader;
+	}
+
+    /**
+     * This is the connect method.
+     * It connects to the server and starts reading from it.
+     *
+     * @throws IOException If the server cannot be reached.
+     */
+	public void connect() throws IOException {
+		open();
+		if (reader != null) {
+			reader.execute(this::run);
+		}
+		else {
+			Thread thread = new Thread(this::run, "client-reader");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+    /**
+     * This is the addListener method.
+     *
+     * @param listener The Listener to be told every new state.
+     */
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+    /**
+     * This is the removeListener method.
+     *
+     * @param listener The Listener to be removed.
+     */
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+    /**
+     * This is the state getter method.
+     *
+     * @return GameState the latest state.
+     */
+	public GameState getState() {
+		return state.get();
+	}
+
+    /**
+     * This is the join method.
+     *
+     * @param roomId    The String room to join, or null to be matched with the next player.
+     * @param boardSize The Integer indicates the number of rows and columns.
+     * @param winLength The Integer number of marks in a row that wins.
+     *
+     * @return CompletableFuture completed with the state once the player is seated, failed if the room is full.
+     */
+	public CompletableFuture<GameState> join(String roomId, int boardSize, int winLength) {
+		return request(joins, Message.join(roomId, boardSize, winLength));
+	}
+
+    /**
+     * This is the playBot method.
+     *
+     * @return CompletableFuture completed with the state once the player is seated against the computer.
+     */
+	public CompletableFuture<GameState> playBot() {
+		return request(joins, Message.playBot());
+	}
+
+    /**
+     * This is the move method.
+     *
+     * @param row The Integer indicates the row index.
+     * @param col The Integer indicates the column index.
+     *
+     * @return CompletableFuture completed with the MOVED or REJECTED message for this player, failed at once if
+     *         the player is not seated.
+     */
+	public CompletableFuture<Message> move(int row, int col) {
+		int seat = state.get().getSeat();
+		if (seat == 0) {
+			return failed("not seated");
+		}
+		return timed(moves, request(moves, Message.move(seat, row, col)));
+	}
+
+    /**
+     * This is the hint method.
+     *
+     * @return CompletableFuture completed with the SUGGESTED message, failed at once if the server gives no hint:
+     *         when the player is not seated, not to move, or plays on a board other than 3 x 3.
+     */
+	public CompletableFuture<Message> hint() {
+		GameState current = state.get();
+		if ((current.getSeat() == 0) || !current.isMovable() || (current.getBoardSize() != Message.CLASSIC_SIZE)) {
+			return failed("no hint for this position");
+		}
+		return timed(hints, request(hints, Message.hint(current.getSeat())));
+	}
+
+    /**
+     * This is the rematch method.
+     * It clears the board and asks to play again.
+     *
+     * @return CompletableFuture completed with the state once the player is seated for the next game.
+     */
+	public CompletableFuture<GameState> rematch() {
+		state.updateAndGet(GameState::rematch);
+		return request(joins, Message.rematch());
+	}
+
+    /**
+     * This is the exit method.
+     * It leaves the game in the middle; the room tells both players the game is over.
+     *
+     * @return CompletableFuture completed once the room reports the game over, or at once if not seated.
+     */
+	public CompletableFuture<Void> exit() {
+		if (state.get().getSeat() == 0) {
+			return send(Message.exit()) ? CompletableFuture.completedFuture(null) : failed("not connected");
+		}
+		return timed(exits, request(exits, Message.exit()));
+	}
+
+    /**
+     * This is the quit method.
+     * It tells the server the player leaves for good, so its game is not held for it once it disconnects.
+     *
+     * @return CompletableFuture completed once the message is sent.
+     */
+	public CompletableFuture<Void> quit() {
+		resumeToken = null;
+		return send(Message.quit()) ? CompletableFuture.completedFuture(null) : failed("not connected");
+	}
+
+    /**
+     * This is the close method.
+     * It closes the connection without reconnecting; pending futures are failed.
+     */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			Socket socket = this.socket;
+			if (socket != null) {
+				socket.close();
+			}
+		} catch (IOException e) {
+			// Closing anyway
+		}
+	}
+
+    /**
+     * This is the request method.
+     * The future is queued before the message is sent, so the answer cannot arrive before it.
+     *
+     * @param pending The Queue of futures the answer completes.
+     * @param message The Message to be sent.
+     *
+     * @return CompletableFuture the queued future, failed if the message could not be sent.
+     */
+	private <T> CompletableFuture<T> request(Queue<CompletableFuture<T>> pending, Message message) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		pending.add(future);
+		if (!send(message)) {
+			pending.remove(future);
+			future.completeExceptionally(new IOException("not connected"));
+		}
+		return future;
+	}
+
+    /**
+     * This is the timed method.
+     * It fails a queued future that is not answered within client.replyMillis and takes it out of its queue.
+     *
+     * @param pending The Queue the future waits in.
+     * @param future  The CompletableFuture of the request.
+     *
+     * @return CompletableFuture the same future.
+     */
+	private static <T> CompletableFuture<T> timed(Queue<CompletableFuture<T>> pending, CompletableFuture<T> future) {
+		future.orTimeout(REPLY_MILLIS, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+			if (error != null) {
+				pending.remove(future);
+			}
+		});
+		return future;
+	}
+
+    /**
+     * This is the failed method.
+     *
+     * @param reason The String reason.
+     *
+     * @return CompletableFuture a future failed with an IOException.
+     */
+	private static <T> CompletableFuture<T> failed(String reason) {
+		return CompletableFuture.failedFuture(new IOException(reason));
+	}
+
+    /**
+     * This is the send method.
+     * It sends one message to the server in the negotiated protocol.
+     *
+     * @param message The Message to be sent.
+     *
+     * @return boolean true if the message was written, false if the connection is down.
+     */
+	private boolean send(Message message) {
+		OutputStream out = this.out;
+		if (out == null) {
+			return false;
+		}
+		try {
+			synchronized (out) {
+				out.write(binary ? message.toFrame() : (message.toText() + "\n").getBytes(StandardCharsets.UTF_8));
+				out.flush();
+			}
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+    /**
+     * This is the open method.
+     * It opens the connection to the server and negotiates the protocol.
+     *
+     * @throws IOException If the connection fails.
+     */
+	private void open() throws IOException {
+		Socket socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+		boolean binary = offerBinary && negotiate(socket, in, out);
+		this.in = in;
+		this.lines = binary ? null : new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		this.binary = binary;
+		this.socket = socket;
+		this.out = out;
+		if (closed) {
+			socket.close();
+		}
+	}
+
+    /**
+     * This is the negotiate method.
+     * It offers the binary protocol to the server and waits briefly for the answer.
+     * A server that does not answer, or answers with version 0, is spoken to in the text protocol.
+     *
+     * @param socket The Socket connected to the server.
+     * @param in     The DataInputStream of the socket.
+     * @param out    The OutputStream of the socket.
+     *
+     * @return boolean true if the binary protocol was agreed, false otherwise.
+     *
+     * @throws IOException If the connection fails.
+     */
+	private static boolean negotiate(Socket socket, DataInputStream in, OutputStream out) throws IOException {
+		out.write(BinaryCodec.handshake(BinaryCodec.VERSION));
+		out.flush();
+
+		socket.setSoTimeout(2000);
+		try {
+			byte[] handshake = new byte[BinaryCodec.HANDSHAKE_LENGTH];
+			in.readFully(handshake);
+			return BinaryCodec.parseHandshake(handshake, 0) > 0;
+		} catch (SocketTimeoutException e) {
+			return false;
+		} finally {
+			socket.setSoTimeout(0);
+		}
+	}
+
+    /**
+     * This is the receive method.
+     * It reads the next message from the server in the negotiated protocol.
+     *
+     * @return Message the next message, or null once the server closed the connection.
+     *
+     * @throws IOException If the connection fails.
+     */
+	private Message receive() throws IOException {
+		if (binary) {
+			return BinaryCodec.read(in);
+		}
+		while (true) {
+			String line = lines.readLine();
+			if (line == null) {
+				return null;
+			}
+			Message message = TextCodec.decode(line);
+			if (message != null) {
+				return message;
+			}
+		}
+	}
+
+    /**
+     * This is the run method of the reading thread.
+     * It reads messages until the connection closes, reconnecting whenever it drops in the middle of a game.
+     */
+	private void run() {
+		do {
+			try {
+				Message message;
+				while ((message = receive()) != null) {
+					handle(message);
+				}
+			} catch (IOException e) {
+				// The connection dropped; reconnect if there is a game to resume
+			} finally {
+				try {
+					socket.close();
+				} catch (IOException e) {
+					// Already closed
+				}
+				this.out = null;
+				dropped();
+			}
+		} while (reconnect());
+	}
+
+    /**
+     * This is the handle method.
+     * It folds a message into the state, completes the futures it answers and tells the listeners.
+     *
+     * @param message The Message received.
+     */
+	private void handle(Message message) {
+		GameState before;
+		GameState after;
+		do {
+			before = state.get();
+			after = before.apply(message);
+		} while (!state.compareAndSet(before, after));
+		EventLog.log(Level.INFO, Event.CLIENT_RECEIVED, "Player " + after.getSeat(), message);
+
+		switch (message.getType()) {
+			case Message.TOKEN:
+				resumeToken = message.getToken();
+				break;
+			case Message.JOINED:
+				if ((before.getSeat() == 0) && (after.getSeat() != 0)) {
+					complete(joins, after);
+				}
+				break;
+			case Message.FULL:
+				failAll(joins, "the game is full");
+				break;
+			case Message.MOVED:
+			case Message.REJECTED:
+				if (message.getPlayer() == after.getSeat()) {
+					complete(moves, message);
+				}
+				break;
+			case Message.SUGGESTED:
+				complete(hints, message);
+				break;
+			case Message.EXIT:
+				resumeToken = null;
+				failAll(moves, "the game is over");
+				failAll(hints, "the game is over");
+				completeAll(exits);
+				break;
+			default:
+				break;
+		}
+		notify(after, message);
+	}
+
+    /**
+     * This is the dropped method called when the connection closes.
+     * The answers to the pending requests are lost with it; a pending exit is done.
+     */
+	private void dropped() {
+		failAll(joins, "connection lost");
+		failAll(moves, "connection lost");
+		failAll(hints, "connection lost");
+		completeAll(exits);
+	}
+
+    /**
+     * This is the reconnect method called when the connection to the server drops.
+     * It retries connecting for the grace window and asks the server for the game back with the resume token.
+     * The board is cleared first; the server answers with the current board, or ends the game if it expired.
+     *
+     * @return boolean true if a new connection was made, false if there is no game to resume or the window passed.
+     */
+	private boolean reconnect() {
+		if (closed || (resumeToken == null)) {
+			return false;
+		}
+		notify(state.updateAndGet(s -> s.cleared().withStatus("Connection lost. Reconnecting...")), null);
+		long deadline = System.currentTimeMillis() + RESUME_WINDOW_MILLIS;
+		while (!closed && (System.currentTimeMillis() < deadline)) {
+			try {
+				Thread.sleep(500);
+				open();
+				String token = resumeToken;
+				if ((token != null) && send(Message.resume(token))) {
+					return true;
+				}
+			} catch (IOException e) {
+				// The server is not reachable yet
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		notify(state.updateAndGet(s -> s.withOutcome(GameState.Outcome.ENDED)), null);
+		return false;
+	}
+
+    /**
+     * This is the notify method.
+     *
+     * @param next    The GameState to be passed on.
+     * @param message The Message it followed, or null.
+     */
+	private void notify(GameState next, Message message) {
+		for (Listener listener : listeners) {
+			listener.stateChanged(next, message);
+		}
+	}
+
+    /**
+     * This is the complete method.
+     *
+     * @param pending The Queue of futures.
+     * @param value   The value the oldest future still waiting is completed with.
+     */
+	private static <T> void complete(Queue<CompletableFuture<T>> pending, T value) {
+		CompletableFuture<T> future;
+		while ((future = pending.poll()) != null) {
+			if (future.complete(value)) {
+				return;
+			}
+		}
+	}
+
+    /**
+     * This is the completeAll method.
+     *
+     * @param pending The Queue of futures to be completed.
+     */
+	private static void completeAll(Queue<CompletableFuture<Void>> pending) {
+		CompletableFuture<Void> future;
+		while ((future = pending.poll()) != null) {
+			future.complete(null);
+		}
+	}
+
+    /**
+     * This is the failAll method.
+     *
+     * @param pending The Queue of futures to be failed.
+     * @param reason  The String reason.
+     */
+	private static <T> void failAll(Queue<CompletableFuture<T>> pending, String reason) {
+		CompletableFuture<T> future;
+		while ((future = pending.poll()) != null) {
+			future.completeExceptionally(new IOException(reason));
+		}
+	}
+}
@@ -0,0 +1,343 @@
+package Client;
+import Protocol.Message;
+
+import java.util.Arrays;
+
+/**
+ * This is the GameState class representing everything the client shows, as an immutable snapshot.
+ *
+ * The thread reading from the server turns every message into a new GameState with apply, without touching
+ * Swing, and the Event Dispatch Thread renders whichever state is the latest. Several messages received between
+ * two frames therefore reach the screen as one state, and a snapshot can be handed between the threads as is.
+ * The board is copied only when a mark changes, so a state that did not move shares the array of the one before.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class GameState {
+
+    /**
+     * This is the Outcome enum of the dialogs a state asks the player to answer.
+     */
+	public enum Outcome {
+		NONE, WON, LOST, DRAWN, ENDED, FULL
+	}
+
+	private static final GameState INITIAL = new GameState(Message.CLASSIC_SIZE, new byte[Message.CLASSIC_SIZE * Message.CLASSIC_SIZE],
+			0, null, false, 0, Outcome.NONE, 0);
+
+	private final int boardSize;
+	private final byte[] cells;
+	private final int seat;
+	private final String status;
+	private final boolean movable;
+	private final int round;
+	private final Outcome outcome;
+	private final int prompt;
+
+    /**
+     * This is the constructor to construct a state; the array of cells is kept, not copied.
+     *
+     * @param boardSize The Integer indicates the number of rows and columns.
+     * @param cells     The byte array of marks, row by row.
+     * @param seat      The Integer 1 or 2 for the seat of this client, or 0 before it has joined.
+     * @param status    The String shown in the title, or null to leave the title as it is.
+     * @param movable   The boolean true if the player may press the board.
+     * @param round     The Integer counting the times the board was cleared.
+     * @param outcome   The Outcome the player is asked about.
+     * @param prompt    The Integer counting the outcomes, so that each is shown once.
+     */
+	private GameState(int boardSize, byte[] cells, int seat, String status, boolean movable, int round,
+			Outcome outcome, int prompt) {
+		this.boardSize = boardSize;
+		this.cells = cells;
+		this.seat = seat;
+		this.status = status;
+		this.movable = movable;
+		this.round = round;
+		this.outcome = outcome;
+		this.prompt = prompt;
+	}
+
+    /**
+     * This is the initial method.
+     *
+     * @return GameState the state before the client has joined: an empty 3 x 3 board.
+     */
+	public static GameState initial() {
+		return INITIAL;
+	}
+
+    /**
+     * This is the apply method.
+     * It works out the state after a message from the server.
+     *
+     * @param message The Message received.
+     *
+     * @return GameState the new state, or this state if the message does not change what is shown.
+     */
+	public GameState apply(Message message) {
+		switch (message.getType()) {
+			// Condition 1: Player joins
+			case Message.JOINED:
+				GameState sized = withBoardSize(message.getBoardSize());
+				if (message.getPlayer() == 1) {
+					return sized.with(1, sized.status, false);
+				}
+				if (seat == 1) {
+					// When Player 2 joins, Player 1 can start to move
+					return sized.with(1, "Player 2 has joined. Your turn to move", true);
+				}
+				return sized.with(2, "Waiting for your opponent to move", false);
+
+			// Condition 1c: The client reconnected and is sent the current board
+			case Message.SNAPSHOT:
+				return withSnapshot(message);
+
+			case Message.FULL:
+				return withOutcome(Outcome.FULL);
+
+			// Condition 2: Player successfully moves (the board is pressed)
+			case Message.MOVED:
+				GameState marked = withMark(message.getRow(), message.getCol(), message.getPlayer());
+				if (message.getPlayer() == seat) {
+					return marked.with(seat, "Vaild move, wait for your opponent.", false);
+				}
+				return marked.with(seat, "Your opponent has moved, now is your turn.", true);
+
+			// Condition 3: Player failed to move
+			case Message.REJECTED:
+				return with(seat, "Invalid move. Please try again.", movable);
+
+			// Condition 3b: The server suggests a cell after a hint request
+			case Message.SUGGESTED:
+				return with(seat, "Hint: mark the cell at row " + (message.getRow() + 1) + ", column " + (message.getCol() + 1) + ".", movable);
+
+			// Condition 4: Player exits in the middle of the game
+			case Message.EXIT:
+				return withOutcome(Outcome.ENDED);
+
+			// Condition 5a and 5b : one player wins, the other loses
+			case Message.WIN:
+				if (message.getPlayer() == seat) {
+					return withOutcome(Outcome.WON);
+				}
+				return (seat != 0) ? withOutcome(Outcome.LOST) : with(seat, status, false);
+
+			// Condition 5c : Draw
+			case Message.DRAW:
+				return withOutcome(Outcome.DRAWN);
+
+			default:
+				return this;
+		}
+	}
+
+    /**
+     * This is the cleared method.
+     * It empties the board for a new game or a reconnect, keeping the seat.
+     *
+     * @return GameState the state with an empty board that cannot be pressed.
+     */
+	public GameState cleared() {
+		return new GameState(boardSize, new byte[boardSize * boardSize], seat, null, false, round + 1, Outcome.NONE, prompt);
+	}
+
+    /**
+     * This is the rematch method.
+     * It empties the board and gives up the seat, for the player's next game.
+     *
+     * @return GameState the state waiting to join again.
+     */
+	public GameState rematch() {
+		GameState cleared = cleared();
+		return cleared.with(0, null, false);
+	}
+
+    /**
+     * This is the withStatus method.
+     *
+     * @param text The String to be shown in the title.
+     *
+     * @return GameState the state showing the text.
+     */
+	public GameState withStatus(String text) {
+		return with(seat, text, movable);
+	}
+
+    /**
+     * This is the withOutcome method.
+     * It stops the player from moving and asks the outcome.
+     *
+     * @param next The Outcome to be shown.
+     *
+     * @return GameState the state asking the player about the outcome.
+     */
+	public GameState withOutcome(Outcome next) {
+		return new GameState(boardSize, cells, seat, status, false, round, next, prompt + 1);
+	}
+
+    /**
+     * This is the with method.
+     *
+     * @param nextSeat    The Integer seat.
+     * @param nextStatus  The String status.
+     * @param nextMovable The boolean true if the board may be pressed.
+     *
+     * @return GameState the state with those fields changed.
+     */
+	private GameState with(int nextSeat, String nextStatus, boolean nextMovable) {
+		return new GameState(boardSize, cells, nextSeat, nextStatus, nextMovable, round, outcome, prompt);
+	}
+
+    /**
+     * This is the withBoardSize method.
+     *
+     * @param size The Integer indicates the number of rows and columns.
+     *
+     * @return GameState this state, or a state with an empty board of that size.
+     */
+	private GameState withBoardSize(int size) {
+		if (size == boardSize) {
+			return this;
+		}
+		return new GameState(size, new byte[size * size], seat, status, movable, round, outcome, prompt);
+	}
+
+    /**
+     * This is the withMark method.
+     *
+     * @param row    The Integer indicates the row index.
+     * @param col    The Integer indicates the column index.
+     * @param player The Integer 1 or 2 for the mark.
+     *
+     * @return GameState the state with the mark placed, on a copy of the board.
+     */
+	private GameState withMark(int row, int col, int player) {
+		if ((row < 0) || (col < 0) || (row >= boardSize) || (col >= boardSize) || (cells[row * boardSize + col] == player)) {
+			return this;
+		}
+		byte[] next = Arrays.copyOf(cells, cells.length);
+		next[row * boardSize + col] = (byte) player;
+		return new GameState(boardSize, next, seat, status, movable, round, outcome, prompt);
+	}
+
+    /**
+     * This is the withSnapshot method.
+     * It adds every mark of the board sent after a reconnect and lets the player move if it is their turn.
+     * Marks are only ever added, so moves received before the snapshot are kept.
+     *
+     * @param message The Message carrying the board.
+     *
+     * @return GameState the state after the reconnect.
+     */
+	private GameState withSnapshot(Message message) {
+		GameState sized = withBoardSize(message.getBoardSize());
+		byte[] next = Arrays.copyOf(sized.cells, sized.cells.length);
+		int marks1 = 0;
+		int marks2 = 0;
+		for (int i = 0; i < sized.boardSize; i++) {
+			for (int j = 0; j < sized.boardSize; j++) {
+				if (message.getCell(i, j) == 1) {
+					next[i * sized.boardSize + j] = 1;
+					marks1++;
+				}
+				else if (message.getCell(i, j) == 2) {
+					next[i * sized.boardSize + j] = 2;
+					marks2++;
+				}
+			}
+		}
+		boolean turn = (seat == ((marks1 == marks2) ? 1 : 2));
+		return new GameState(sized.boardSize, next, seat,
+				turn ? "Reconnected. Your turn to move." : "Reconnected. Waiting for your opponent to move.", turn,
+				round, outcome, prompt);
+	}
+
+	/**
+	 * This is the board size getter method.
+	 *
+	 * @return int the number of rows and columns of the board.
+	 */
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	/**
+	 * This is the mark getter method.
+	 *
+	 * @param row The Integer indicates the row index.
+	 * @param col The Integer indicates the column index.
+	 *
+	 * @return int 0 for an empty cell, 1 for X and 2 for O.
+	 */
+	public int getMark(int row, int col) {
+		return cells[row * boardSize + col];
+	}
+
+	/**
+	 * This is the isSameBoard method.
+	 *
+	 * @param other The GameState to be compared.
+	 *
+	 * @return boolean true if both states share their board, which then has not changed in between.
+	 */
+	public boolean isSameBoard(GameState other) {
+		return (other != null) && (other.cells == cells);
+	}
+
+	/**
+	 * This is the seat getter method.
+	 *
+	 * @return int 1 or 2 for the seat of this client, or 0 before it has joined.
+	 */
+	public int getSeat() {
+		return seat;
+	}
+
+	/**
+	 * This is the status getter method.
+	 *
+	 * @return String the text for the title, or null to leave the title as it is.
+	 */
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * This is the isMovable method.
+	 *
+	 * @return boolean true if the player may press the board.
+	 */
+	public boolean isMovable() {
+		return movable;
+	}
+
+	/**
+	 * This is the round getter method.
+	 *
+	 * @return int the number of times the board was cleared.
+	 */
+	public int getRound() {
+		return round;
+	}
+
+	/**
+	 * This is the outcome getter method.
+	 *
+	 * @return Outcome the outcome the player is asked about, if any.
+	 */
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * This is the prompt getter method.
+	 *
+	 * @return int the number of outcomes so far; a new number is a new dialog.
+	 */
+	public int getPrompt() {
+		return prompt;
+	}
+}
@@ -0,0 +1,191 @@
+package Client;
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+/**
+ * This is the SpriteCache class holding the X and O marks, decoded once and scaled once per size.
+ *
+ * The images are read from the Images folder the first time a mark is painted. Each size asked for is scaled
+ * from them a single time, by halving until close and then one bilinear step, which looks as smooth as
+ * Image.SCALE_SMOOTH at a fraction of the cost, and kept in an image compatible with the screen so that painting
+ * it is a plain copy. Only the most recently used sizes are kept. If an image cannot be read, the mark is drawn
+ * with lines instead.
+ *
+ * The cache is only used on the Event Dispatch Thread.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+final class SpriteCache {
+	private static final int MAX_SIZES = 8;
+	private static final SpriteCache INSTANCE = new SpriteCache();
+
+	private BufferedImage sourceX;
+	private BufferedImage sourceO;
+	private boolean loaded;
+
+	// The scaled marks by size, X at index 0 and O at index 1, least recently used first.
+	private final Map<Integer, BufferedImage[]> sprites = new LinkedHashMap<Integer, BufferedImage[]>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage[]> eldest) {
+			return size() > MAX_SIZES;
+		}
+	};
+
+    /**
+     * This is the constructor, private to the single instance.
+     */
+	private SpriteCache() {
+	}
+
+    /**
+     * This is the get method.
+     *
+     * @return SpriteCache the cache shared by every board.
+     */
+	static SpriteCache get() {
+		return INSTANCE;
+	}
+
+    /**
+     * This is the sprite getter method.
+     *
+     * @param player The Integer indicates the mark, 1 for X and 2 for O.
+     * @param size   The Integer width and height in pixels.
+     *
+     * @return BufferedImage the mark at that size, scaled on the first call only.
+     */
+	BufferedImage sprite(int player, int size) {
+		BufferedImage[] marks = sprites.get(size);
+		if (marks == null) {
+			load();
+			marks = new BufferedImage[] { scale(sourceX, size, true), scale(sourceO, size, false) };
+			sprites.put(size, marks);
+		}
+		return marks[player - 1];
+	}
+
+    /**
+     * This is the load method.
+     * It decodes the two images the first time it is called.
+     */
+	private void load() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+		sourceX = read("Images/X.PNG");
+		sourceO = read("Images/O.PNG");
+	}
+
+    /**
+     * This is the read method.
+     *
+     * @param path The String path of the image.
+     *
+     * @return BufferedImage the decoded image, or null if it cannot be read.
+     */
+	private static BufferedImage read(String path) {
+		try {
+			return ImageIO.read(new File(path));
+		} catch (IOException e) {
+			EventLog.log(Level.WARN, Event.ERROR, null, path + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+    /**
+     * This is the scale method.
+     *
+     * @param source The BufferedImage to be scaled, or null to draw the mark instead.
+     * @param size   The Integer width and height in pixels.
+     * @param cross  The boolean true to draw an X, false to draw an O, when there is no image.
+     *
+     * @return BufferedImage the mark at that size, compatible with the screen.
+     */
+	private static BufferedImage scale(BufferedImage source, int size, boolean cross) {
+		BufferedImage sprite = compatible(size, size);
+		Graphics2D g = sprite.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			if (source == null) {
+				int inset = Math.max(1, size / 8);
+				g.setStroke(new BasicStroke(Math.max(2f, size / 10f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+				g.setColor(cross ? new Color(0xC0392B) : new Color(0x2471A3));
+				if (cross) {
+					g.drawLine(inset, inset, size - inset, size - inset);
+					g.drawLine(size - inset, inset, inset, size - inset);
+				}
+				else {
+					g.drawOval(inset, inset, size - 2 * inset, size - 2 * inset);
+				}
+			}
+			else {
+				g.drawImage(halve(source, size), 0, 0, size, size, null);
+			}
+		} finally {
+			g.dispose();
+		}
+		return sprite;
+	}
+
+    /**
+     * This is the halve method.
+     * It halves the image while it is still more than twice the size asked for, so the last bilinear step
+     * samples every source pixel.
+     *
+     * @param image The BufferedImage to be reduced.
+     * @param size  The Integer size it is finally scaled to.
+     *
+     * @return BufferedImage the image, at most twice the size asked for.
+     */
+	private static BufferedImage halve(BufferedImage image, int size) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		while ((width / 2 >= size) && (height / 2 >= size)) {
+			width /= 2;
+			height /= 2;
+			BufferedImage half = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = half.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(image, 0, 0, width, height, null);
+			g.dispose();
+			image = half;
+		}
+		return image;
+	}
+
+    /**
+     * This is the compatible method.
+     *
+     * @param width  The Integer width in pixels.
+     * @param height The Integer height in pixels.
+     *
+     * @return BufferedImage a translucent image in the screen's own format.
+     */
+	private static BufferedImage compatible(int width, int height) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+				.getDefaultScreenDevice().getDefaultConfiguration();
+		return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+}
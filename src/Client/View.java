@@ -1,9 +1,16 @@
 package Client;
-import javax.swing.border.LineBorder;
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * This is the view class representing the graphical user interface (GUI) for the Tic-Tac-Toe game.
@@ -18,7 +25,6 @@ public class View {
 	private JFrame frame;
 	
 	private JPanel InfoPanel;
-	private JPanel BoardPanel;
 	private JPanel MainPanel;
 	private JPanel NamePanel;
 
@@ -26,6 +32,7 @@ public class View {
 	private JMenu control;
 	private JMenu help;
 	private JMenuItem exit;
+	private JMenuItem hint;
 	private JMenuItem instruction;
 	
 	private JLabel title;
@@ -35,7 +42,9 @@ public class View {
 	private JOptionPane message;
 	
 	private JButton submit;
-	private JButton[][] boardButtons;
+	private JCheckBox computer;
+	private JComboBox<String> boardChoice;
+	private BoardComponent board;
 	
 	private String player;
 	private String name;
@@ -69,7 +78,6 @@ public class View {
 		
 		InfoPanel = new JPanel();
 		MainPanel = new JPanel();
-		BoardPanel = new JPanel(new GridLayout(3, 3));
 		NamePanel = new JPanel();
 		
 		MainPanel.setLayout(new BoxLayout(MainPanel, BoxLayout.Y_AXIS));
@@ -86,6 +94,7 @@ public class View {
 		control = new JMenu("Control");
 		help = new JMenu("Help");
 		exit = new JMenuItem("Exit");
+		hint = new JMenuItem("Hint");
 		instruction = new JMenuItem("Instruction");
 		
 		exit.addActionListener(new ActionListener() {
@@ -114,6 +123,7 @@ public class View {
 			}
 		});
 		
+		control.add(hint);
 		control.add(exit);
 		help.add(instruction);
 		menuBar.add(control);
@@ -139,21 +149,45 @@ public class View {
 	
 	 /**
      * This is the setBoardPanel method 
-     * It sets up the game board panel with buttons.
+     * It sets up the game board, painted as one component.
      */
 	public void setBoardPanel() {
-		boardButtons = new JButton[3][3];
-		for (int i = 0; i < 3; i++) {
-			for (int j = 0; j < 3; j++) {
-				boardButtons[i][j] = new JButton();
-				boardButtons[i][j].setBorder(new LineBorder(Color.BLACK));
-				boardButtons[i][j].setPreferredSize(new Dimension(100, 150));
-				BoardPanel.add(boardButtons[i][j]);
-				boardButtons[i][j].setEnabled(false);
-			}
+		board = new BoardComponent(3);
+		board.setEnabled(false);
+		MainPanel.add(board);
+	}
+	
+    /**
+     * This is the setBoardSize method 
+     * It rebuilds the game board when the server places the player on a board of another size.
+     *
+     * @param size The Integer indicates the number of rows and columns.
+     */
+	public void setBoardSize(int size) {
+		if (size == board.getBoardSize()) {
+			return;
 		}
-		BoardPanel.setBackground(Color.WHITE);
-		MainPanel.add(BoardPanel);
+		board.setBoardSize(size);
+		frame.pack();
+	}
+	
+	/**
+	 * This is the board size getter method.
+	 *
+	 * @return int the number of rows and columns of the board.
+	 */
+	public int getBoardSize() {
+		return board.getBoardSize();
+	}
+	
+	/**
+	 * This is the setMoveListener method.
+	 * It registers the listener for the presses on the board, which is told the row and column pressed.
+	 *
+	 * @param listener The CellListener called when a cell of the board is pressed.
+	 */
+	public void setMoveListener(BoardComponent.CellListener listener) {
+		board.setCellListener(listener);
 	}
 	
     /**
@@ -163,6 +197,8 @@ public class View {
 	public void setNamePanel() {
 		name_input = new JTextField(20);
 		submit = new JButton("Submit");
+		computer = new JCheckBox("vs computer");
+		boardChoice = new JComboBox<>(new String[] { "3 x 3", "15 x 15, five in a row" });
 		
 		submit.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
@@ -172,17 +208,17 @@ public class View {
 					frame.setTitle("Tic Tac Toe-Player: "+ name);
 					submit.setEnabled(false);
 					name_input.setEnabled(false);
-					for (int i = 0; i < 3; i++) {
-						for (int j = 0; j < 3; j++) {
-							boardButtons[i][j].setEnabled(true);
-						}
-					}
+					computer.setEnabled(false);
+					boardChoice.setEnabled(false);
+					board.setEnabled(true);
 				}
 			}
 		});
 		
 		NamePanel.add(name_input);
 		NamePanel.add(submit);
+		NamePanel.add(computer);
+		NamePanel.add(boardChoice);
 		
 		MainPanel.add(NamePanel);
 	}
@@ -198,6 +234,34 @@ public class View {
 		return name.length();
 	}
 	
+	/**
+	 * This is the isAgainstComputer method.
+	 * It checks whether the player chose to play against the computer.
+	 *
+	 * @return boolean true if the vs computer box is ticked, false otherwise.
+	 */
+	public boolean isAgainstComputer() {
+		return computer.isSelected();
+	}
+	
+	/**
+	 * This is the requested board size getter method.
+	 *
+	 * @return int the number of rows and columns of the board the player chose.
+	 */
+	public int getRequestedBoardSize() {
+		return (boardChoice.getSelectedIndex() == 1) ? 15 : 3;
+	}
+	
+	/**
+	 * This is the requested win length getter method.
+	 *
+	 * @return int the number of marks in a row that wins on the board the player chose.
+	 */
+	public int getRequestedWinLength() {
+		return (boardChoice.getSelectedIndex() == 1) ? 5 : 3;
+	}
+	
 	/**
 	 * This is the submit button getter method.
 	 * It gets the submit button.
@@ -218,16 +282,12 @@ public class View {
 	}
 	
 	/**
-	 * This is the move button getter method.
-	 * It gets the move button at the specified row and column.
+	 * This is the board getter method.
 	 *
-	 * @param row The Integer indicates the row index.
-	 * @param col The Integer indicates the column index.
-	 * 
-	 * @return JButton The move button at the specified row and column.
+	 * @return BoardComponent The game board.
 	 */
-	public JButton getMoveButton(int row, int col) {
-		return boardButtons[row][col];
+	public BoardComponent getBoard() {
+		return board;
 	}
 	
 	/**
@@ -250,126 +310,144 @@ public class View {
 		return exit;
 	} 
 	
+	/**
+	 * This is the hint menu item getter method.
+	 * It gets the hint menu item.
+	 *
+	 * @return JMenuItem The hint menu item.
+	 */
+	public JMenuItem getHint() {
+		return hint;
+	}
+	
 	/**
 	 * This is the method called when the players are already full (2 players).
-	 * It displays a message when all player slots are occupied, and exits the program.
+	 * It displays a message when all player slots are occupied, and exits the program once it is closed.
 	 */
 	public void playersAreFull() {
 		String message = "The game is currently in progress, and all player slots are currently occupied. Please try again later.";
-		JOptionPane.showMessageDialog(null, message, "Message", JOptionPane.INFORMATION_MESSAGE);
-	    System.exit(0);
+		showDialog(message, "Message", JOptionPane.DEFAULT_OPTION, option -> System.exit(0));
 	}
 	
 	/**
 	 * This is the method to enable the board button.
-	 * It enables all move buttons on the game board.
+	 * It lets the player press the game board.
 	 */
 	public void enableMove() {
-		for (int i = 0; i < 3; i++) {
-			for (int j = 0; j < 3; j++) {
-				boardButtons[i][j].setEnabled(true);
-			}
-		}
+		board.setEnabled(true);
 	}
 	
 	/**
 	 * This is the method to disable the board button.
-	 * It disables all move buttons on the game board.
+	 * It stops the player from pressing the game board.
 	 */
 	public void disableMove() {
-		for (int i = 0; i < 3; i++) {
-			for (int j = 0; j < 3; j++) {
-				boardButtons[i][j].setEnabled(false);
-			}
-		}
+		board.setEnabled(false);
 	}
 	
 	/**
-	 * This is the updateButton method.
-	 * It updates the button at the specified row and column with the player's icon.
+	 * This is the updateCell method.
+	 * It marks the cell at the specified row and column with the player's mark; only that cell is repainted.
 	 *
 	 * @param row    The Integer indicates the row index.
 	 * @param col    The Integer indicates the column index.
 	 * @param Player The String indicates the name of the player ("X" or "O").
 	 */
-	public void updateButton(int row, int col, String Player) {
-		System.out.println("Updating button: row=" + row + ", col=" + col + ", Player=" + Player);
+	public void updateCell(int row, int col, String Player) {
+		if (EventLog.isEnabled(Level.DEBUG)) {
+			EventLog.log(Level.DEBUG, Event.BOARD_UPDATED, Player, "row=" + row + " col=" + col);
+		}
 		if (Player.equals("X")) {
-			ImageIcon icon = new ImageIcon("Images/X.PNG");
-			Image image = icon.getImage().getScaledInstance(60, 60, Image.SCALE_SMOOTH);
-		    ImageIcon scaledIcon = new ImageIcon(image);
-		    boardButtons[row][col].setIcon(scaledIcon);
+			board.setMark(row, col, 1);
 		}
 		else if (Player.equals("O")) {
-			ImageIcon icon = new ImageIcon("Images/O.PNG");
-			Image image = icon.getImage().getScaledInstance(60, 60, Image.SCALE_SMOOTH);
-		    ImageIcon scaledIcon = new ImageIcon(image);
-		    boardButtons[row][col].setIcon(scaledIcon);
+			board.setMark(row, col, 2);
 		}
 	}
 	
 	/**
 	 * This is the method called when the player wins the game.
 	 * It displays a message when the player wins and prompts for a new game.
+	 * The dialog does not block: the answer is passed on once the player gives it.
 	 *
-	 * @return String "Yes" if the player wants to play again, "No" otherwise.
+	 * @param answer The Consumer given "Yes" if the player wants to play again, "No" otherwise.
 	 */
-	public String playerWins() {
+	public void playerWins(Consumer<String> answer) {
 		String message = "Congratulations. You win. Do you want to play again?";
-		int option = JOptionPane.showConfirmDialog(null, message, "Game Over", JOptionPane.YES_NO_OPTION);
-		
-		if (option == JOptionPane.YES_OPTION) {
-			return "Yes";
-		}
-		else {
-			return "No";
-		}
+		showDialog(message, "Game Over", JOptionPane.YES_NO_OPTION, option -> answer.accept(playAgain(option)));
 	}
 	
 	/**
 	 * This is the method called when the player loses the game.
 	 * It displays a message when the player loses and prompts for a new game.
+	 * The dialog does not block: the answer is passed on once the player gives it.
 	 *
-	 * @return String "Yes" if the player wants to play again, "No" otherwise.
+	 * @param answer The Consumer given "Yes" if the player wants to play again, "No" otherwise.
 	 */
-	public String playerLoses() {
+	public void playerLoses(Consumer<String> answer) {
 		String message = "You lose. Do you want to play again?";
-		int option = JOptionPane.showConfirmDialog(null, message, "Game Over", JOptionPane.YES_NO_OPTION);
-		
-		if (option == JOptionPane.YES_OPTION) {
-			return "Yes";
-		}
-		else {
-			return "No";
-		}
+		showDialog(message, "Game Over", JOptionPane.YES_NO_OPTION, option -> answer.accept(playAgain(option)));
 	}
 	
 	/**
 	 * This is the method called when the neither of the players wins nor loses.
 	 * It displays a message when the game is a draw and prompts for a new game.
+	 * The dialog does not block: the answer is passed on once the player gives it.
 	 *
-	 * @return String "Yes" if the player wants to play again, "No" otherwise.
+	 * @param answer The Consumer given "Yes" if the player wants to play again, "No" otherwise.
 	 */
-	public String draw() {
+	public void draw(Consumer<String> answer) {
 		String message = "Draw. Do you want to play again?";
-		int option = JOptionPane.showConfirmDialog(null, message, "Game Over", JOptionPane.YES_NO_OPTION);
-		
-		if (option == JOptionPane.YES_OPTION) {
-			return "Yes";
-		}
-		else {
-			return "No";
-		}
+		showDialog(message, "Game Over", JOptionPane.YES_NO_OPTION, option -> answer.accept(playAgain(option)));
 	}
 	
 	/**
 	 * This is the gameEnds method.
-	 * It displays a message when the game ends due to a player leaving and exits the program.
+	 * It displays a message when the game ends due to a player leaving and exits the program once it is closed.
 	 */
 	public void gameEnds() {
 		String message = "Game Ends. One of the players left.";
-		JOptionPane.showMessageDialog(null, message, "Message", JOptionPane.INFORMATION_MESSAGE);
-		System.exit(0);
+		showDialog(message, "Message", JOptionPane.DEFAULT_OPTION, option -> System.exit(0));
+	}
+	
+	/**
+	 * This is the playAgain method.
+	 *
+	 * @param option The Integer option the player chose.
+	 *
+	 * @return String "Yes" for the yes option, "No" for any other, including closing the dialog.
+	 */
+	private static String playAgain(int option) {
+		return (option == JOptionPane.YES_OPTION) ? "Yes" : "No";
+	}
+	
+	/**
+	 * This is the showDialog method.
+	 * It shows a message in a dialog that is not modal, so the Event Dispatch Thread goes on painting the board
+	 * and the messages from the server keep being read while it is open.
+	 *
+	 * @param message    The String message.
+	 * @param title      The String title of the dialog.
+	 * @param optionType The Integer JOptionPane option type.
+	 * @param answer     The IntConsumer given the option chosen, or JOptionPane.CLOSED_OPTION.
+	 */
+	private void showDialog(String message, String title, int optionType, IntConsumer answer) {
+		JOptionPane pane = new JOptionPane(message, (optionType == JOptionPane.DEFAULT_OPTION)
+				? JOptionPane.INFORMATION_MESSAGE : JOptionPane.QUESTION_MESSAGE, optionType);
+		JDialog dialog = pane.createDialog(frame, title);
+		dialog.setModal(false);
+		pane.addPropertyChangeListener(JOptionPane.VALUE_PROPERTY, new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent e) {
+				Object value = e.getNewValue();
+				if (value == JOptionPane.UNINITIALIZED_VALUE) {
+					return;
+				}
+				pane.removePropertyChangeListener(JOptionPane.VALUE_PROPERTY, this);
+				dialog.dispose();
+				answer.accept((value instanceof Integer) ? (Integer) value : JOptionPane.CLOSED_OPTION);
+			}
+		});
+		dialog.setVisible(true);
 	}
 	
 	/**
@@ -387,12 +465,8 @@ public class View {
 	public void restartView() {		
 		title.setText("WELCOME " + name);
 		
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-            	boardButtons[i][j].setIcon(null);
-                boardButtons[i][j].setEnabled(false);
-            }
-        }
+		board.clear();
+		board.setEnabled(false);
 	}
 	
 }
@@ -0,0 +1,481 @@
+package Gateway;
+
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+import Protocol.BinaryCodec;
+import Protocol.Message;
+import Protocol.TextCodec;
+import Server.GridBoard;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is the Gateway class routing clients to the game server nodes that own their rooms.
+ *
+ * The gateway reads the first message of a client, picks a node, replays the message to it and from then on
+ * only copies bytes both ways, so it speaks both protocols without decoding anything else. The node is
+ * picked by what the first message asks for:
+ * - a room id (joining or watching a room) goes to the node owning the room on a consistent-hash ring;
+ * - a join without a room id goes to the node where a player is already waiting for the same board, or, if
+ *   nobody is, to the next node in turn, where the player waits for the next one, so players still meet
+ *   although every node has its own matchmaker;
+ * - a resume goes to the node named in the token, which holds the suspended game;
+ * - anything else, e.g. a game against the computer, goes to the next node in turn.
+ *
+ * Every node is checked by connecting to it every gateway.healthMillis (default 1000). A node that fails
+ * gateway.failures checks in a row (default 2), or refuses a client, is taken out of the ring and the
+ * clients routed to it are disconnected; its room ids then belong to the other nodes, so the next join of
+ * such a room opens it on its new node. The game that was in progress on the lost node is over.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class Gateway {
+	private static final long HEALTH_MILLIS = Long.getLong("gateway.healthMillis", 1000);
+	private static final int FAILURES = Integer.getInteger("gateway.failures", 2);
+	private static final int VIRTUAL_NODES = Integer.getInteger("gateway.virtualNodes", 64);
+	private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+	// The longest first line the gateway reads before giving up on a text client.
+	private static final int MAX_LINE = 1024;
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService pool;
+	private final List<Node> nodes;
+	private volatile HashRing ring;
+	private final ReentrantLock membership = new ReentrantLock();
+	private final AtomicInteger nextNode = new AtomicInteger();
+	// For every board, the node where a player joined without a room id and still waits for an opponent.
+	private final ConcurrentHashMap<Long, AtomicReference<Waiting>> waiting = new ConcurrentHashMap<>();
+
+    /**
+     * This is the Waiting class representing a player sent to a node to wait for an opponent.
+     */
+	private static final class Waiting {
+		private final Node node;
+
+        /**
+         * This is the constructor for a waiting player.
+         *
+         * @param node The Node the player waits on.
+         */
+		Waiting(Node node) {
+			this.node = node;
+		}
+	}
+
+    /**
+     * This is the constructor to construct a Gateway in front of the specified nodes.
+     *
+     * @param serverSocket The ServerSocket the clients connect to.
+     * @param pool         The ExecutorService running two copying tasks per client.
+     * @param nodes        The List of the game server nodes.
+     */
+	public Gateway(ServerSocket serverSocket, ExecutorService pool, List<Node> nodes) {
+		this.serverSocket = serverSocket;
+		this.pool = pool;
+		this.nodes = List.copyOf(nodes);
+		this.ring = new HashRing(this.nodes, VIRTUAL_NODES);
+	}
+
+    /**
+     * This is the start method.
+     * It starts the health checks and accepts clients until the server socket is closed.
+     */
+	public void start() {
+		Thread health = new Thread(this::checkHealth, "gateway-health");
+		health.setDaemon(true);
+		health.start();
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				pool.execute(new Route(socket));
+				EventLog.log(Level.INFO, Event.CONNECTED, null, socket);
+			} catch (IOException e) {
+				EventLog.log(Level.ERROR, Event.ERROR, null, e);
+			}
+		}
+	}
+
+    /**
+     * This is the ring getter method.
+     *
+     * @return HashRing the ring of the nodes currently up.
+     */
+	public HashRing getRing() {
+		return ring;
+	}
+
+    /**
+     * This is the checkHealth method run by the health check thread.
+     * It connects to every node in turn and takes nodes out of the ring, or back in, as they fail or recover.
+     */
+	private void checkHealth() {
+		while (true) {
+			try {
+				Thread.sleep(HEALTH_MILLIS);
+			} catch (InterruptedException e) {
+				return;
+			}
+			for (Node node : nodes) {
+				boolean healthy;
+				try (Socket probe = new Socket()) {
+					probe.connect(node.getAddress(), CONNECT_TIMEOUT_MILLIS);
+					healthy = true;
+				} catch (IOException e) {
+					healthy = false;
+				}
+				int failures = node.checked(healthy);
+				if (healthy && !node.isUp()) {
+					setUp(node, true);
+				}
+				else if (!healthy && (failures >= FAILURES) && node.isUp()) {
+					setUp(node, false);
+				}
+			}
+		}
+	}
+
+    /**
+     * This is the setUp method.
+     * It puts a node into the ring or takes it out, and disconnects the clients of a node that went down.
+     *
+     * @param node The Node whose state changed.
+     * @param up   The boolean indicating whether the node is up.
+     */
+	private void setUp(Node node, boolean up) {
+		membership.lock();
+		try {
+			if (node.isUp() == up) {
+				return;
+			}
+			node.setUp(up);
+			List<Node> live = new ArrayList<>();
+			for (Node candidate : nodes) {
+				if (candidate.isUp()) {
+					live.add(candidate);
+				}
+			}
+			ring = new HashRing(live, VIRTUAL_NODES);
+		} finally {
+			membership.unlock();
+		}
+		EventLog.log(Level.WARN, up ? Event.NODE_UP : Event.NODE_DOWN, null, node);
+		if (!up) {
+			for (Socket client : node.getClients()) {
+				close(client);
+			}
+		}
+	}
+
+    /**
+     * This is the anyNode method.
+     *
+     * @return Node the next live node in turn, or null if every node is down.
+     */
+	private Node anyNode() {
+		Node[] live = ring.getNodes();
+		return (live.length == 0) ? null : live[Math.floorMod(nextNode.getAndIncrement(), live.length)];
+	}
+
+    /**
+     * This is the nodeNamed method.
+     *
+     * @param name The String name of a node.
+     *
+     * @return Node the live node with the name, or null.
+     */
+	private Node nodeNamed(String name) {
+		for (Node node : ring.getNodes()) {
+			if (node.getName().equals(name)) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+    /**
+     * This is the close method.
+     *
+     * @param socket The Socket to be closed, or null.
+     */
+	private static void close(Socket socket) {
+		if (socket == null) {
+			return;
+		}
+		try {
+			socket.close();
+		} catch (IOException e) {
+			EventLog.log(Level.ERROR, Event.ERROR, null, e);
+		}
+	}
+
+    /**
+     * This is the Route class representing one client connection relayed to its node.
+     */
+	private class Route implements Runnable {
+		private final Socket client;
+		private Socket upstream;
+		private Node node;
+		// The line this client waits in for an opponent, until somebody takes its place.
+		private AtomicReference<Waiting> waitingLine;
+		private Waiting waitingPlace;
+
+        /**
+         * This is the constructor to construct the route of a client.
+         *
+         * @param client The Socket of the client.
+         */
+		Route(Socket client) {
+			this.client = client;
+		}
+
+        /**
+         * This is the run method.
+         * It reads the first message, connects to the node it routes to, and relays the connection both ways.
+         */
+		@Override
+		public void run() {
+			try {
+				var input = new BufferedInputStream(client.getInputStream());
+				var output = client.getOutputStream();
+				input.mark(1);
+				int firstByte = input.read();
+				input.reset();
+				if (firstByte < 0) {
+					return;
+				}
+
+				int version = 0;
+				byte[] first;
+				Message message;
+				if (firstByte == BinaryCodec.HANDSHAKE_MARKER) {
+					byte[] handshake = new byte[BinaryCodec.HANDSHAKE_LENGTH];
+					new DataInputStream(input).readFully(handshake);
+					version = BinaryCodec.negotiate(BinaryCodec.parseHandshake(handshake, 0));
+					output.write(BinaryCodec.handshake(version));
+					if (version == 0) {
+						return;
+					}
+					first = readFrame(input);
+					message = (first == null) ? null : BinaryCodec.decode(ByteBuffer.wrap(first));
+				}
+				else {
+					first = readLine(input);
+					message = (first == null) ? null : TextCodec.decode(new String(first, StandardCharsets.UTF_8).trim());
+				}
+				if (first == null) {
+					return;
+				}
+
+				if (!connect(message, version)) {
+					return;
+				}
+				OutputStream toNode = upstream.getOutputStream();
+				toNode.write(first);
+				InputStream fromNode = upstream.getInputStream();
+				pool.execute(() -> relay(fromNode, output));
+				relay(input, toNode);
+			} catch (IOException e) {
+				EventLog.log(Level.ERROR, Event.ERROR, null, e);
+			} finally {
+				if (waitingLine != null) {
+					// Nobody took this player's place, so nobody should be sent to wait with it
+					waitingLine.compareAndSet(waitingPlace, null);
+				}
+				if (node != null) {
+					node.getClients().remove(client);
+				}
+				close(upstream);
+				close(client);
+				EventLog.log(Level.INFO, Event.DISCONNECTED, (node == null) ? null : node.getName(), null);
+			}
+		}
+
+        /**
+         * This is the connect method.
+         * It connects to the node the first message routes to, trying again on another node while nodes refuse.
+         *
+         * @param message The Message the client sent first, or null if it is unknown.
+         * @param version The Integer binary protocol version agreed with the client, or 0 for the text protocol.
+         *
+         * @return boolean true once connected, false if no node is reachable.
+         *
+         * @throws IOException If the node answers the handshake with another version.
+         */
+		private boolean connect(Message message, int version) throws IOException {
+			for (int attempt = 0; attempt < nodes.size(); attempt++) {
+				node = route(message);
+				if (node == null) {
+					return false;
+				}
+				Socket socket = new Socket();
+				try {
+					socket.connect(node.getAddress(), CONNECT_TIMEOUT_MILLIS);
+					socket.setTcpNoDelay(true);
+				} catch (IOException e) {
+					close(socket);
+					setUp(node, false);
+					continue;
+				}
+				upstream = socket;
+				node.getClients().add(client);
+				if (!node.isUp()) {
+					// The node went down while connecting, after its clients were disconnected
+					return false;
+				}
+				EventLog.log(Level.INFO, Event.ROUTED, node.getName(), message);
+				if (version > 0) {
+					upstream.getOutputStream().write(BinaryCodec.handshake(version));
+					byte[] handshake = new byte[BinaryCodec.HANDSHAKE_LENGTH];
+					new DataInputStream(upstream.getInputStream()).readFully(handshake);
+					if (BinaryCodec.parseHandshake(handshake, 0) != version) {
+						throw new IOException("Node " + node + " does not speak binary protocol version " + version);
+					}
+				}
+				return true;
+			}
+			return false;
+		}
+
+        /**
+         * This is the route method.
+         *
+         * @param message The Message the client sent first, or null if it is unknown.
+         *
+         * @return Node the node to send the client to, or null if every node is down.
+         */
+		private Node route(Message message) {
+			if (message == null) {
+				return anyNode();
+			}
+			switch (message.getType()) {
+				case Message.JOIN:
+					return (message.getRoomId() != null) ? ring.owner("room:" + message.getRoomId()) : waitFor(message);
+				case Message.WATCH:
+					return ring.owner("room:" + message.getRoomId());
+				case Message.RESUME: {
+					int dot = message.getToken().indexOf('.');
+					Node named = (dot < 0) ? null : nodeNamed(message.getToken().substring(0, dot));
+					// Without its node, the token is unknown anywhere, and the client is told its game is over
+					return (named != null) ? named : anyNode();
+				}
+				default:
+					return anyNode();
+			}
+		}
+
+        /**
+         * This is the waitFor method for a player joining without a room id.
+         * It takes the place of a player waiting for the same board, or waits on the next node in turn.
+         *
+         * @param message The join Message.
+         *
+         * @return Node the node to send the player to, or null if every node is down.
+         */
+		private Node waitFor(Message message) {
+			// The nodes play a board they do not support as the classic game, so such players wait together
+			boolean valid = GridBoard.isValid(message.getBoardSize(), message.getWinLength());
+			long board = valid ? (((long) message.getBoardSize() << 32) | message.getWinLength())
+					: (((long) Message.CLASSIC_SIZE << 32) | Message.CLASSIC_SIZE);
+			AtomicReference<Waiting> line = waiting.computeIfAbsent(board, key -> new AtomicReference<>());
+			while (true) {
+				Waiting waiter = line.get();
+				if (waiter != null) {
+					if (line.compareAndSet(waiter, null) && waiter.node.isUp()) {
+						return waiter.node;
+					}
+				}
+				else {
+					Node next = anyNode();
+					if (next == null) {
+						return null;
+					}
+					Waiting place = new Waiting(next);
+					if (line.compareAndSet(null, place)) {
+						waitingLine = line;
+						waitingPlace = place;
+						return next;
+					}
+				}
+			}
+		}
+
+        /**
+         * This is the readLine method.
+         *
+         * @param input The InputStream of the client.
+         *
+         * @return byte[] the first line including its line feed, or null if the client closed or the line is too long.
+         *
+         * @throws IOException If the connection fails.
+         */
+		private byte[] readLine(InputStream input) throws IOException {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			int b;
+			while ((b = input.read()) >= 0) {
+				line.write(b);
+				if (b == '\n') {
+					return line.toByteArray();
+				}
+				if (line.size() == MAX_LINE) {
+					return null;
+				}
+			}
+			return null;
+		}
+
+        /**
+         * This is the readFrame method.
+         *
+         * @param input The InputStream of the client.
+         *
+         * @return byte[] the first frame including its length byte, or null if the client closed.
+         *
+         * @throws IOException If the connection fails or ends inside the frame.
+         */
+		private byte[] readFrame(InputStream input) throws IOException {
+			int length = input.read();
+			if (length < 0) {
+				return null;
+			}
+			byte[] frame = new byte[1 + length];
+			frame[0] = (byte) length;
+			new DataInputStream(input).readFully(frame, 1, length);
+			return frame;
+		}
+
+        /**
+         * This is the relay method.
+         * It copies bytes from one side to the other until either side closes, then closes both.
+         *
+         * @param from The InputStream to be read.
+         * @param to   The OutputStream to be written.
+         */
+		private void relay(InputStream from, OutputStream to) {
+			byte[] buffer = new byte[8192];
+			try {
+				int count;
+				while ((count = from.read(buffer)) >= 0) {
+					to.write(buffer, 0, count);
+				}
+			} catch (IOException e) {
+				// One side closed
+			} finally {
+				close(upstream);
+				close(client);
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package Gateway;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is the HashRing class placing the live nodes on a consistent-hash ring.
+ *
+ * Every node is hashed onto the ring at many points (virtual nodes), and a key belongs to the node at the first
+ * point after its own hash. Taking a node out only moves the keys it owned, spread over the remaining nodes,
+ * and putting it back only takes those keys back; the rooms of every other node stay where they are.
+ *
+ * A ring never changes: the gateway builds a new one when a node goes down or comes back and swaps it in,
+ * so routing reads the points without any lock.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class HashRing {
+	private final long[] points;
+	private final Node[] owners;
+	private final Node[] nodes;
+
+    /**
+     * This is the constructor to construct the ring of the specified nodes.
+     *
+     * @param nodes        The List of the live nodes.
+     * @param virtualNodes The Integer number of points of every node on the ring.
+     */
+	public HashRing(List<Node> nodes, int virtualNodes) {
+		this.nodes = nodes.toArray(new Node[0]);
+		long[] keyed = new long[this.nodes.length * virtualNodes];
+		long[] sorted = new long[keyed.length];
+		for (int n = 0; n < this.nodes.length; n++) {
+			for (int v = 0; v < virtualNodes; v++) {
+				long point = hash(this.nodes[n].getName() + "#" + v);
+				keyed[n * virtualNodes + v] = point;
+				sorted[n * virtualNodes + v] = point;
+			}
+		}
+		Arrays.sort(sorted);
+		this.points = sorted;
+		this.owners = new Node[sorted.length];
+		for (int i = 0; i < keyed.length; i++) {
+			owners[Arrays.binarySearch(sorted, keyed[i])] = this.nodes[i / virtualNodes];
+		}
+	}
+
+    /**
+     * This is the owner method.
+     *
+     * @param key The String key, e.g. the id of a room.
+     *
+     * @return Node the node owning the key, or null if the ring is empty.
+     */
+	public Node owner(String key) {
+		if (points.length == 0) {
+			return null;
+		}
+		int index = Arrays.binarySearch(points, hash(key));
+		if (index < 0) {
+			index = -index - 1;
+		}
+		return owners[(index == points.length) ? 0 : index];
+	}
+
+    /**
+     * This is the nodes getter method.
+     *
+     * @return Node[] the live nodes on the ring; the array is never modified.
+     */
+	public Node[] getNodes() {
+		return nodes;
+	}
+
+    /**
+     * This is the hash method.
+     * It is 64-bit FNV-1a over the UTF-8 bytes, with a final mix so that similar keys spread over the whole ring.
+     *
+     * @param key The String to be hashed.
+     *
+     * @return long the position of the key on the ring.
+     */
+	static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= (b & 0xFF);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+}
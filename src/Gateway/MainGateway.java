@@ -0,0 +1,74 @@
+package Gateway;
+
+import Logging.EventLog;
+import Server.Server;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is the MainGateway representing the gateway application in front of several game server nodes.
+ * Clients connect to the gateway exactly as they would to a single server.
+ *
+ * For example, three nodes and the gateway on one machine:
+ * java Server.MainServer --port=5101 --node=a -Djournal.dir=journal-a (and likewise b on 5102, c on 5103), then
+ * java Gateway.MainGateway --port=5001 --nodes=a@127.0.0.1:5101,b@127.0.0.1:5102,c@127.0.0.1:5103
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class MainGateway {
+
+    /**
+     * This is the main method to start the gateway.
+     *
+     * @param args Command line arguments: --port=5001 and --nodes=name@host:port,...
+     *
+     * @throws IOException If an I/O error occurs when creating the ServerSocket.
+     */
+	public static void main(String[] args) throws IOException {
+		List<Node> nodes = new ArrayList<>();
+		for (String spec : option(args, "nodes", "").split(",")) {
+			if (!spec.isEmpty()) {
+				nodes.add(Node.parse(spec));
+			}
+		}
+		if (nodes.isEmpty()) {
+			System.out.println("Usage: java Gateway.MainGateway --port=5001 --nodes=a@127.0.0.1:5101,b@127.0.0.1:5102");
+			return;
+		}
+		EventLog.start("gateway");
+		int port = Integer.parseInt(option(args, "port", "5001"));
+		System.out.println("Gateway is running on port " + port + " in front of " + nodes);
+
+		try (var listener = new ServerSocket(port, 1024)) {
+			new Gateway(listener, Server.newVirtualThreadExecutor(), nodes).start();
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+		}
+	}
+
+    /**
+     * This is the option method.
+     * It reads an option given as --name=value.
+     *
+     * @param args         The String array of command line arguments.
+     * @param name         The String name of the option.
+     * @param defaultValue The String value used when the option is absent.
+     *
+     * @return String the value of the option.
+     */
+	private static String option(String[] args, String name, String defaultValue) {
+		String prefix = "--" + name + "=";
+		for (String arg : args) {
+			if (arg.startsWith(prefix)) {
+				return arg.substring(prefix.length());
+			}
+		}
+		return defaultValue;
+	}
+}
@@ -0,0 +1,118 @@
+package Gateway;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is the Node class representing one game server behind the gateway.
+ * A node is written as name@host:port, e.g. a@127.0.0.1:5101; the name must match the --node option the
+ * server was started with, since it is the prefix of the resume tokens the server hands out.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class Node {
+	private final String name;
+	private final InetSocketAddress address;
+	private volatile boolean up = true;
+	// Consecutive failed health checks; only touched by the health check thread.
+	private int failures;
+	// The clients currently routed to this node, closed if it goes down.
+	private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    /**
+     * This is the constructor for a node.
+     *
+     * @param name    The String name of the node.
+     * @param address The InetSocketAddress the node's server listens on.
+     */
+	public Node(String name, InetSocketAddress address) {
+		this.name = name;
+		this.address = address;
+	}
+
+    /**
+     * This is the parse method.
+     *
+     * @param spec The String name@host:port, or host:port to name the node after its address.
+     *
+     * @return Node the node.
+     *
+     * @throws IllegalArgumentException If the spec has no port.
+     */
+	public static Node parse(String spec) {
+		int at = spec.indexOf('@');
+		String hostPort = spec.substring(at + 1);
+		int colon = hostPort.lastIndexOf(':');
+		if (colon < 0) {
+			throw new IllegalArgumentException("Node " + spec + " has no port");
+		}
+		String name = (at < 0) ? hostPort : spec.substring(0, at);
+		return new Node(name, new InetSocketAddress(hostPort.substring(0, colon), Integer.parseInt(hostPort.substring(colon + 1))));
+	}
+
+    /**
+     * This is the name getter method.
+     *
+     * @return String the name of the node.
+     */
+	public String getName() {
+		return name;
+	}
+
+    /**
+     * This is the address getter method.
+     *
+     * @return InetSocketAddress the address of the node's server.
+     */
+	public InetSocketAddress getAddress() {
+		return address;
+	}
+
+    /**
+     * This is the isUp method.
+     *
+     * @return boolean true while the node is in the ring.
+     */
+	public boolean isUp() {
+		return up;
+	}
+
+    /**
+     * This is the setUp method.
+     *
+     * @param up The boolean indicating whether the node is in the ring.
+     */
+	void setUp(boolean up) {
+		this.up = up;
+	}
+
+    /**
+     * This is the checked method called with the result of a health check.
+     *
+     * @param healthy The boolean indicating whether the node accepted a connection.
+     *
+     * @return int the number of consecutive failed checks.
+     */
+	int checked(boolean healthy) {
+		failures = healthy ? 0 : failures + 1;
+		return failures;
+	}
+
+    /**
+     * This is the clients getter method.
+     *
+     * @return Set the sockets of the clients routed to this node.
+     */
+	Set<Socket> getClients() {
+		return clients;
+	}
+
+	@Override
+	public String toString() {
+		return name + "@" + address.getHostString() + ":" + address.getPort();
+	}
+}
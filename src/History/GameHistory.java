@@ -0,0 +1,264 @@
+package History;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is the GameHistory class, which exports every finished game to column-oriented files for later reports.
+ *
+ * Recording a game only puts it on a lock-free queue, as the move journal does, so the room that finished it
+ * never waits for the disk. A background thread collects the games into a HistoryBlock and appends the block to
+ * the file of the day the games ended (in UTC) when it is full, when the day changes, when no game has finished
+ * for history.flushMillis, and at shutdown. The files are partitioned by day as
+ * dir/day=YYYY-MM-DD/part-[start]-[pid].games, one per run of the server and day, so several servers may share
+ * a directory and whole days may be archived or deleted while the server runs.
+ *
+ * A file is the MAGIC bytes followed by blocks (see HistoryBlock); a block cut short by a crash fails its
+ * checksum and ends the file for the reader. Unlike the journal, the history is not forced to disk: losing the
+ * last second of games costs a report a few rows, not a game in progress.
+ *
+ * Configuration (system properties): history.dir (default history) and history.flushMillis (default 1000).
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class GameHistory {
+	// The first bytes of every file: a name and a format version.
+	static final byte[] MAGIC = "TTTH\u0001".getBytes(StandardCharsets.ISO_8859_1);
+	static final String PARTITION_PREFIX = "day=";
+	static final String PART_SUFFIX = ".games";
+	private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+	private static volatile GameHistory instance;
+
+	private final File dir;
+	private final String partName;
+	private final long flushNanos;
+	private final Queue<Game> pending = new ConcurrentLinkedQueue<>();
+
+	// Only touched while holding the lock of this object.
+	private final HistoryBlock block = new HistoryBlock();
+	private long blockDay = -1;
+	private long openDay = -1;
+	private OutputStream out;
+	private long lastFlush = System.nanoTime();
+
+    /**
+     * This is the Game class holding a finished game until the writer takes it.
+     */
+	private static final class Game {
+		final long end;
+		final long duration;
+		final int boardSize;
+		final int winLength;
+		final int result;
+		final int winner;
+		final int[] moves;
+
+        /**
+         * This is the constructor to construct a finished game.
+         *
+         * @param end       The long time the game ended, in milliseconds since the epoch.
+         * @param duration  The long duration of the game in milliseconds.
+         * @param boardSize The Integer number of rows and columns.
+         * @param winLength The Integer number of marks in a row that wins.
+         * @param result    The Integer result, e.g. HistoryBlock.WIN.
+         * @param winner    The Integer winner (1 or 2), or 0.
+         * @param moves     The int array of the cells marked, in order.
+         */
+		Game(long end, long duration, int boardSize, int winLength, int result, int winner, int[] moves) {
+			this.end = end;
+			this.duration = duration;
+			this.boardSize = boardSize;
+			this.winLength = winLength;
+			this.result = result;
+			this.winner = winner;
+			this.moves = moves;
+		}
+	}
+
+    /**
+     * This is the constructor to construct a history writing to the specified directory.
+     *
+     * @param dir        The File directory of the day partitions.
+     * @param flushNanos The long nanoseconds a partial block may wait for more games.
+     */
+	private GameHistory(File dir, long flushNanos) {
+		this.dir = dir;
+		this.flushNanos = flushNanos;
+		this.partName = "part-" + System.currentTimeMillis() + "-" + ProcessHandle.current().pid() + PART_SUFFIX;
+	}
+
+    /**
+     * This is the start method.
+     * It starts the background writer; games finished before start are not recorded.
+     *
+     * @param dir The File directory of the day partitions; it is created if needed.
+     */
+	public static synchronized void start(File dir) {
+		if (instance != null) {
+			return;
+		}
+		dir.mkdirs();
+		if (!dir.isDirectory()) {
+			System.out.println("Game history disabled: cannot create " + dir);
+			return;
+		}
+		GameHistory history = new GameHistory(dir, TimeUnit.MILLISECONDS.toNanos(Long.getLong("history.flushMillis", 1000)));
+		Thread writer = new Thread(history::drain, "game-history-writer");
+		writer.setDaemon(true);
+		writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(history::drainRemaining));
+		instance = history;
+	}
+
+    /**
+     * This is the isEnabled method.
+     *
+     * @return boolean true if finished games are being recorded, so that a room need not trace its moves otherwise.
+     */
+	public static boolean isEnabled() {
+		return instance != null;
+	}
+
+    /**
+     * This is the record method.
+     * It queues one finished game without blocking.
+     *
+     * @param startMillis The long time the game started, in milliseconds since the epoch.
+     * @param boardSize   The Integer number of rows and columns of the board.
+     * @param winLength   The Integer number of marks in a row that wins.
+     * @param result      The Integer result, e.g. HistoryBlock.WIN.
+     * @param winner      The Integer winner (1 or 2), or 0 if there is none.
+     * @param moves       The int array of the cells marked, row * size + column, in order; it is kept, not copied.
+     */
+	public static void record(long startMillis, int boardSize, int winLength, int result, int winner, int[] moves) {
+		GameHistory history = instance;
+		if (history == null) {
+			return;
+		}
+		long end = System.currentTimeMillis();
+		history.pending.add(new Game(end, Math.max(0, end - startMillis), boardSize, winLength, result, winner, moves));
+	}
+
+    /**
+     * This is the partition method.
+     *
+     * @param dir The File directory of the day partitions.
+     * @param day The LocalDate of the partition.
+     *
+     * @return File the directory of the games that ended on that day.
+     */
+	static File partition(File dir, LocalDate day) {
+		return new File(dir, PARTITION_PREFIX + day);
+	}
+
+    /**
+     * This is the drain method run by the writer thread.
+     * It moves queued games into the block, parking briefly whenever the queue is empty.
+     */
+	private void drain() {
+		while (true) {
+			if (collect() == 0) {
+				LockSupport.parkNanos(10_000_000);
+			}
+		}
+	}
+
+    /**
+     * This is the drainRemaining method run at shutdown.
+     * It collects whatever is still queued and writes the partial block.
+     */
+	private synchronized void drainRemaining() {
+		while (collect() > 0) {
+			// keep collecting
+		}
+		flush();
+		close();
+	}
+
+    /**
+     * This is the collect method.
+     * It adds up to one block of queued games, writing the block whenever it fills up or the day changes,
+     * and writes a partial block that has waited for history.flushMillis.
+     *
+     * @return int the number of games collected.
+     */
+	private synchronized int collect() {
+		int collected = 0;
+		Game game;
+		while ((collected < HistoryBlock.ROWS) && ((game = pending.poll()) != null)) {
+			long day = Math.floorDiv(game.end, DAY_MILLIS);
+			if ((block.size() > 0) && (day != blockDay)) {
+				flush();
+			}
+			blockDay = day;
+			if (block.add(game.end, game.duration, game.boardSize, game.winLength, game.result, game.winner,
+					game.moves, game.moves.length)) {
+				flush();
+			}
+			collected++;
+		}
+		if ((block.size() > 0) && (System.nanoTime() - lastFlush >= flushNanos)) {
+			flush();
+		}
+		return collected;
+	}
+
+    /**
+     * This is the flush method.
+     * It appends the block to the file of its day, starting the file if needed, and clears the block.
+     */
+	private void flush() {
+		lastFlush = System.nanoTime();
+		if (block.size() == 0) {
+			return;
+		}
+		try {
+			if (blockDay != openDay) {
+				close();
+				File partition = partition(dir, LocalDate.ofEpochDay(blockDay));
+				partition.mkdirs();
+				File file = new File(partition, partName);
+				boolean fresh = !file.exists() || (file.length() == 0);
+				out = new FileOutputStream(file, true);
+				openDay = blockDay;
+				if (fresh) {
+					out.write(MAGIC);
+				}
+			}
+			out.write(block.encode());
+			out.flush();
+		} catch (IOException | RuntimeException e) {
+			// the block is lost, but the history must never stop the game
+			System.out.println("Game history: " + e.getMessage());
+			close();
+		}
+		block.clear();
+	}
+
+    /**
+     * This is the close method.
+     * It closes the file of the current day, if one is open.
+     */
+	private void close() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				System.out.println("Game history: " + e.getMessage());
+			}
+			out = null;
+		}
+		openDay = -1;
+	}
+}
@@ -0,0 +1,445 @@
+package History;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * This is the HistoryBlock class holding up to ROWS finished games column by column, as they are written to
+ * or read from a history file.
+ *
+ * Each column is encoded on its own, in the way that suits its values: end times as zigzag variable-length
+ * differences from the game before, durations, move counts and cells as variable-length integers, and the
+ * board size, win length, result and winner as runs of equal bytes, which a day of mostly 3 x 3 games
+ * reduces to a few bytes. A block on disk is
+ * [payload length: 4 bytes][CRC-32 of the payload: 4 bytes][payload], and the payload is
+ * [rows: varint][column count][column id][byte length: varint][bytes]... so a reader decodes only the columns
+ * it asks for and skips the others, as well as any column it does not know.
+ *
+ * A block is reused: the writer clears it after every flush and the reader decodes every block into the same
+ * arrays, so scanning any number of games holds one block in memory.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class HistoryBlock {
+	// The most games in one block.
+	public static final int ROWS = 4096;
+
+	// The game was won by completing a line; winner is the player who completed it.
+	public static final int WIN = 1;
+	// The board was filled without a line.
+	public static final int DRAW = 2;
+	// A player exited in the middle of the game.
+	public static final int EXIT = 3;
+	// The player to move ran out of time; winner is the opponent.
+	public static final int FORFEIT = 4;
+	// The last player left, or the game was cut short otherwise.
+	public static final int ABANDONED = 5;
+
+	// The column ids, which are also the bits of a column mask.
+	public static final int END = 0;
+	public static final int DURATION = 1;
+	public static final int BOARD_SIZE = 2;
+	public static final int WIN_LENGTH = 3;
+	public static final int RESULT = 4;
+	public static final int WINNER = 5;
+	public static final int MOVE_COUNT = 6;
+	public static final int MOVES = 7;
+	public static final int ALL_COLUMNS = (1 << 8) - 1;
+
+	// The bytes in front of a payload: its length and its checksum.
+	public static final int HEADER_LENGTH = 8;
+
+	private int rows;
+	private long[] end = new long[ROWS];
+	private long[] duration = new long[ROWS];
+	private byte[] boardSize = new byte[ROWS];
+	private byte[] winLength = new byte[ROWS];
+	private byte[] result = new byte[ROWS];
+	private byte[] winner = new byte[ROWS];
+	private int[] moveCount = new int[ROWS];
+	// The moves of game i are moves[moveStart[i]] to moves[moveStart[i + 1] - 1].
+	private int[] moveStart = new int[ROWS + 1];
+	private int[] moves = new int[ROWS * 9];
+
+    /**
+     * This is the add method called by the writer.
+     *
+     * @param endMillis    The long time the game ended, in milliseconds since the epoch.
+     * @param millis       The long duration of the game in milliseconds.
+     * @param size         The Integer number of rows and columns of the board.
+     * @param line         The Integer number of marks in a row that wins.
+     * @param outcome      The Integer result, e.g. WIN.
+     * @param player       The Integer winner (1 or 2), or 0 if there is none.
+     * @param cells        The int array of the cells marked, row * size + column, in the order they were marked.
+     * @param count        The Integer number of cells marked.
+     *
+     * @return boolean true if the block is full afterwards.
+     */
+	boolean add(long endMillis, long millis, int size, int line, int outcome, int player, int[] cells, int count) {
+		int first = moveStart[rows];
+		if (first + count > moves.length) {
+			moves = Arrays.copyOf(moves, Math.max(moves.length * 2, first + count));
+		}
+		System.arraycopy(cells, 0, moves, first, count);
+		end[rows] = endMillis;
+		duration[rows] = millis;
+		boardSize[rows] = (byte) size;
+		winLength[rows] = (byte) line;
+		result[rows] = (byte) outcome;
+		winner[rows] = (byte) player;
+		moveCount[rows] = count;
+		rows++;
+		moveStart[rows] = first + count;
+		return rows == ROWS;
+	}
+
+    /**
+     * This is the clear method.
+     */
+	void clear() {
+		rows = 0;
+		moveStart[0] = 0;
+	}
+
+    /**
+     * This is the encode method.
+     *
+     * @return byte[] the block as it is written to the file, header included.
+     */
+	byte[] encode() {
+		ByteArrayOutputStream payload = new ByteArrayOutputStream(64 + rows * 16);
+		writeVarLong(payload, rows);
+		payload.write(8);
+		ByteArrayOutputStream column = new ByteArrayOutputStream(rows * 4);
+		long previous = 0;
+		for (int i = 0; i < rows; i++) {
+			long delta = end[i] - previous;
+			writeVarLong(column, (delta << 1) ^ (delta >> 63));
+			previous = end[i];
+		}
+		writeColumn(payload, END, column);
+		for (int i = 0; i < rows; i++) {
+			writeVarLong(column, duration[i]);
+		}
+		writeColumn(payload, DURATION, column);
+		writeRuns(column, boardSize);
+		writeColumn(payload, BOARD_SIZE, column);
+		writeRuns(column, winLength);
+		writeColumn(payload, WIN_LENGTH, column);
+		writeRuns(column, result);
+		writeColumn(payload, RESULT, column);
+		writeRuns(column, winner);
+		writeColumn(payload, WINNER, column);
+		for (int i = 0; i < rows; i++) {
+			writeVarLong(column, moveCount[i]);
+		}
+		writeColumn(payload, MOVE_COUNT, column);
+		for (int i = 0; i < moveStart[rows]; i++) {
+			writeVarLong(column, moves[i]);
+		}
+		writeColumn(payload, MOVES, column);
+
+		byte[] body = payload.toByteArray();
+		ByteBuffer block = ByteBuffer.allocate(HEADER_LENGTH + body.length);
+		block.putInt(body.length).putInt(crc(body, 0, body.length)).put(body);
+		return block.array();
+	}
+
+    /**
+     * This is the decode method called by the reader.
+     * Columns outside the mask are skipped; their getters return what the previous block left.
+     * The move column needs the move count column, which is then decoded as well.
+     *
+     * @param payload The ByteBuffer holding one payload, whose checksum was verified.
+     * @param columns The Integer mask of the columns to decode, e.g. (1 &lt;&lt; RESULT) | (1 &lt;&lt; WINNER).
+     */
+	void decode(ByteBuffer payload, int columns) {
+		if ((columns & (1 << MOVES)) != 0) {
+			columns |= 1 << MOVE_COUNT;
+		}
+		rows = (int) readVarLong(payload);
+		if (rows > end.length) {
+			grow(rows);
+		}
+		int count = payload.get() & 0xFF;
+		for (int c = 0; c < count; c++) {
+			int id = payload.get() & 0xFF;
+			int length = (int) readVarLong(payload);
+			int next = payload.position() + length;
+			if ((id < 8) && ((columns & (1 << id)) != 0)) {
+				decodeColumn(id, payload);
+			}
+			payload.position(next);
+		}
+	}
+
+    /**
+     * This is the decodeColumn method.
+     *
+     * @param id      The Integer column id.
+     * @param payload The ByteBuffer positioned at the column's bytes.
+     */
+	private void decodeColumn(int id, ByteBuffer payload) {
+		switch (id) {
+			case END:
+				long previous = 0;
+				for (int i = 0; i < rows; i++) {
+					long zigzag = readVarLong(payload);
+					previous += (zigzag >>> 1) ^ -(zigzag & 1);
+					end[i] = previous;
+				}
+				break;
+			case DURATION:
+				for (int i = 0; i < rows; i++) {
+					duration[i] = readVarLong(payload);
+				}
+				break;
+			case BOARD_SIZE:
+				readRuns(payload, boardSize);
+				break;
+			case WIN_LENGTH:
+				readRuns(payload, winLength);
+				break;
+			case RESULT:
+				readRuns(payload, result);
+				break;
+			case WINNER:
+				readRuns(payload, winner);
+				break;
+			case MOVE_COUNT:
+				for (int i = 0; i < rows; i++) {
+					moveCount[i] = (int) readVarLong(payload);
+					moveStart[i + 1] = moveStart[i] + moveCount[i];
+				}
+				break;
+			case MOVES:
+				int total = moveStart[rows];
+				if (total > moves.length) {
+					moves = new int[Math.max(moves.length * 2, total)];
+				}
+				for (int i = 0; i < total; i++) {
+					moves[i] = (int) readVarLong(payload);
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+    /**
+     * This is the grow method.
+     * It makes room for a block written with more rows than this one holds.
+     *
+     * @param capacity The Integer number of rows.
+     */
+	private void grow(int capacity) {
+		end = Arrays.copyOf(end, capacity);
+		duration = Arrays.copyOf(duration, capacity);
+		boardSize = Arrays.copyOf(boardSize, capacity);
+		winLength = Arrays.copyOf(winLength, capacity);
+		result = Arrays.copyOf(result, capacity);
+		winner = Arrays.copyOf(winner, capacity);
+		moveCount = Arrays.copyOf(moveCount, capacity);
+		moveStart = Arrays.copyOf(moveStart, capacity + 1);
+	}
+
+    /**
+     * This is the size method.
+     *
+     * @return int the number of games in the block.
+     */
+	public int size() {
+		return rows;
+	}
+
+    /**
+     * This is the end getter method.
+     *
+     * @param row The Integer game in the block.
+     *
+     * @return long the time the game ended, in milliseconds since the epoch.
+     */
+	public long getEnd(int row) {
+		return end[row];
+	}
+
+    /**
+     * This is the duration getter method.
+     *
+     * @param row The Integer game in the block.
+     *
+     * @return long the milliseconds from the second player taking a seat to the end of the game.
+     */
+	public long getDuration(int row) {
+		return duration[row];
+	}
+
+    /**
+     * This is the board size getter method.
+     *
+     * @param row The Integer game in the block.
+     *
+     * @return int the number of rows and columns of the board.
+     */
+	public int getBoardSize(int row) {
+		return boardSize[row];
+	}
+
+    /**
+     * This is the win length getter method.
+     *
+     * @param row The Integer game in the block.
+     *
+     * @return int the number of marks in a row that wins.
+     */
+	public int getWinLength(int row) {
+		return winLength[row];
+	}
+
+    /**
+     * This is the result getter method.
+     *
+     * @param row The Integer game in the block.
+     *
+     * @return int WIN, DRAW, EXIT, FORFEIT or ABANDONED.
+     */
+	public int getResult(int row) {
+		return result[row];
+	}
+
+    /**
+     * This is the winner getter method.
+     *
+     * @param row The Integer game in the block.
+     *
+     * @return int the player who won (1 or 2), or 0 if nobody did.
+     */
+	public int getWinner(int row) {
+		return winner[row];
+	}
+
+    /**
+     * This is the move count getter method.
+     *
+     * @param row The Integer game in the block.
+     *
+     * @return int the number of moves made.
+     */
+	public int getMoveCount(int row) {
+		return moveCount[row];
+	}
+
+    /**
+     * This is the move getter method.
+     *
+     * @param row  The Integer game in the block.
+     * @param move The Integer move of the game, 0 for the opening.
+     *
+     * @return int the cell marked, row * size + column.
+     */
+	public int getMove(int row, int move) {
+		return moves[moveStart[row] + move];
+	}
+
+    /**
+     * This is the crc method.
+     *
+     * @param bytes  The byte array.
+     * @param offset The Integer offset of the checked bytes.
+     * @param length The Integer number of checked bytes.
+     *
+     * @return int the CRC-32 of the bytes.
+     */
+	static int crc(byte[] bytes, int offset, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, offset, length);
+		return (int) crc.getValue();
+	}
+
+    /**
+     * This is the writeColumn method.
+     * It appends one column to the payload and empties the column buffer for the next.
+     *
+     * @param payload The ByteArrayOutputStream of the payload.
+     * @param id      The Integer column id.
+     * @param column  The ByteArrayOutputStream holding the column's bytes.
+     */
+	private static void writeColumn(ByteArrayOutputStream payload, int id, ByteArrayOutputStream column) {
+		payload.write(id);
+		writeVarLong(payload, column.size());
+		payload.write(column.toByteArray(), 0, column.size());
+		column.reset();
+	}
+
+    /**
+     * This is the writeRuns method.
+     *
+     * @param out    The ByteArrayOutputStream written to.
+     * @param values The byte array of the column, of which the first rows are written.
+     */
+	private void writeRuns(ByteArrayOutputStream out, byte[] values) {
+		int i = 0;
+		while (i < rows) {
+			int run = 1;
+			while ((i + run < rows) && (values[i + run] == values[i])) {
+				run++;
+			}
+			writeVarLong(out, run);
+			out.write(values[i]);
+			i += run;
+		}
+	}
+
+    /**
+     * This is the readRuns method.
+     *
+     * @param in     The ByteBuffer read from.
+     * @param values The byte array the first rows are decoded into.
+     */
+	private void readRuns(ByteBuffer in, byte[] values) {
+		int i = 0;
+		while (i < rows) {
+			int run = (int) readVarLong(in);
+			byte value = in.get();
+			Arrays.fill(values, i, Math.min(rows, i + run), value);
+			i += run;
+		}
+	}
+
+    /**
+     * This is the writeVarLong method.
+     * It writes seven bits per byte, lowest first, with the top bit set on every byte but the last.
+     *
+     * @param out   The ByteArrayOutputStream written to.
+     * @param value The long value, which must not be negative.
+     */
+	private static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+    /**
+     * This is the readVarLong method.
+     *
+     * @param in The ByteBuffer read from.
+     *
+     * @return long the value.
+     */
+	private static long readVarLong(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+}
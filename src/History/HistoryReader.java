@@ -0,0 +1,206 @@
+package History;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This is the HistoryReader class, which streams the games of a history directory block by block.
+ *
+ * Only the partitions of the days asked for are opened, and only the columns asked for are decoded. Every block
+ * is read into the same buffer and decoded into the same HistoryBlock before it is handed to the consumer, so a
+ * scan holds one block in memory whatever the number of days and games; an aggregate is as large as the consumer
+ * makes it. A block that is cut short or fails its checksum ends its file, which is counted as torn.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class HistoryReader {
+	private final File dir;
+	private final LocalDate from;
+	private final LocalDate to;
+	private final int columns;
+
+	private final HistoryBlock block = new HistoryBlock();
+	private byte[] payload = new byte[64 * 1024];
+	private long files;
+	private long blocks;
+	private long bytes;
+	private long torn;
+
+    /**
+     * This is the constructor to construct a reader of a range of days.
+     *
+     * @param dir     The File directory of the day partitions.
+     * @param from    The LocalDate of the first day, or null for the oldest.
+     * @param to      The LocalDate of the last day, included, or null for the newest.
+     * @param columns The Integer mask of the columns to decode, e.g. 1 &lt;&lt; HistoryBlock.RESULT.
+     */
+	public HistoryReader(File dir, LocalDate from, LocalDate to, int columns) {
+		this.dir = dir;
+		this.from = from;
+		this.to = to;
+		this.columns = columns;
+	}
+
+    /**
+     * This is the scan method.
+     * It hands every block of the range to the consumer, oldest day first; the block is reused afterwards.
+     *
+     * @param consumer The Consumer of each decoded block.
+     *
+     * @throws IOException If a file cannot be read.
+     */
+	public void scan(Consumer<HistoryBlock> consumer) throws IOException {
+		for (File partition : partitions()) {
+			File[] parts = partition.listFiles((parent, name) -> name.endsWith(GameHistory.PART_SUFFIX));
+			if (parts == null) {
+				continue;
+			}
+			Arrays.sort(parts, Comparator.comparing(File::getName));
+			for (File part : parts) {
+				scanFile(part, consumer);
+			}
+		}
+	}
+
+    /**
+     * This is the partitions method.
+     *
+     * @return List the day directories within the range, oldest first.
+     */
+	private List<File> partitions() {
+		List<File> partitions = new ArrayList<>();
+		File[] days = dir.listFiles(file -> file.isDirectory() && file.getName().startsWith(GameHistory.PARTITION_PREFIX));
+		if (days == null) {
+			return partitions;
+		}
+		for (File partition : days) {
+			LocalDate day = day(partition);
+			if ((day != null) && ((from == null) || !day.isBefore(from)) && ((to == null) || !day.isAfter(to))) {
+				partitions.add(partition);
+			}
+		}
+		partitions.sort(Comparator.comparing(File::getName));
+		return partitions;
+	}
+
+    /**
+     * This is the day method.
+     *
+     * @param partition The File of a day directory.
+     *
+     * @return LocalDate the day in its name, or null if the name is malformed.
+     */
+	private static LocalDate day(File partition) {
+		try {
+			return LocalDate.parse(partition.getName().substring(GameHistory.PARTITION_PREFIX.length()));
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+    /**
+     * This is the scanFile method.
+     *
+     * @param part     The File of one run's games of one day.
+     * @param consumer The Consumer of each decoded block.
+     *
+     * @throws IOException If the file cannot be read.
+     */
+	private void scanFile(File part, Consumer<HistoryBlock> consumer) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(part), 64 * 1024))) {
+			byte[] magic = new byte[GameHistory.MAGIC.length];
+			try {
+				in.readFully(magic);
+			} catch (EOFException e) {
+				return;
+			}
+			if (!Arrays.equals(magic, GameHistory.MAGIC)) {
+				System.out.println("Game history: skipping " + part + ", not a history file of this version");
+				return;
+			}
+			files++;
+			bytes += magic.length;
+			while (true) {
+				int length;
+				int crc;
+				try {
+					length = in.readInt();
+					crc = in.readInt();
+				} catch (EOFException e) {
+					return;
+				}
+				if (length < 0) {
+					torn++;
+					return;
+				}
+				if (length > payload.length) {
+					payload = new byte[Math.max(length, payload.length * 2)];
+				}
+				try {
+					in.readFully(payload, 0, length);
+				} catch (EOFException e) {
+					torn++;
+					return;
+				}
+				if (HistoryBlock.crc(payload, 0, length) != crc) {
+					torn++;
+					return;
+				}
+				block.decode(ByteBuffer.wrap(payload, 0, length), columns);
+				blocks++;
+				bytes += HistoryBlock.HEADER_LENGTH + length;
+				consumer.accept(block);
+			}
+		}
+	}
+
+    /**
+     * This is the files getter method.
+     *
+     * @return long the number of files scanned so far.
+     */
+	public long getFiles() {
+		return files;
+	}
+
+    /**
+     * This is the blocks getter method.
+     *
+     * @return long the number of blocks scanned so far.
+     */
+	public long getBlocks() {
+		return blocks;
+	}
+
+    /**
+     * This is the bytes getter method.
+     *
+     * @return long the number of bytes of the blocks scanned so far, headers included.
+     */
+	public long getBytes() {
+		return bytes;
+	}
+
+    /**
+     * This is the torn getter method.
+     *
+     * @return long the number of files that ended in a block cut short or corrupted.
+     */
+	public long getTorn() {
+		return torn;
+	}
+}
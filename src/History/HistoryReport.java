@@ -0,0 +1,309 @@
+package History;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the HistoryReport class, a command line tool printing the common reports over a game history.
+ *
+ * Every report is one pass of a HistoryReader that decodes only the columns the report needs, and keeps one row
+ * of counters per board size, opening cell, hour or day, so it runs in the same memory over a day or a year.
+ *
+ * Usage:
+ *   java History.HistoryReport [--dir=history] [--from=YYYY-MM-DD] [--to=YYYY-MM-DD] [--board=N] report
+ * where report is one of
+ *   summary   the games by result and board size, with their average length, and the size of the files
+ *   openings  for every board size and first cell, how often the first and the second player win
+ *   hours     the games by hour of the day (UTC) they ended, with their average length
+ *   days      the games by day, with their results
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class HistoryReport {
+	private static final String[] RESULTS = {"", "win", "draw", "exit", "forfeit", "abandoned"};
+
+	// The counters of one row of a report.
+	private static final int GAMES = 0;
+	private static final int FIRST_WINS = 1;
+	private static final int SECOND_WINS = 2;
+	private static final int DRAWS = 3;
+	private static final int MOVES = 4;
+	private static final int MILLIS = 5;
+	private static final int COUNTERS = 6;
+
+	private final HistoryReader reader;
+	private final int board;
+
+    /**
+     * This is the constructor for a report.
+     *
+     * @param reader The HistoryReader of the days to report on.
+     * @param board  The Integer board size to report on, or 0 for all.
+     */
+	private HistoryReport(HistoryReader reader, int board) {
+		this.reader = reader;
+		this.board = board;
+	}
+
+    /**
+     * This is the main method to print a report.
+     *
+     * @param args Command line arguments: --dir, --from, --to, --board and the name of the report.
+     *
+     * @throws IOException If the history cannot be read.
+     */
+	public static void main(String[] args) throws IOException {
+		String name = "summary";
+		for (String arg : args) {
+			if (!arg.startsWith("--")) {
+				name = arg;
+			}
+		}
+		File dir = new File(option(args, "dir", System.getProperty("history.dir", "history")));
+		String from = option(args, "from", null);
+		String to = option(args, "to", null);
+		int board = Integer.parseInt(option(args, "board", "0"));
+		int columns = (1 << HistoryBlock.BOARD_SIZE) | (1 << HistoryBlock.RESULT) | (1 << HistoryBlock.WINNER)
+				| (1 << HistoryBlock.MOVE_COUNT);
+		switch (name) {
+			case "summary":
+				columns |= (1 << HistoryBlock.DURATION) | (1 << HistoryBlock.WIN_LENGTH);
+				break;
+			case "openings":
+				columns |= 1 << HistoryBlock.MOVES;
+				break;
+			case "hours":
+			case "days":
+				columns |= (1 << HistoryBlock.END) | (1 << HistoryBlock.DURATION);
+				break;
+			default:
+				System.out.println("Unknown report " + name + "; use summary, openings, hours or days.");
+				return;
+		}
+
+		HistoryReader reader = new HistoryReader(dir, (from == null) ? null : LocalDate.parse(from),
+				(to == null) ? null : LocalDate.parse(to), columns);
+		HistoryReport report = new HistoryReport(reader, board);
+		long started = System.nanoTime();
+		switch (name) {
+			case "summary":
+				report.summary();
+				break;
+			case "openings":
+				report.openings();
+				break;
+			case "hours":
+				report.hours();
+				break;
+			default:
+				report.days();
+				break;
+		}
+		long nanos = System.nanoTime() - started;
+		System.out.printf(Locale.ROOT, "%nScanned %,d bytes in %,d blocks of %,d files in %.2fs%s%n", reader.getBytes(),
+				reader.getBlocks(), reader.getFiles(), nanos / 1e9,
+				(reader.getTorn() > 0) ? ", " + reader.getTorn() + " files cut short" : "");
+	}
+
+    /**
+     * This is the summary method.
+     *
+     * @throws IOException If the history cannot be read.
+     */
+	private void summary() throws IOException {
+		long[] results = new long[RESULTS.length];
+		Map<Integer, long[]> sizes = new TreeMap<>();
+		reader.scan(block -> {
+			for (int row = 0; row < block.size(); row++) {
+				if (skip(block, row)) {
+					continue;
+				}
+				int result = block.getResult(row);
+				results[(result < RESULTS.length) ? result : 0]++;
+				int key = block.getBoardSize(row) * 256 + block.getWinLength(row);
+				add(sizes.computeIfAbsent(key, k -> new long[COUNTERS]), block, row);
+			}
+		});
+
+		long total = 0;
+		for (long count : results) {
+			total += count;
+		}
+		System.out.printf(Locale.ROOT, "%,d games%n", total);
+		for (int result = 1; result < RESULTS.length; result++) {
+			System.out.printf(Locale.ROOT, "  %-10s %,12d %6.1f%%%n", RESULTS[result], results[result], percent(results[result], total));
+		}
+		System.out.printf("%n%-8s %12s %9s %9s %9s %8s %10s%n", "Board", "games", "1st wins", "2nd wins", "draws", "moves", "seconds");
+		for (Map.Entry<Integer, long[]> entry : sizes.entrySet()) {
+			int size = entry.getKey() / 256;
+			printRow(size + "x" + size + "/" + (entry.getKey() % 256), entry.getValue());
+		}
+		if (total > 0) {
+			System.out.printf(Locale.ROOT, "%n%.1f bytes per game%n", (double) reader.getBytes() / total);
+		}
+	}
+
+    /**
+     * This is the openings method.
+     *
+     * @throws IOException If the history cannot be read.
+     */
+	private void openings() throws IOException {
+		Map<Long, long[]> openings = new TreeMap<>();
+		reader.scan(block -> {
+			for (int row = 0; row < block.size(); row++) {
+				if (skip(block, row) || (block.getMoveCount(row) == 0)) {
+					continue;
+				}
+				long key = ((long) block.getBoardSize(row) << 32) | block.getMove(row, 0);
+				add(openings.computeIfAbsent(key, k -> new long[COUNTERS]), block, row);
+			}
+		});
+
+		System.out.printf("%-8s %12s %9s %9s %9s %8s%n", "Opening", "games", "1st wins", "2nd wins", "draws", "moves");
+		int shownSize = -1;
+		for (Map.Entry<Long, long[]> entry : openings.entrySet()) {
+			int size = (int) (entry.getKey() >>> 32);
+			int cell = (int) (long) entry.getKey();
+			if (size != shownSize) {
+				System.out.printf("%s%d x %d board%n", (shownSize < 0) ? "" : "\n", size, size);
+				shownSize = size;
+			}
+			long[] row = entry.getValue();
+			System.out.printf(Locale.ROOT, "%-8s %,12d %8.1f%% %8.1f%% %8.1f%% %8.2f%n",
+					"(" + (cell / size + 1) + "," + (cell % size + 1) + ")", row[GAMES],
+					percent(row[FIRST_WINS], row[GAMES]), percent(row[SECOND_WINS], row[GAMES]),
+					percent(row[DRAWS], row[GAMES]), (double) row[MOVES] / row[GAMES]);
+		}
+	}
+
+    /**
+     * This is the hours method.
+     *
+     * @throws IOException If the history cannot be read.
+     */
+	private void hours() throws IOException {
+		long[][] hours = new long[24][COUNTERS];
+		reader.scan(block -> {
+			for (int row = 0; row < block.size(); row++) {
+				if (!skip(block, row)) {
+					add(hours[(int) (TimeUnit.MILLISECONDS.toHours(block.getEnd(row)) % 24)], block, row);
+				}
+			}
+		});
+
+		System.out.printf("%-8s %12s %9s %9s %9s %8s %10s%n", "Hour", "games", "1st wins", "2nd wins", "draws", "moves", "seconds");
+		for (int hour = 0; hour < 24; hour++) {
+			if (hours[hour][GAMES] > 0) {
+				printRow(String.format("%02d:00", hour), hours[hour]);
+			}
+		}
+	}
+
+    /**
+     * This is the days method.
+     *
+     * @throws IOException If the history cannot be read.
+     */
+	private void days() throws IOException {
+		Map<Long, long[]> days = new TreeMap<>();
+		reader.scan(block -> {
+			for (int row = 0; row < block.size(); row++) {
+				if (!skip(block, row)) {
+					long day = TimeUnit.MILLISECONDS.toDays(block.getEnd(row));
+					add(days.computeIfAbsent(day, k -> new long[COUNTERS]), block, row);
+				}
+			}
+		});
+
+		System.out.printf("%-10s %12s %9s %9s %9s %8s %10s%n", "Day", "games", "1st wins", "2nd wins", "draws", "moves", "seconds");
+		for (Map.Entry<Long, long[]> entry : days.entrySet()) {
+			printRow(String.format("%-10s", LocalDate.ofEpochDay(entry.getKey())), entry.getValue());
+		}
+	}
+
+    /**
+     * This is the skip method.
+     *
+     * @param block The HistoryBlock being scanned.
+     * @param row   The Integer game in the block.
+     *
+     * @return boolean true if the game is not on the board size asked for.
+     */
+	private boolean skip(HistoryBlock block, int row) {
+		return (board != 0) && (block.getBoardSize(row) != board);
+	}
+
+    /**
+     * This is the add method.
+     * It counts one game into a row of a report; player 1 always moves first.
+     *
+     * @param counters The long array of the row's counters.
+     * @param block    The HistoryBlock being scanned.
+     * @param row      The Integer game in the block.
+     */
+	private static void add(long[] counters, HistoryBlock block, int row) {
+		counters[GAMES]++;
+		int result = block.getResult(row);
+		if (result == HistoryBlock.DRAW) {
+			counters[DRAWS]++;
+		}
+		else if ((result == HistoryBlock.WIN) || (result == HistoryBlock.FORFEIT)) {
+			counters[(block.getWinner(row) == 1) ? FIRST_WINS : SECOND_WINS]++;
+		}
+		counters[MOVES] += block.getMoveCount(row);
+		counters[MILLIS] += block.getDuration(row);
+	}
+
+    /**
+     * This is the printRow method.
+     *
+     * @param label    The String in the first column.
+     * @param counters The long array of the row's counters.
+     */
+	private static void printRow(String label, long[] counters) {
+		long games = counters[GAMES];
+		System.out.printf(Locale.ROOT, "%-8s %,12d %8.1f%% %8.1f%% %8.1f%% %8.2f %10.1f%n", label, games,
+				percent(counters[FIRST_WINS], games), percent(counters[SECOND_WINS], games), percent(counters[DRAWS], games),
+				(double) counters[MOVES] / games, counters[MILLIS] / 1000.0 / games);
+	}
+
+    /**
+     * This is the percent method.
+     *
+     * @param part  The long count.
+     * @param total The long total.
+     *
+     * @return double the count as a percentage of the total, or 0 if the total is 0.
+     */
+	private static double percent(long part, long total) {
+		return (total == 0) ? 0 : 100.0 * part / total;
+	}
+
+    /**
+     * This is the option method.
+     * It reads an option given as --name=value.
+     *
+     * @param args         The String array of command line arguments.
+     * @param name         The String name of the option.
+     * @param defaultValue The String value used when the option is absent.
+     *
+     * @return String the value of the option.
+     */
+	private static String option(String[] args, String name, String defaultValue) {
+		String prefix = "--" + name + "=";
+		for (String arg : args) {
+			if (arg.startsWith(prefix)) {
+				return arg.substring(prefix.length());
+			}
+		}
+		return defaultValue;
+	}
+}
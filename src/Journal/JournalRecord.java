@@ -0,0 +1,220 @@
+package Journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * This is the JournalRecord class representing one event of a room written to the move journal.
+ *
+ * On disk a record is [body length: 2 bytes][CRC-32 of the body: 4 bytes][body], and the body is
+ * [kind][timestamp: 8 bytes][player][row][col][board size][win length][room id length][room id].
+ * Segments are zero-filled when created, so a zero length marks the end of the written records;
+ * a record whose checksum does not match was torn by a crash and ends the segment as well.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class JournalRecord {
+	// A player took a seat in the room; player is the seat and the board fields describe the room.
+	public static final int JOIN = 1;
+	// A move was accepted on the room's board.
+	public static final int MOVE = 2;
+	// The move before this record won the game for player; the board was restarted.
+	public static final int WIN = 3;
+	// The move before this record filled the board; the board was restarted.
+	public static final int DRAW = 4;
+	// A player exited in the middle of the game; the board was restarted.
+	public static final int EXIT = 5;
+	// The last player left and the room was closed.
+	public static final int CLOSE = 6;
+	// The room was rebuilt at startup; the moves that follow replace every earlier move of the room.
+	public static final int RESTORED = 7;
+
+	// The bytes in front of the body: its length and its checksum.
+	public static final int HEADER_LENGTH = 6;
+	private static final int FIXED_BODY_LENGTH = 15;
+
+	private final int kind;
+	private final long timestamp;
+	private final String roomId;
+	private final int player;
+	private final int row;
+	private final int col;
+	private final int boardSize;
+	private final int winLength;
+
+    /**
+     * This is the constructor for a record.
+     *
+     * @param kind      The Integer indicating what happened, e.g. MOVE.
+     * @param timestamp The long time of the event in milliseconds since the epoch.
+     * @param roomId    The String indicating the room.
+     * @param player    The Integer indicating the player (1 or 2), or 0 if the event has none.
+     * @param row       The Integer indicating the row of a move.
+     * @param col       The Integer indicating the column of a move.
+     * @param boardSize The Integer indicating the number of rows and columns of the room's board.
+     * @param winLength The Integer indicating the number of marks in a row that wins.
+     */
+	public JournalRecord(int kind, long timestamp, String roomId, int player, int row, int col, int boardSize, int winLength) {
+		this.kind = kind;
+		this.timestamp = timestamp;
+		this.roomId = roomId;
+		this.player = player;
+		this.row = row;
+		this.col = col;
+		this.boardSize = boardSize;
+		this.winLength = winLength;
+	}
+
+    /**
+     * This is the kind getter method.
+     *
+     * @return int what happened, e.g. MOVE.
+     */
+	public int getKind() {
+		return kind;
+	}
+
+    /**
+     * This is the timestamp getter method.
+     *
+     * @return long the time of the event in milliseconds since the epoch.
+     */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+    /**
+     * This is the room id getter method.
+     *
+     * @return String the room the event happened in.
+     */
+	public String getRoomId() {
+		return roomId;
+	}
+
+    /**
+     * This is the player getter method.
+     *
+     * @return int the player (1 or 2), or 0 if the event has none.
+     */
+	public int getPlayer() {
+		return player;
+	}
+
+    /**
+     * This is the row getter method.
+     *
+     * @return int the row of a move.
+     */
+	public int getRow() {
+		return row;
+	}
+
+    /**
+     * This is the column getter method.
+     *
+     * @return int the column of a move.
+     */
+	public int getCol() {
+		return col;
+	}
+
+    /**
+     * This is the board size getter method.
+     *
+     * @return int the number of rows and columns of the room's board.
+     */
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+    /**
+     * This is the win length getter method.
+     *
+     * @return int the number of marks in a row that wins.
+     */
+	public int getWinLength() {
+		return winLength;
+	}
+
+    /**
+     * This is the encode method.
+     *
+     * @return byte[] the record as written to the journal, header included.
+     *
+     * @throws IllegalArgumentException If the room id is longer than 255 bytes, which the codecs never let a player name.
+     */
+	public byte[] encode() {
+		byte[] id = roomId.getBytes(StandardCharsets.UTF_8);
+		// A shortened id would rebuild the game in another room than the one its players join
+		if (id.length > 255) {
+			throw new IllegalArgumentException("Room id is too long for the journal: " + roomId);
+		}
+		int idLength = id.length;
+		int bodyLength = FIXED_BODY_LENGTH + idLength;
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + bodyLength);
+		buffer.putShort((short) bodyLength);
+		buffer.putInt(0);
+		buffer.put((byte) kind);
+		buffer.putLong(timestamp);
+		buffer.put((byte) player);
+		buffer.put((byte) row);
+		buffer.put((byte) col);
+		buffer.put((byte) boardSize);
+		buffer.put((byte) winLength);
+		buffer.put((byte) idLength);
+		buffer.put(id, 0, idLength);
+
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), HEADER_LENGTH, bodyLength);
+		buffer.putInt(2, (int) crc.getValue());
+		return buffer.array();
+	}
+
+    /**
+     * This is the decode method.
+     * It reads the record at the buffer's position and moves the position past it.
+     *
+     * @param buffer The ByteBuffer of a segment.
+     *
+     * @return JournalRecord the record, or null at the end of the written records or at a torn record.
+     */
+	public static JournalRecord decode(ByteBuffer buffer) {
+		if (buffer.remaining() < HEADER_LENGTH) {
+			return null;
+		}
+		int start = buffer.position();
+		int bodyLength = buffer.getShort(start) & 0xFFFF;
+		if ((bodyLength < FIXED_BODY_LENGTH) || (buffer.remaining() < HEADER_LENGTH + bodyLength)) {
+			return null;
+		}
+		byte[] body = new byte[bodyLength];
+		buffer.position(start + HEADER_LENGTH);
+		buffer.get(body);
+		CRC32 crc = new CRC32();
+		crc.update(body);
+		if ((int) crc.getValue() != buffer.getInt(start + 2)) {
+			buffer.position(start);
+			return null;
+		}
+
+		ByteBuffer fields = ByteBuffer.wrap(body);
+		int kind = fields.get();
+		long timestamp = fields.getLong();
+		int player = fields.get() & 0xFF;
+		int row = fields.get() & 0xFF;
+		int col = fields.get() & 0xFF;
+		int boardSize = fields.get() & 0xFF;
+		int winLength = fields.get() & 0xFF;
+		int idLength = fields.get() & 0xFF;
+		if (idLength != bodyLength - FIXED_BODY_LENGTH) {
+			buffer.position(start);
+			return null;
+		}
+		String roomId = new String(body, FIXED_BODY_LENGTH, idLength, StandardCharsets.UTF_8);
+		return new JournalRecord(kind, timestamp, roomId, player, row, col, boardSize, winLength);
+	}
+}
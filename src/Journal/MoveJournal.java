@@ -0,0 +1,247 @@
+package Journal;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is the MoveJournal class, an append-only binary journal of the events of every room.
+ *
+ * Appending a record only puts it on a lock-free queue, so the thread that moved and broadcasts never waits
+ * for the disk. A background thread drains the queue in batches into a memory-mapped segment file and then
+ * forces the batch to disk once (group commit): a burst of moves from many rooms costs one msync, and an idle
+ * journal costs nothing. Segments are preallocated files of journal.segmentBytes; when one is full the next
+ * is started, and every run of the server starts a new segment after those already on disk.
+ *
+ * At startup, read returns the records of every segment in order, which the server replays to rebuild the
+ * games that were in progress. Rebuilt games are appended again to the new segment, so older segments are only
+ * history and may be archived while the server is stopped.
+ *
+ * Configuration (system properties): journal.dir (default journal), journal.segmentBytes (default 64 MB)
+ * and journal.sync (default true; false leaves flushing the mapped pages to the operating system).
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class MoveJournal {
+	// The most records written between two forces.
+	private static final int MAX_BATCH = 1024;
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".journal";
+
+	private static volatile MoveJournal instance;
+
+	private final File dir;
+	private final long segmentBytes;
+	private final boolean sync;
+	private final Queue<JournalRecord> pending = new ConcurrentLinkedQueue<>();
+
+	// Only touched by the writer thread, or by the shutdown hook once it has stopped.
+	private int segmentIndex;
+	private FileChannel channel;
+	private MappedByteBuffer segment;
+
+    /**
+     * This is the constructor to construct a journal writing to the specified directory.
+     *
+     * @param dir          The File directory of the segments.
+     * @param segmentBytes The long size of each segment.
+     * @param sync         The boolean telling whether every batch is forced to disk.
+     */
+	private MoveJournal(File dir, long segmentBytes, boolean sync) {
+		this.dir = dir;
+		this.segmentBytes = segmentBytes;
+		this.sync = sync;
+	}
+
+    /**
+     * This is the start method.
+     * It opens a new segment after the existing ones and starts the background writer.
+     * Records appended before start, or when the journal cannot be opened, are discarded.
+     *
+     * @param dir The File directory of the segments; it is created if needed.
+     */
+	public static synchronized void start(File dir) {
+		if (instance != null) {
+			return;
+		}
+		try {
+			dir.mkdirs();
+			MoveJournal journal = new MoveJournal(dir, Long.getLong("journal.segmentBytes", 64L * 1024 * 1024),
+					Boolean.parseBoolean(System.getProperty("journal.sync", "true")));
+			List<File> segments = segments(dir);
+			journal.segmentIndex = segments.isEmpty() ? 0 : index(segments.get(segments.size() - 1));
+			journal.openNextSegment();
+			Thread writer = new Thread(journal::drain, "move-journal-writer");
+			writer.setDaemon(true);
+			writer.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(journal::drainRemaining));
+			instance = journal;
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Move journal disabled: " + e.getMessage());
+		}
+	}
+
+    /**
+     * This is the append method.
+     * It queues one record without blocking; the record reaches the disk with the next batch.
+     *
+     * @param kind      The Integer indicating what happened, e.g. JournalRecord.MOVE.
+     * @param roomId    The String indicating the room.
+     * @param player    The Integer indicating the player (1 or 2), or 0 if the event has none.
+     * @param row       The Integer indicating the row of a move.
+     * @param col       The Integer indicating the column of a move.
+     * @param boardSize The Integer indicating the number of rows and columns of the room's board.
+     * @param winLength The Integer indicating the number of marks in a row that wins.
+     */
+	public static void append(int kind, String roomId, int player, int row, int col, int boardSize, int winLength) {
+		MoveJournal journal = instance;
+		if (journal == null) {
+			return;
+		}
+		journal.pending.add(new JournalRecord(kind, System.currentTimeMillis(), roomId, player, row, col, boardSize, winLength));
+	}
+
+    /**
+     * This is the read method.
+     * It reads the records of every segment in the directory, oldest first.
+     *
+     * @param dir The File directory of the segments.
+     *
+     * @return List the records in the order they were written; empty if there is no journal yet.
+     *
+     * @throws IOException If a segment cannot be read.
+     */
+	public static List<JournalRecord> read(File dir) throws IOException {
+		List<JournalRecord> records = new ArrayList<>();
+		for (File file : segments(dir)) {
+			try (FileChannel segment = new RandomAccessFile(file, "r").getChannel()) {
+				ByteBuffer buffer = segment.map(FileChannel.MapMode.READ_ONLY, 0, segment.size());
+				JournalRecord record;
+				while ((record = JournalRecord.decode(buffer)) != null) {
+					records.add(record);
+				}
+			}
+		}
+		return records;
+	}
+
+    /**
+     * This is the segments method.
+     *
+     * @param dir The File directory of the segments.
+     *
+     * @return List the segment files ordered by their index.
+     */
+	private static List<File> segments(File dir) {
+		File[] files = dir.listFiles((parent, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+		List<File> segments = new ArrayList<>();
+		if (files != null) {
+			for (File file : files) {
+				if (index(file) >= 0) {
+					segments.add(file);
+				}
+			}
+		}
+		segments.sort(Comparator.comparingInt(MoveJournal::index));
+		return segments;
+	}
+
+    /**
+     * This is the index method.
+     *
+     * @param file The File of a segment.
+     *
+     * @return int the index in the segment's name, or -1 if the name is malformed.
+     */
+	private static int index(File file) {
+		String name = file.getName();
+		try {
+			return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+    /**
+     * This is the openNextSegment method.
+     * It forces and closes the current segment and maps a new, zero-filled one.
+     *
+     * @throws IOException If the segment cannot be created.
+     */
+	private void openNextSegment() throws IOException {
+		if (channel != null) {
+			segment.force();
+			channel.close();
+		}
+		segmentIndex++;
+		File file = new File(dir, String.format("%s%08d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(segmentBytes);
+		}
+		channel = new RandomAccessFile(file, "rw").getChannel();
+		segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+	}
+
+    /**
+     * This is the drain method run by the writer thread.
+     * It writes and commits batches, parking briefly whenever the queue is empty.
+     */
+	private void drain() {
+		while (true) {
+			if (writeBatch() == 0) {
+				LockSupport.parkNanos(1_000_000);
+			}
+		}
+	}
+
+    /**
+     * This is the drainRemaining method run at shutdown.
+     * It writes whatever is still queued and forces the segment.
+     */
+	private void drainRemaining() {
+		while (writeBatch() > 0) {
+			// keep writing
+		}
+	}
+
+    /**
+     * This is the writeBatch method.
+     * It copies up to MAX_BATCH queued records into the segment and forces them with a single call.
+     * A record that cannot be encoded is dropped alone; the rest of the batch is still written.
+     *
+     * @return int the number of records taken from the queue.
+     */
+	private synchronized int writeBatch() {
+		int written = 0;
+		JournalRecord record;
+		try {
+			while ((written < MAX_BATCH) && ((record = pending.poll()) != null)) {
+				written++;
+				byte[] bytes;
+				try {
+					bytes = record.encode();
+				} catch (IllegalArgumentException e) {
+					System.out.println("Move journal: " + e.getMessage());
+					continue;
+				}
+				if (segment.remaining() < bytes.length + JournalRecord.HEADER_LENGTH) {
+					openNextSegment();
+				}
+				segment.put(bytes);
+			}
+			if ((written > 0) && sync) {
+				segment.force();
+			}
+		} catch (IOException | RuntimeException e) {
+			// the batch may be lost, but the journal must never stop the game
+			System.out.println("Move journal: " + e.getMessage());
+		}
+		return written;
+	}
+}
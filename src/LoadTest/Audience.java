@@ -0,0 +1,99 @@
+package LoadTest;
+
+import Protocol.Message;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is the Audience class representing many simulated spectators watching one room.
+ * All of them are served by a single selector thread that reads and discards what the server sends,
+ * counting the bytes, so thousands of spectators cost the load generator almost nothing.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class Audience implements Runnable {
+	private final Selector selector;
+	private final LongAdder received = new LongAdder();
+	private int connected;
+
+    /**
+     * This is the constructor to connect the spectators; each sends the watch message in the text protocol.
+     *
+     * @param host       The String host of the server.
+     * @param port       The Integer port of the server.
+     * @param roomId     The String id of the room to be watched.
+     * @param spectators The Integer number of spectators.
+     *
+     * @throws IOException If the selector cannot be opened.
+     */
+	public Audience(String host, int port, String roomId, int spectators) throws IOException {
+		this.selector = Selector.open();
+		byte[] watch = Message.watch(roomId).toLine();
+		for (int i = 0; i < spectators; i++) {
+			try {
+				SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+				channel.write(ByteBuffer.wrap(watch));
+				channel.configureBlocking(false);
+				channel.register(selector, SelectionKey.OP_READ);
+				connected++;
+			} catch (IOException e) {
+				System.out.println("spectator " + i + " could not connect: " + e.getMessage());
+				break;
+			}
+		}
+	}
+
+    /**
+     * This is the connected getter method.
+     *
+     * @return int the number of spectators connected.
+     */
+	public int getConnected() {
+		return connected;
+	}
+
+    /**
+     * This is the received getter method.
+     *
+     * @return long the number of bytes the spectators received so far.
+     */
+	public long getReceived() {
+		return received.sum();
+	}
+
+    /**
+     * This is the run method.
+     * It reads from every spectator until the thread is interrupted.
+     */
+	@Override
+	public void run() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				selector.select(100);
+				for (SelectionKey key : selector.selectedKeys()) {
+					buffer.clear();
+					int count = ((SocketChannel) key.channel()).read(buffer);
+					if (count < 0) {
+						key.cancel();
+						key.channel().close();
+					}
+					else {
+						received.add(count);
+					}
+				}
+				selector.selectedKeys().clear();
+			}
+		} catch (IOException e) {
+			System.out.println("audience stopped: " + e.getMessage());
+		}
+	}
+}
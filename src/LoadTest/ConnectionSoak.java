@@ -0,0 +1,124 @@
+package LoadTest;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This is the ConnectionSoak class, a small command-line probe for comparing the server modes.
+ * It opens many connections, counts how many of them the server actually serves,
+ * and then measures the round-trip latency of moves in the first few games.
+ *
+ * Usage: java LoadTest.ConnectionSoak [host] [port] [connections] [games] [moves per game]
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class ConnectionSoak {
+
+	// The moves of one game, alternating Player 1 and Player 2; Player 1 wins on the last move.
+	private static final int[][] GAME = { {0, 0}, {1, 0}, {0, 1}, {1, 1}, {0, 2} };
+
+    /**
+     * This is the main method to run the probe.
+     *
+     * @param args Command line arguments
+     * @throws Exception If the server cannot be reached.
+     */
+	public static void main(String[] args) throws Exception {
+		String host = args.length > 0 ? args[0] : "127.0.0.1";
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : 5001;
+		int connections = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int games = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		int moves = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+
+		// Phase 1: open every connection and ask each pair to join its own room
+		List<Socket> sockets = new ArrayList<>();
+		List<BufferedReader> readers = new ArrayList<>();
+		for (int i = 0; i < connections; i++) {
+			Socket socket = new Socket(host, port);
+			socket.setTcpNoDelay(true);
+			sockets.add(socket);
+			readers.add(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)));
+			send(socket, "Name Submitted room soak-" + (i / 2));
+		}
+
+		// Count the connections that received a reply, i.e. have a handler on the server
+		long deadline = System.currentTimeMillis() + 5000;
+		boolean[] served = new boolean[connections];
+		int servedCount = 0;
+		while ((servedCount < connections) && (System.currentTimeMillis() < deadline)) {
+			for (int i = 0; i < connections; i++) {
+				if (!served[i] && (sockets.get(i).getInputStream().available() > 0)) {
+					served[i] = true;
+					servedCount++;
+				}
+			}
+			Thread.sleep(10);
+		}
+		System.out.println("connections opened: " + connections + ", served: " + servedCount);
+
+		// Phase 2: play moves in the first served games and time each round trip
+		List<Long> samples = new ArrayList<>();
+		for (int g = 0; (g < games) && (2 * g + 1 < connections); g++) {
+			if (!served[2 * g] || !served[2 * g + 1]) {
+				continue;
+			}
+			Socket[] players = { sockets.get(2 * g), sockets.get(2 * g + 1) };
+			BufferedReader[] in = { readers.get(2 * g), readers.get(2 * g + 1) };
+			for (int m = 0; m < moves; m++) {
+				int[] cell = GAME[m % GAME.length];
+				int player = (m % GAME.length) % 2;
+				String name = "Player " + (player + 1);
+				long start = System.nanoTime();
+				send(players[player], name + " pressed the Button at row " + cell[0] + " and col " + cell[1]);
+				String line;
+				while ((line = in[player].readLine()) != null && !line.startsWith(name + " successfully pressed")) {
+					// skip joins and results
+				}
+				samples.add(System.nanoTime() - start);
+			}
+		}
+		report(samples);
+
+		for (Socket socket : sockets) {
+			socket.close();
+		}
+	}
+
+    /**
+     * This is the send method.
+     * It writes one line of the protocol to the server.
+     *
+     * @param socket  The Socket to write to.
+     * @param message The String message to be sent.
+     *
+     * @throws IOException If the write fails.
+     */
+	private static void send(Socket socket, String message) throws IOException {
+		OutputStream out = socket.getOutputStream();
+		out.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+    /**
+     * This is the report method.
+     * It prints the median and tail of the measured move latencies.
+     *
+     * @param samples The List of round-trip times in nanoseconds.
+     */
+	private static void report(List<Long> samples) {
+		if (samples.isEmpty()) {
+			System.out.println("no moves measured");
+			return;
+		}
+		Collections.sort(samples);
+		System.out.printf("moves: %d, p50: %.1f us, p99: %.1f us, max: %.1f us%n",
+				samples.size(),
+				samples.get(samples.size() / 2) / 1000.0,
+				samples.get((int) (samples.size() * 0.99)) / 1000.0,
+				samples.get(samples.size() - 1) / 1000.0);
+	}
+}
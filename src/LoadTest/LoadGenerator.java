@@ -0,0 +1,138 @@
+package LoadTest;
+
+import Metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+/**
+ * This is the LoadGenerator class, a headless command-line client for load-testing the server.
+ * It opens the given number of simulated players, pairs them into rooms of their own and plays games
+ * at a fixed move rate per game. While running it prints the move throughput every second; at the end
+ * it reports moves per second, time-to-join and the p50/p99/p999 round-trip latency of moves.
+ *
+ * Usage: java LoadTest.LoadGenerator [--host=127.0.0.1] [--port=5001] [--players=100] [--rate=10]
+ *        [--duration=30] [--protocol=text|binary] [--spectators=0]
+ * The rate is in moves per second per game; 0 plays as fast as the server answers.
+ * Spectators all watch the first game, to measure whether a large audience slows its players down.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class LoadGenerator {
+
+    /**
+     * This is the main method to run the load generator.
+     *
+     * @param args Command line arguments
+     * @throws InterruptedException If the run is interrupted.
+     */
+	public static void main(String[] args) throws InterruptedException, IOException {
+		String host = option(args, "host", "127.0.0.1");
+		int port = Integer.parseInt(option(args, "port", "5001"));
+		int players = Integer.parseInt(option(args, "players", "100"));
+		double rate = Double.parseDouble(option(args, "rate", "10"));
+		int duration = Integer.parseInt(option(args, "duration", "30"));
+		boolean binary = option(args, "protocol", "text").equals("binary");
+		int spectators = Integer.parseInt(option(args, "spectators", "0"));
+
+		int games = Math.max(1, players / 2);
+		long interval = (rate > 0) ? (long) (1e9 / rate) : 0;
+		long started = System.nanoTime();
+		long deadline = started + duration * 1_000_000_000L;
+		String run = Long.toString(System.currentTimeMillis(), 36);
+		SimulatedGame.Stats stats = new SimulatedGame.Stats();
+
+		System.out.printf("%d players in %d games, %s protocol, %s moves/s per game, %d s%n",
+				games * 2, games, binary ? "binary" : "text", (rate > 0) ? option(args, "rate", "10") : "max", duration);
+		ExecutorService pool = Executors.newFixedThreadPool(games, runnable -> {
+			Thread thread = new Thread(runnable, "simulated-game");
+			thread.setDaemon(true);
+			return thread;
+		});
+		pool.execute(new SimulatedGame(host, port, "load-" + run + "-0", binary, interval, deadline, stats));
+		Audience audience = null;
+		if (spectators > 0) {
+			// Watching opens no room, so the audience waits for the first game's players to open it
+			while ((stats.joinLatency.getCount() == 0) && (stats.failures.sum() == 0)) {
+				Thread.sleep(10);
+			}
+			audience = new Audience(host, port, "load-" + run + "-0", spectators);
+			Thread reader = new Thread(audience, "audience");
+			reader.setDaemon(true);
+			reader.start();
+			System.out.printf("%d spectators watching load-%s-0%n", audience.getConnected(), run);
+		}
+		for (int g = 1; g < games; g++) {
+			pool.execute(new SimulatedGame(host, port, "load-" + run + "-" + g, binary, interval, deadline, stats));
+		}
+		pool.shutdown();
+
+		long lastMoves = 0;
+		long lastReport = started;
+		while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+			long now = System.nanoTime();
+			long moves = stats.moves.sum();
+			System.out.printf("%5.0f s  %8.0f moves/s  p99 %8.1f us%n", (now - started) / 1e9,
+					(moves - lastMoves) * 1e9 / (now - lastReport), stats.moveLatency.percentile(99) / 1000.0);
+			lastMoves = moves;
+			lastReport = now;
+			if (now > deadline + 10_000_000_000L) {
+				System.out.println("games still running 10 s after the deadline; stopping");
+				break;
+			}
+		}
+		report(stats, (System.nanoTime() - started) / 1e9);
+		if (audience != null) {
+			System.out.printf("spectators: %d, bytes received: %d%n", audience.getConnected(), audience.getReceived());
+		}
+	}
+
+    /**
+     * This is the report method.
+     * It prints the totals of the run.
+     *
+     * @param stats   The Stats collected by every game.
+     * @param seconds The double length of the run in seconds.
+     */
+	private static void report(SimulatedGame.Stats stats, double seconds) {
+		long moves = stats.moves.sum();
+		System.out.printf("moves: %d (%.0f moves/s), games finished: %d, rejected moves: %d, failed games: %d%n",
+				moves, moves / seconds, stats.games.sum(), stats.rejected.sum(), stats.failures.sum());
+		print("time-to-join", stats.joinLatency);
+		print("move round trip", stats.moveLatency);
+	}
+
+    /**
+     * This is the print method.
+     *
+     * @param name      The String name of the measurement.
+     * @param histogram The LatencyHistogram to be printed.
+     */
+	private static void print(String name, LatencyHistogram histogram) {
+		System.out.printf("%-16s n=%d  p50 %.1f us  p99 %.1f us  p999 %.1f us  max %.1f us%n", name, histogram.getCount(),
+				histogram.percentile(50) / 1000.0, histogram.percentile(99) / 1000.0,
+				histogram.percentile(99.9) / 1000.0, histogram.getMax() / 1000.0);
+	}
+
+    /**
+     * This is the option method.
+     * It reads an option given as --name=value.
+     *
+     * @param args         The String array of command line arguments.
+     * @param name         The String name of the option.
+     * @param defaultValue The String value used when the option is absent.
+     *
+     * @return String the value of the option.
+     */
+	private static String option(String[] args, String name, String defaultValue) {
+		String prefix = "--" + name + "=";
+		for (String arg : args) {
+			if (arg.startsWith(prefix)) {
+				return arg.substring(prefix.length());
+			}
+		}
+		return defaultValue;
+	}
+}
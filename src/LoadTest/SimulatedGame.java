@@ -0,0 +1,326 @@
+package LoadTest;
+
+import Metrics.LatencyHistogram;
+import Protocol.BinaryCodec;
+import Protocol.Message;
+import Protocol.TextCodec;
+import Server.BitBoard;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is the SimulatedGame class representing two headless players sharing one room.
+ * Both players join the same named room, then take turns pressing random free buttons at a fixed rate
+ * until the deadline, asking for a rematch after every win or draw. Each move is timed from sending
+ * "pressed the Button" to receiving its "successfully pressed" broadcast.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class SimulatedGame implements Runnable {
+
+	private final String host;
+	private final int port;
+	private final String roomId;
+	private final boolean binary;
+	private final long moveIntervalNanos;
+	private final long deadline;
+	private final Stats stats;
+
+    /**
+     * This is the Stats class holding the counters and histograms shared by every simulated game.
+     */
+	static final class Stats {
+		final LatencyHistogram moveLatency = new LatencyHistogram();
+		final LatencyHistogram joinLatency = new LatencyHistogram();
+		final LongAdder moves = new LongAdder();
+		final LongAdder games = new LongAdder();
+		final LongAdder rejected = new LongAdder();
+		final LongAdder failures = new LongAdder();
+	}
+
+    /**
+     * This is the constructor for a simulated game.
+     *
+     * @param host              The String host of the server.
+     * @param port              The Integer port of the server.
+     * @param roomId            The String room both players join.
+     * @param binary            The boolean telling whether the players negotiate the binary protocol.
+     * @param moveIntervalNanos The long time between two moves of this game, or 0 to move as fast as possible.
+     * @param deadline          The long System.nanoTime after which no new move is started.
+     * @param stats             The Stats the game reports to.
+     */
+	SimulatedGame(String host, int port, String roomId, boolean binary, long moveIntervalNanos, long deadline, Stats stats) {
+		this.host = host;
+		this.port = port;
+		this.roomId = roomId;
+		this.binary = binary;
+		this.moveIntervalNanos = moveIntervalNanos;
+		this.deadline = deadline;
+		this.stats = stats;
+	}
+
+    /**
+     * This is the run method.
+     * It connects both players and plays games until the deadline; a broken connection ends this game only.
+     */
+	@Override
+	public void run() {
+		try (Player first = new Player(host, port, binary); Player second = new Player(host, port, binary)) {
+			// Player 1 joins first, so the seats are known before the first move
+			long started = System.nanoTime();
+			first.send(Message.join(roomId));
+			first.await(Message.JOINED, 1);
+			second.send(Message.join(roomId));
+			second.await(Message.JOINED, 2);
+			first.await(Message.JOINED, 2);
+			long joined = System.nanoTime();
+			stats.joinLatency.record(joined - started);
+
+			Player[] seats = { first, second };
+			long nextMove = joined;
+			while (System.nanoTime() < deadline) {
+				nextMove = play(seats, nextMove);
+				if (nextMove < 0) {
+					return;
+				}
+				stats.games.increment();
+				seats = rematch(seats);
+			}
+		} catch (IOException e) {
+			stats.failures.increment();
+		}
+	}
+
+    /**
+     * This is the play method.
+     * It plays one game to its end, or until the deadline passes.
+     *
+     * @param seats    The Player array, Player 1 first.
+     * @param nextMove The long System.nanoTime at which the next move is due.
+     *
+     * @return long the time the move after this game is due, or -1 if the deadline passed mid-game.
+     *
+     * @throws IOException If a connection fails.
+     */
+	private long play(Player[] seats, long nextMove) throws IOException {
+		int[] masks = new int[2];
+		for (int turn = 0; ; turn = 1 - turn) {
+			long now = waitUntil(nextMove);
+			if (now >= deadline) {
+				return -1;
+			}
+			nextMove = Math.max(nextMove + moveIntervalNanos, now);
+
+			int cell = randomFreeCell(masks[0] | masks[1]);
+			int player = turn + 1;
+			Player mover = seats[turn];
+			long sent = System.nanoTime();
+			mover.send(Message.move(player, cell / 3, cell % 3));
+			Message reply = mover.awaitMove(player);
+			if (reply.getType() == Message.REJECTED) {
+				stats.rejected.increment();
+				throw new IOException("move rejected in " + roomId);
+			}
+			stats.moveLatency.record(System.nanoTime() - sent);
+			stats.moves.increment();
+			seats[1 - turn].await(Message.MOVED, player);
+
+			masks[turn] |= 1 << cell;
+			if (BitBoard.isWinningMask(masks[turn])) {
+				seats[0].await(Message.WIN, player);
+				seats[1].await(Message.WIN, player);
+				return nextMove;
+			}
+			if ((masks[0] | masks[1]) == BitBoard.FULL) {
+				seats[0].await(Message.DRAW, 0);
+				seats[1].await(Message.DRAW, 0);
+				return nextMove;
+			}
+		}
+	}
+
+    /**
+     * This is the rematch method.
+     * Both players ask to play again; whoever asks first becomes Player 1, so the loser of the last game starts.
+     *
+     * @param seats The Player array of the game that ended, Player 1 first.
+     *
+     * @return Player[] the seats of the next game, Player 1 first.
+     *
+     * @throws IOException If a connection fails.
+     */
+	private Player[] rematch(Player[] seats) throws IOException {
+		Player[] next = { seats[1], seats[0] };
+		next[0].send(Message.rematch());
+		next[0].await(Message.JOINED, 1);
+		next[1].send(Message.rematch());
+		next[1].await(Message.JOINED, 2);
+		next[0].await(Message.JOINED, 2);
+		return next;
+	}
+
+    /**
+     * This is the waitUntil method.
+     *
+     * @param time The long System.nanoTime to wait for.
+     *
+     * @return long the current System.nanoTime, at or after the given time.
+     */
+	private static long waitUntil(long time) {
+		long now;
+		while ((now = System.nanoTime()) < time) {
+			LockSupport.parkNanos(time - now);
+		}
+		return now;
+	}
+
+    /**
+     * This is the randomFreeCell method.
+     *
+     * @param occupied The Integer mask of the occupied cells; at least one cell must be free.
+     *
+     * @return int a random free cell between 0 and 8.
+     */
+	private static int randomFreeCell(int occupied) {
+		int free = ~occupied & BitBoard.FULL;
+		int skip = ThreadLocalRandom.current().nextInt(Integer.bitCount(free));
+		for (int i = 0; i < skip; i++) {
+			free &= free - 1;
+		}
+		return Integer.numberOfTrailingZeros(free);
+	}
+
+    /**
+     * This is the Player class representing one headless client connection.
+     * It speaks the same protocol as the Swing Controller, in text or binary.
+     */
+	private static final class Player implements Closeable {
+		private final Socket socket;
+		private final DataInputStream in;
+		private final OutputStream out;
+		private final BufferedReader lines;
+		private final boolean binary;
+
+        /**
+         * This is the constructor to connect a player.
+         *
+         * @param host   The String host of the server.
+         * @param port   The Integer port of the server.
+         * @param binary The boolean telling whether the binary protocol is negotiated.
+         *
+         * @throws IOException If the server cannot be reached or refuses the binary protocol.
+         */
+		Player(String host, int port, boolean binary) throws IOException {
+			this.socket = new Socket(host, port);
+			this.socket.setTcpNoDelay(true);
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new BufferedOutputStream(socket.getOutputStream());
+			this.binary = binary;
+			if (binary) {
+				out.write(BinaryCodec.handshake(BinaryCodec.VERSION));
+				out.flush();
+				byte[] handshake = new byte[BinaryCodec.HANDSHAKE_LENGTH];
+				in.readFully(handshake);
+				if (BinaryCodec.parseHandshake(handshake, 0) <= 0) {
+					socket.close();
+					throw new IOException("server refused the binary protocol");
+				}
+			}
+			this.lines = binary ? null : new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		}
+
+        /**
+         * This is the send method.
+         *
+         * @param message The Message to be sent.
+         *
+         * @throws IOException If the write fails.
+         */
+		void send(Message message) throws IOException {
+			out.write(binary ? message.toFrame() : (message.toText() + "\n").getBytes(StandardCharsets.UTF_8));
+			out.flush();
+		}
+
+        /**
+         * This is the receive method.
+         *
+         * @return Message the next message from the server.
+         *
+         * @throws IOException If the connection fails or is closed.
+         */
+		Message receive() throws IOException {
+			while (true) {
+				Message message = binary ? BinaryCodec.read(in) : decodeLine();
+				if (message != null) {
+					return message;
+				}
+			}
+		}
+
+        /**
+         * This is the decodeLine method.
+         *
+         * @return Message the decoded line, or null if the line is not part of the protocol.
+         *
+         * @throws IOException If the connection fails or is closed.
+         */
+		private Message decodeLine() throws IOException {
+			String line = lines.readLine();
+			if (line == null) {
+				throw new EOFException("server closed the connection");
+			}
+			return TextCodec.decode(line);
+		}
+
+        /**
+         * This is the await method.
+         * It skips messages until the expected one arrives.
+         *
+         * @param type   The Integer message type expected.
+         * @param player The Integer player the message is about, or 0 if it has none.
+         *
+         * @throws IOException If the connection fails, or the room reports a player exit.
+         */
+		void await(int type, int player) throws IOException {
+			while (true) {
+				Message message = receive();
+				if ((message.getType() == type) && (message.getPlayer() == player)) {
+					return;
+				}
+				if ((message.getType() == Message.EXIT) || (message.getType() == Message.FULL)) {
+					throw new IOException("unexpected " + message);
+				}
+			}
+		}
+
+        /**
+         * This is the awaitMove method.
+         *
+         * @param player The Integer player who pressed the button.
+         *
+         * @return Message the successful or failed move of that player.
+         *
+         * @throws IOException If the connection fails.
+         */
+		Message awaitMove(int player) throws IOException {
+			while (true) {
+				Message message = receive();
+				if (((message.getType() == Message.MOVED) || (message.getType() == Message.REJECTED)) && (message.getPlayer() == player)) {
+					return message;
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package Logging;
+
+/**
+ * This is the Event enum representing the kinds of events written to the event log.
+ * Each kind can be sampled on its own with the system property log.sample.&lt;name&gt;=N,
+ * which keeps about one event in N, e.g. -Dlog.sample.received=100.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public enum Event {
+	// A client connected to the server.
+	CONNECTED("connected"),
+	// A client disconnected from the server.
+	DISCONNECTED("disconnected"),
+	// The server received a message from a client.
+	RECEIVED("received"),
+	// The server broadcast a message to the players of a room.
+	BROADCAST("broadcast"),
+	// The matchmaker paired two players into a room; the detail is how long the first waited, in microseconds.
+	MATCHED("matched"),
+	// A player's connection dropped and its game was put on hold for it to resume.
+	SUSPENDED("suspended"),
+	// A player reconnected and was reattached to its game.
+	RESUMED("resumed"),
+	// A player did not reconnect within the grace window and was removed from its game.
+	EXPIRED("expired"),
+	// A player did not move within the turn clock and forfeited the game; the detail is the player.
+	TURN_TIMEOUT("turn_timeout"),
+	// A client sent nothing for too long and its connection was closed; the detail is the idle time in milliseconds.
+	IDLE_TIMEOUT("idle_timeout"),
+	// The gateway sent a client to a node; the detail is the node.
+	ROUTED("routed"),
+	// The gateway took a node out of its ring after failed health checks or connects.
+	NODE_DOWN("node_down"),
+	// The gateway put a node back into its ring.
+	NODE_UP("node_up"),
+	// A client read too slowly and was dropped.
+	SLOW_CONSUMER("slow_consumer"),
+	// The client received a message from the server.
+	CLIENT_RECEIVED("client_received"),
+	// The client updated a button of the board.
+	BOARD_UPDATED("board_updated"),
+	// Something went wrong.
+	ERROR("error");
+
+	private final String key;
+
+	/**
+	 * This is the constructor for an event kind.
+	 *
+	 * @param key The String name of the event in the log and in the sampling property.
+	 */
+	Event(String key) {
+		this.key = key;
+	}
+
+	/**
+	 * This is the key getter method.
+	 *
+	 * @return String the name of the event in the log.
+	 */
+	public String getKey() {
+		return key;
+	}
+}
@@ -0,0 +1,265 @@
+package Logging;
+
+import java.io.*;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is the EventLog class, an asynchronous structured event log for the game's hot paths.
+ *
+ * Logging an event only checks its level and sampling rate, claims a slot of a preallocated ring buffer
+ * and stores references in it; nothing is formatted and nothing blocks. A background thread formats the slots
+ * into machine-parseable key=value lines and writes them to a rolling local file. When the ring is full,
+ * events are dropped and counted instead of making the caller wait.
+ *
+ * Configuration (system properties): log.level (default INFO), log.sample.&lt;event&gt; (keep one in N),
+ * log.dir (default logs), log.maxBytes (default 16 MB per file) and log.backups (default 5).
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class EventLog {
+	// The number of slots in the ring; a power of two so a sequence maps to a slot with a mask.
+	private static final int CAPACITY = 1 << 14;
+	private static final int MASK = CAPACITY - 1;
+
+	private static volatile EventLog instance;
+
+	private final Level threshold;
+	private final int[] sampleRates;
+	private final Slot[] slots = new Slot[CAPACITY];
+	private final RollingFileAppender appender;
+
+	// The next sequence to be claimed by a producer, and the next sequence the writer thread will read.
+	private final AtomicLong claimed = new AtomicLong();
+	private volatile long consumed;
+	private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * This is the Slot class representing one entry of the ring buffer.
+     * A slot is published by writing its sequence last, after every other field.
+     */
+	private static final class Slot {
+		private volatile long sequence = -1;
+		private long timestamp;
+		private Level level;
+		private Event event;
+		private String subject;
+		private Object detail;
+	}
+
+    /**
+     * This is the constructor to construct an EventLog writing to the specified appender.
+     *
+     * @param appender The RollingFileAppender receiving the formatted lines.
+     */
+	private EventLog(RollingFileAppender appender) {
+		this.appender = appender;
+		this.threshold = Level.valueOf(System.getProperty("log.level", "INFO").toUpperCase());
+		this.sampleRates = new int[Event.values().length];
+		for (Event event : Event.values()) {
+			sampleRates[event.ordinal()] = Math.max(1, Integer.getInteger("log.sample." + event.getKey(), 1));
+		}
+		for (int i = 0; i < CAPACITY; i++) {
+			slots[i] = new Slot();
+		}
+	}
+
+    /**
+     * This is the start method.
+     * It opens the log file logs/&lt;name&gt;.log and starts the background writer.
+     * Events logged before start, or when the file cannot be opened, are discarded.
+     *
+     * @param name The String name of the log file, e.g. "server" or "client".
+     */
+	public static synchronized void start(String name) {
+		if (instance != null) {
+			return;
+		}
+		try {
+			File file = new File(System.getProperty("log.dir", "logs"), name + ".log");
+			long maxBytes = Long.getLong("log.maxBytes", 16L * 1024 * 1024);
+			int backups = Integer.getInteger("log.backups", 5);
+			EventLog log = new EventLog(new RollingFileAppender(file, maxBytes, backups));
+			Thread writer = new Thread(log::drain, "event-log-writer");
+			writer.setDaemon(true);
+			writer.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(log::drainRemaining));
+			instance = log;
+		} catch (IOException | IllegalArgumentException e) {
+			System.out.println("Event log disabled: " + e.getMessage());
+		}
+	}
+
+    /**
+     * This is the isEnabled method.
+     * Callers may use it to skip building a detail object for events that would be discarded.
+     *
+     * @param level The Level of the event.
+     *
+     * @return boolean true if events of this level are logged, false otherwise.
+     */
+	public static boolean isEnabled(Level level) {
+		EventLog log = instance;
+		return (log != null) && (level.compareTo(log.threshold) >= 0);
+	}
+
+    /**
+     * This is the log method.
+     * It records one event without formatting it and without blocking.
+     *
+     * @param level   The Level of the event.
+     * @param event   The Event kind, used for sampling.
+     * @param subject The String the event is about, e.g. a room id, or null.
+     * @param detail  The Object describing the event; its toString is called on the writer thread.
+     */
+	public static void log(Level level, Event event, String subject, Object detail) {
+		EventLog log = instance;
+		if ((log == null) || (level.compareTo(log.threshold) < 0)) {
+			return;
+		}
+		int rate = log.sampleRates[event.ordinal()];
+		if ((rate > 1) && (ThreadLocalRandom.current().nextInt(rate) != 0)) {
+			return;
+		}
+		log.publish(level, event, subject, detail);
+	}
+
+    /**
+     * This is the publish method.
+     * It claims the next free slot, fills it and publishes it, or drops the event if the ring is full.
+     *
+     * @param level   The Level of the event.
+     * @param event   The Event kind.
+     * @param subject The String the event is about.
+     * @param detail  The Object describing the event.
+     */
+	private void publish(Level level, Event event, String subject, Object detail) {
+		long sequence;
+		do {
+			sequence = claimed.get();
+			if (sequence - consumed >= CAPACITY) {
+				dropped.incrementAndGet();
+				return;
+			}
+		} while (!claimed.compareAndSet(sequence, sequence + 1));
+
+		Slot slot = slots[(int) (sequence & MASK)];
+		slot.timestamp = System.currentTimeMillis();
+		slot.level = level;
+		slot.event = event;
+		slot.subject = subject;
+		slot.detail = detail;
+		slot.sequence = sequence;
+	}
+
+    /**
+     * This is the drain method run by the writer thread.
+     * It writes published slots in order, flushing and parking briefly whenever the ring is empty.
+     */
+	private void drain() {
+		StringBuilder line = new StringBuilder(256);
+		while (true) {
+			if (!writeNext(line)) {
+				try {
+					appender.flush();
+				} catch (IOException e) {
+					// keep logging; the next flush may succeed
+				}
+				LockSupport.parkNanos(1_000_000);
+			}
+		}
+	}
+
+    /**
+     * This is the drainRemaining method run at shutdown.
+     * It writes whatever is still published in the ring and flushes the file.
+     */
+	private void drainRemaining() {
+		StringBuilder line = new StringBuilder(256);
+		while (writeNext(line)) {
+			// keep writing
+		}
+		try {
+			appender.flush();
+		} catch (IOException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+
+    /**
+     * This is the writeNext method.
+     * It formats and writes the next slot if it has been published.
+     *
+     * @param line The StringBuilder reused for formatting.
+     *
+     * @return boolean true if a slot was written, false if the ring is empty.
+     */
+	private synchronized boolean writeNext(StringBuilder line) {
+		long sequence = consumed;
+		Slot slot = slots[(int) (sequence & MASK)];
+		if (slot.sequence != sequence) {
+			return false;
+		}
+		line.setLength(0);
+		line.append("ts=").append(Instant.ofEpochMilli(slot.timestamp));
+		line.append(" level=").append(slot.level);
+		line.append(" event=").append(slot.event.getKey());
+		if (slot.subject != null) {
+			// Usually a room id chosen by a client, so it may hold spaces, '=' or line breaks
+			line.append(" subject=");
+			quote(line, slot.subject);
+		}
+		if (slot.detail != null) {
+			line.append(" detail=");
+			quote(line, String.valueOf(slot.detail));
+		}
+		long lost = dropped.getAndSet(0);
+		if (lost > 0) {
+			line.append(" dropped_before=").append(lost);
+		}
+		slot.subject = null;
+		slot.detail = null;
+		consumed = sequence + 1;
+		try {
+			appender.append(line);
+		} catch (IOException e) {
+			// the line is lost, but logging must never stop the game
+		}
+		return true;
+	}
+
+    /**
+     * This is the quote method.
+     * It appends a value in double quotes, escaping quotes, backslashes, line breaks and other control characters,
+     * so that a value never ends its line or starts another key.
+     *
+     * @param line  The StringBuilder being formatted.
+     * @param value The String value to be quoted.
+     */
+	private static void quote(StringBuilder line, String value) {
+		line.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if ((c == '"') || (c == '\\')) {
+				line.append('\\').append(c);
+			}
+			else if (c == '\n') {
+				line.append("\\n");
+			}
+			else if (c == '\r') {
+				line.append("\\r");
+			}
+			else if ((c < 0x20) || (c == 0x7F) || (c == '\u2028') || (c == '\u2029')) {
+				line.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				line.append(c);
+			}
+		}
+		line.append('"');
+	}
+}
@@ -0,0 +1,16 @@
+package Logging;
+
+/**
+ * This is the Level enum representing how important a logged event is.
+ * Events below the configured level are discarded before they reach the ring buffer.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public enum Level {
+	DEBUG,
+	INFO,
+	WARN,
+	ERROR
+}
@@ -0,0 +1,102 @@
+package Logging;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This is the RollingFileAppender class writing log lines to a local file.
+ * Once the file grows past its size limit it is renamed to name.1 (older files shift to name.2 and so on)
+ * and a fresh file is started. It is only used by the event log's background thread.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class RollingFileAppender {
+	private final File file;
+	private final long maxBytes;
+	private final int maxBackups;
+
+	private Writer writer;
+	private long written;
+
+    /**
+     * This is the constructor to construct a RollingFileAppender for the specified file.
+     *
+     * @param file       The File to write to; its parent directories are created if needed.
+     * @param maxBytes   The long size after which the file is rolled.
+     * @param maxBackups The Integer number of rolled files to keep.
+     *
+     * @throws IOException If the file cannot be opened.
+     */
+	public RollingFileAppender(File file, long maxBytes, int maxBackups) throws IOException {
+		this.file = file;
+		this.maxBytes = maxBytes;
+		this.maxBackups = maxBackups;
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		open();
+	}
+
+    /**
+     * This is the open method.
+     * It opens the current file for appending.
+     *
+     * @throws IOException If the file cannot be opened.
+     */
+	private void open() throws IOException {
+		written = file.length();
+		writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8), 64 * 1024);
+	}
+
+    /**
+     * This is the append method.
+     * It writes one line, rolling the file first if it is full.
+     *
+     * @param line The CharSequence line without its line separator.
+     *
+     * @throws IOException If the write fails.
+     */
+	public void append(CharSequence line) throws IOException {
+		if (written + line.length() + 1 > maxBytes) {
+			roll();
+		}
+		writer.append(line).append('\n');
+		written += line.length() + 1;
+	}
+
+    /**
+     * This is the flush method.
+     *
+     * @throws IOException If the flush fails.
+     */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+    /**
+     * This is the roll method.
+     * It closes the current file, shifts the backups and opens a fresh file.
+     *
+     * @throws IOException If the files cannot be renamed or opened.
+     */
+	private void roll() throws IOException {
+		writer.close();
+		new File(file.getPath() + "." + maxBackups).delete();
+		for (int i = maxBackups - 1; i >= 1; i--) {
+			File backup = new File(file.getPath() + "." + i);
+			if (backup.exists()) {
+				backup.renameTo(new File(file.getPath() + "." + (i + 1)));
+			}
+		}
+		if (maxBackups > 0) {
+			file.renameTo(new File(file.getPath() + ".1"));
+		}
+		else {
+			file.delete();
+		}
+		open();
+	}
+}
@@ -0,0 +1,124 @@
+package Metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This is the LatencyHistogram class, an HDR-style histogram of latencies in nanoseconds.
+ *
+ * Values below 256 get a bucket each; above that, every power of two is split into 128 buckets, so any
+ * recorded value is reported within 1% of its true size. Recording is one atomic increment with no
+ * allocation and no lock, so it can be called from any number of threads on the hot path.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+    /**
+     * This is the index method.
+     *
+     * @param value The long value, at least 0.
+     *
+     * @return int the bucket the value is counted in.
+     */
+	private static int index(long value) {
+		if (value < 2 * SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+    /**
+     * This is the highestValue method.
+     *
+     * @param index The Integer bucket index.
+     *
+     * @return long the highest value counted in the bucket.
+     */
+	private static long highestValue(int index) {
+		if (index < 2 * SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = (index % SUB_BUCKETS) + SUB_BUCKETS;
+		return (subBucket << shift) + ((1L << shift) - 1);
+	}
+
+    /**
+     * This is the record method.
+     *
+     * @param value The long latency in nanoseconds; negative values are counted as 0.
+     */
+	public void record(long value) {
+		long clamped = Math.max(0, value);
+		counts.incrementAndGet(index(clamped));
+		total.incrementAndGet();
+		long currentMax;
+		while (clamped > (currentMax = max.get()) && !max.compareAndSet(currentMax, clamped)) {
+			// retry until the maximum is at least this value
+		}
+	}
+
+    /**
+     * This is the getCount method.
+     *
+     * @return long the number of recorded values.
+     */
+	public long getCount() {
+		return total.get();
+	}
+
+    /**
+     * This is the getMax method.
+     *
+     * @return long the largest recorded value.
+     */
+	public long getMax() {
+		return max.get();
+	}
+
+    /**
+     * This is the percentile method.
+     *
+     * @param percentile The double percentile between 0 and 100, e.g. 99.9.
+     *
+     * @return long the value below or at which the given percentage of recorded values lie, or 0 if empty.
+     */
+	public long percentile(double percentile) {
+		long count = total.get();
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+    /**
+     * This is the reset method.
+     * It clears every bucket; values recorded concurrently may land before or after the reset.
+     */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		total.set(0);
+		max.set(0);
+	}
+}
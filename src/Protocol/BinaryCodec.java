@@ -0,0 +1,385 @@
+package Protocol;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This is the BinaryCodec class translating between messages and the compact binary protocol.
+ *
+ * A connection starts in the text protocol. A binary client opens with the handshake
+ * 0x00 'T' 'T' 'T' &lt;highest version&gt; '\n' and the server answers with the same six bytes carrying
+ * the version it picked, or version 0 if it cannot speak any version the client offered. Text lines
+ * never start with 0x00, and the trailing '\n' makes an old text server ignore the handshake as one
+ * unknown line, so either side can fall back to text.
+ *
+ * After the handshake every message is one frame: [length][type][payload], where length counts the type
+ * and payload bytes. A move is five bytes on the wire instead of a fifty-byte sentence. Frames of unknown
+ * types are skipped using their length, so later versions can add messages without breaking older peers.
+ *
+ * A snapshot packs five cells into each byte in base 3, so even a 32 x 32 board fits in one frame.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class BinaryCodec {
+	// The highest protocol version this codec speaks.
+	public static final int VERSION = 1;
+	// The length of the handshake in bytes.
+	public static final int HANDSHAKE_LENGTH = 6;
+	// The first byte of the handshake; no text line starts with it.
+	public static final byte HANDSHAKE_MARKER = 0;
+	// The frame type of a join naming a board other than 3 x 3: [size][win][room id]. Older peers skip it.
+	private static final int SIZED_JOIN = 15;
+	// The frame type of a join giving the player's rating: [size][win][skill, two bytes][room id].
+	private static final int RATED_JOIN = 18;
+	// The number of cells a snapshot packs into one byte; 3^5 = 243 values fit.
+	private static final int CELLS_PER_BYTE = 5;
+
+	private BinaryCodec() {
+	}
+
+	/**
+	 * This is the handshake method.
+	 *
+	 * @param version The Integer indicating the offered or chosen version.
+	 *
+	 * @return byte[] the handshake bytes.
+	 */
+	public static byte[] handshake(int version) {
+		return new byte[] { HANDSHAKE_MARKER, 'T', 'T', 'T', (byte) version, '\n' };
+	}
+
+	/**
+	 * This is the parseHandshake method.
+	 *
+	 * @param bytes  The byte array holding the handshake.
+	 * @param offset The Integer offset of the handshake in the array.
+	 *
+	 * @return int the version carried by the handshake, or -1 if the bytes are not a handshake.
+	 */
+	public static int parseHandshake(byte[] bytes, int offset) {
+		if ((bytes[offset] != HANDSHAKE_MARKER) || (bytes[offset + 1] != 'T') || (bytes[offset + 2] != 'T')
+				|| (bytes[offset + 3] != 'T') || (bytes[offset + 5] != '\n')) {
+			return -1;
+		}
+		return bytes[offset + 4] & 0xFF;
+	}
+
+	/**
+	 * This is the negotiate method.
+	 * It picks the version the server answers with for the version offered by a client.
+	 *
+	 * @param offered The Integer indicating the highest version offered by the client.
+	 *
+	 * @return int the chosen version, or 0 if none is supported.
+	 */
+	public static int negotiate(int offered) {
+		return (offered < 1) ? 0 : Math.min(offered, VERSION);
+	}
+
+	/**
+	 * This is the encode method.
+	 * It encodes a message into one frame.
+	 *
+	 * @param message The Message to be encoded.
+	 *
+	 * @return byte[] the frame bytes.
+	 */
+	public static byte[] encode(Message message) {
+		switch (message.getType()) {
+			case Message.JOIN: {
+				byte[] room = (message.getRoomId() == null) ? new byte[0] : message.getRoomId().getBytes(StandardCharsets.UTF_8);
+				if (room.length > Message.MAX_ROOM_ID_BYTES) {
+					throw new IllegalArgumentException("Room id is too long");
+				}
+				if (message.getSkill() != 0) {
+					byte[] frame = new byte[6 + room.length];
+					frame[0] = (byte) (5 + room.length);
+					frame[1] = RATED_JOIN;
+					frame[2] = (byte) message.getBoardSize();
+					frame[3] = (byte) message.getWinLength();
+					frame[4] = (byte) (message.getSkill() >>> 8);
+					frame[5] = (byte) message.getSkill();
+					System.arraycopy(room, 0, frame, 6, room.length);
+					return frame;
+				}
+				if (message.isClassicBoard()) {
+					byte[] frame = new byte[2 + room.length];
+					frame[0] = (byte) (1 + room.length);
+					frame[1] = Message.JOIN;
+					System.arraycopy(room, 0, frame, 2, room.length);
+					return frame;
+				}
+				byte[] frame = new byte[4 + room.length];
+				frame[0] = (byte) (3 + room.length);
+				frame[1] = SIZED_JOIN;
+				frame[2] = (byte) message.getBoardSize();
+				frame[3] = (byte) message.getWinLength();
+				System.arraycopy(room, 0, frame, 4, room.length);
+				return frame;
+			}
+			case Message.WATCH:
+			case Message.TOKEN:
+			case Message.RESUME: {
+				// The room id or the token, as the whole payload
+				byte[] text = ((message.getType() == Message.WATCH) ? message.getRoomId() : message.getToken()).getBytes(StandardCharsets.UTF_8);
+				if (text.length > 254) {
+					throw new IllegalArgumentException("Room id or token is too long");
+				}
+				byte[] frame = new byte[2 + text.length];
+				frame[0] = (byte) (1 + text.length);
+				frame[1] = (byte) message.getType();
+				System.arraycopy(text, 0, frame, 2, text.length);
+				return frame;
+			}
+			case Message.SNAPSHOT:
+				return encodeSnapshot(message);
+			case Message.JOINED:
+				if (!message.isClassicBoard()) {
+					return new byte[] { 4, Message.JOINED, (byte) message.getPlayer(), (byte) message.getBoardSize(), (byte) message.getWinLength() };
+				}
+				return new byte[] { 2, Message.JOINED, (byte) message.getPlayer() };
+			case Message.MOVE:
+			case Message.MOVED:
+			case Message.SUGGESTED:
+				return new byte[] { 4, (byte) message.getType(), (byte) message.getPlayer(), (byte) message.getRow(), (byte) message.getCol() };
+			case Message.REJECTED:
+			case Message.WIN:
+			case Message.HINT:
+				return new byte[] { 2, (byte) message.getType(), (byte) message.getPlayer() };
+			default:
+				return new byte[] { 1, (byte) message.getType() };
+		}
+	}
+
+	/**
+	 * This is the encodeSnapshot method.
+	 * It writes [size][win] followed by the cells row by row, five to a byte in base 3.
+	 *
+	 * @param message The Message of type SNAPSHOT.
+	 *
+	 * @return byte[] the frame bytes.
+	 */
+	private static byte[] encodeSnapshot(Message message) {
+		int size = message.getBoardSize();
+		int cellCount = size * size;
+		byte[] frame = new byte[4 + (cellCount + CELLS_PER_BYTE - 1) / CELLS_PER_BYTE];
+		frame[0] = (byte) (frame.length - 1);
+		frame[1] = Message.SNAPSHOT;
+		frame[2] = (byte) size;
+		frame[3] = (byte) message.getWinLength();
+		for (int cell = cellCount - 1; cell >= 0; cell--) {
+			int index = 4 + cell / CELLS_PER_BYTE;
+			frame[index] = (byte) ((frame[index] & 0xFF) * 3 + message.getCell(cell / size, cell % size));
+		}
+		return frame;
+	}
+
+	/**
+	 * This is the decodeSnapshot method.
+	 *
+	 * @param buffer The ByteBuffer holding the frame.
+	 * @param offset The Integer absolute offset of the type byte.
+	 * @param length The Integer length of type and payload.
+	 *
+	 * @return Message the decoded snapshot, or null if the payload does not hold the whole board.
+	 */
+	private static Message decodeSnapshot(ByteBuffer buffer, int offset, int length) {
+		if (length < 3) {
+			return null;
+		}
+		int size = buffer.get(offset + 1) & 0xFF;
+		int winLength = buffer.get(offset + 2) & 0xFF;
+		byte[] cells = new byte[size * size];
+		if (length < 3 + (cells.length + CELLS_PER_BYTE - 1) / CELLS_PER_BYTE) {
+			return null;
+		}
+		for (int first = 0; first < cells.length; first += CELLS_PER_BYTE) {
+			int packed = buffer.get(offset + 3 + first / CELLS_PER_BYTE) & 0xFF;
+			for (int cell = first; (cell < first + CELLS_PER_BYTE) && (cell < cells.length); cell++) {
+				cells[cell] = (byte) (packed % 3);
+				packed /= 3;
+			}
+		}
+		return Message.snapshot(size, winLength, cells);
+	}
+
+	/**
+	 * This is the decode method for buffered input.
+	 * It decodes the next complete frame, skipping frames of unknown types.
+	 * The buffer position is left at the first byte that has not been decoded.
+	 *
+	 * @param buffer The ByteBuffer in read mode holding the received bytes.
+	 *
+	 * @return Message the decoded message, or null if no complete frame is buffered.
+	 */
+	public static Message decode(ByteBuffer buffer) {
+		while (buffer.remaining() >= 1) {
+			int start = buffer.position();
+			int length = buffer.get(start) & 0xFF;
+			if (buffer.remaining() < 1 + length) {
+				return null;
+			}
+			buffer.position(start + 1 + length);
+			if (length == 0) {
+				continue;
+			}
+			Message message = decodeFrame(buffer, start + 1, length);
+			if (message != null) {
+				return message;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * This is the read method for blocking input.
+	 * It reads the next frame from a stream, skipping frames of unknown types.
+	 *
+	 * @param in The DataInputStream to read from.
+	 *
+	 * @return Message the decoded message, or null at the end of the stream.
+	 *
+	 * @throws IOException If the stream fails or ends inside a frame.
+	 */
+	public static Message read(DataInputStream in) throws IOException {
+		byte[] frame = new byte[255];
+		while (true) {
+			int length = in.read();
+			if (length < 0) {
+				return null;
+			}
+			in.readFully(frame, 0, length);
+			if (length == 0) {
+				continue;
+			}
+			Message message = decodeFrame(ByteBuffer.wrap(frame, 0, length), 0, length);
+			if (message != null) {
+				return message;
+			}
+		}
+	}
+
+	/**
+	 * This is the decodeFrame method.
+	 * It decodes the type and payload of one frame.
+	 *
+	 * @param buffer The ByteBuffer holding the frame.
+	 * @param offset The Integer absolute offset of the type byte.
+	 * @param length The Integer length of type and payload.
+	 *
+	 * @return Message the decoded message, or null if the type is unknown or the payload too short.
+	 */
+	private static Message decodeFrame(ByteBuffer buffer, int offset, int length) {
+		int type = buffer.get(offset);
+		switch (type) {
+			case Message.JOIN: {
+				if (length == 1) {
+					return Message.join(null);
+				}
+				byte[] room = new byte[length - 1];
+				for (int i = 0; i < room.length; i++) {
+					room[i] = buffer.get(offset + 1 + i);
+				}
+				// Checked once decoded, as invalid UTF-8 decodes to longer replacement characters
+				String roomId = new String(room, StandardCharsets.UTF_8);
+				return Message.isValidRoomId(roomId) ? Message.join(roomId) : null;
+			}
+			case SIZED_JOIN: {
+				if (length < 3) {
+					return null;
+				}
+				int boardSize = buffer.get(offset + 1) & 0xFF;
+				int winLength = buffer.get(offset + 2) & 0xFF;
+				byte[] room = new byte[length - 3];
+				for (int i = 0; i < room.length; i++) {
+					room[i] = buffer.get(offset + 3 + i);
+				}
+				String roomId = (room.length == 0) ? null : new String(room, StandardCharsets.UTF_8);
+				return Message.isValidRoomId(roomId) ? Message.join(roomId, boardSize, winLength) : null;
+			}
+			case RATED_JOIN: {
+				if (length < 5) {
+					return null;
+				}
+				int boardSize = buffer.get(offset + 1) & 0xFF;
+				int winLength = buffer.get(offset + 2) & 0xFF;
+				int skill = ((buffer.get(offset + 3) & 0xFF) << 8) | (buffer.get(offset + 4) & 0xFF);
+				byte[] room = new byte[length - 5];
+				for (int i = 0; i < room.length; i++) {
+					room[i] = buffer.get(offset + 5 + i);
+				}
+				String roomId = (room.length == 0) ? null : new String(room, StandardCharsets.UTF_8);
+				return Message.isValidRoomId(roomId) ? Message.join(roomId, boardSize, winLength, skill) : null;
+			}
+			case Message.WATCH:
+			case Message.TOKEN:
+			case Message.RESUME: {
+				if (length == 1) {
+					return null;
+				}
+				byte[] bytes = new byte[length - 1];
+				for (int i = 0; i < bytes.length; i++) {
+					bytes[i] = buffer.get(offset + 1 + i);
+				}
+				String text = new String(bytes, StandardCharsets.UTF_8);
+				if (type == Message.WATCH) {
+					return Message.isValidRoomId(text) ? Message.watch(text) : null;
+				}
+				return (type == Message.TOKEN) ? Message.token(text) : Message.resume(text);
+			}
+			case Message.SNAPSHOT:
+				return decodeSnapshot(buffer, offset, length);
+			case Message.MOVE:
+			case Message.MOVED:
+			case Message.SUGGESTED: {
+				if (length < 4) {
+					return null;
+				}
+				int player = buffer.get(offset + 1) & 0xFF;
+				int row = buffer.get(offset + 2) & 0xFF;
+				int col = buffer.get(offset + 3) & 0xFF;
+				if (type == Message.SUGGESTED) {
+					return Message.suggested(player, row, col);
+				}
+				return (type == Message.MOVE) ? Message.move(player, row, col) : Message.moved(player, row, col);
+			}
+			case Message.JOINED:
+			case Message.REJECTED:
+			case Message.WIN:
+			case Message.HINT: {
+				if (length < 2) {
+					return null;
+				}
+				int player = buffer.get(offset + 1) & 0xFF;
+				if (type == Message.JOINED) {
+					// Joined frames of larger boards carry [size][win] after the player
+					if (length >= 4) {
+						return Message.joined(player, buffer.get(offset + 2) & 0xFF, buffer.get(offset + 3) & 0xFF);
+					}
+					return Message.joined(player);
+				}
+				if (type == Message.HINT) {
+					return Message.hint(player);
+				}
+				return (type == Message.REJECTED) ? Message.rejected(player) : Message.win(player);
+			}
+			case Message.FULL:
+				return Message.full();
+			case Message.DRAW:
+				return Message.draw();
+			case Message.EXIT:
+				return Message.exit();
+			case Message.REMATCH:
+				return Message.rematch();
+			case Message.QUIT:
+				return Message.quit();
+			case Message.PLAY_BOT:
+				return Message.playBot();
+			default:
+				return null;
+		}
+	}
+}
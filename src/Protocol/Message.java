@@ -0,0 +1,541 @@
+package Protocol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This is the Message class representing one decoded protocol message, sent either by a client or by the server.
+ * Messages are immutable, so one broadcast message can be encoded for every player of a room,
+ * whichever wire format each of them negotiated.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class Message {
+	// Client to server: the player submitted their name, optionally asking for a room.
+	public static final int JOIN = 1;
+	// Server to client: Player 1 or Player 2 joined the game.
+	public static final int JOINED = 2;
+	// Server to client: the room already has two players.
+	public static final int FULL = 3;
+	// Client to server: the player pressed a button.
+	public static final int MOVE = 4;
+	// Server to client: a player successfully pressed a button.
+	public static final int MOVED = 5;
+	// Server to client: the move of the player was invalid.
+	public static final int REJECTED = 6;
+	// Server to client: a player wins.
+	public static final int WIN = 7;
+	// Server to client: the game is a draw.
+	public static final int DRAW = 8;
+	// Both ways: a player exits in the middle of the game.
+	public static final int EXIT = 9;
+	// Client to server: the player wants to play again.
+	public static final int REMATCH = 10;
+	// Client to server: the player wants to exit after the game ended.
+	public static final int QUIT = 11;
+	// Client to server: the player submitted their name to play against the computer.
+	public static final int PLAY_BOT = 12;
+	// Client to server: the player asks which button to press.
+	public static final int HINT = 13;
+	// Server to client: the best button for the player who asked for a hint.
+	public static final int SUGGESTED = 14;
+	// Client to server: the client wants to watch a room as a spectator. (Types 15 and 18 are used by BinaryCodec.)
+	public static final int WATCH = 16;
+	// Server to spectator: the whole board of the watched room; the moves that follow are sent one by one.
+	public static final int SNAPSHOT = 17;
+	// Server to client: the token that lets the client resume its game after its connection drops.
+	public static final int TOKEN = 19;
+	// Client to server: the client reconnected and wants to resume the game of a token.
+	public static final int RESUME = 20;
+
+	// The board of the original game, used when a join or joined message does not name one.
+	public static final int CLASSIC_SIZE = 3;
+
+	// The longest room id in UTF-8 bytes, so that every join frame and every journal record carries it whole.
+	public static final int MAX_ROOM_ID_BYTES = 250;
+
+	private static final Message FULL_MESSAGE = new Message(FULL, 0, 0, 0, null);
+	private static final Message DRAW_MESSAGE = new Message(DRAW, 0, 0, 0, null);
+	private static final Message EXIT_MESSAGE = new Message(EXIT, 0, 0, 0, null);
+	private static final Message REMATCH_MESSAGE = new Message(REMATCH, 0, 0, 0, null);
+	private static final Message QUIT_MESSAGE = new Message(QUIT, 0, 0, 0, null);
+	private static final Message PLAY_BOT_MESSAGE = new Message(PLAY_BOT, 0, 0, 0, null);
+
+	private final int type;
+	private final int player;
+	private final int row;
+	private final int col;
+	// The requested room of a join or watch message, or the token of a token or resume message.
+	private final String roomId;
+	private final int boardSize;
+	private final int winLength;
+	// The marks of a snapshot, row by row (0 free, 1 or 2 for the player); null for every other message.
+	private final byte[] cells;
+	// The rating a joining player is matched by, or 0 if the player gave none.
+	private final int skill;
+
+	// The text, text line and binary forms, each encoded at most once however many clients receive the message.
+	private volatile String text;
+	private volatile byte[] line;
+	private volatile byte[] frame;
+
+    /**
+     * This is the constructor for a message; use the static factory methods instead.
+     *
+     * @param type   The Integer indicating the message type.
+     * @param player The Integer indicating the player (1 or 2), or 0 if the message has none.
+     * @param row    The Integer indicating the row of the button.
+     * @param col    The Integer indicating the column of the button.
+     * @param roomId The String indicating the requested room, or null.
+     */
+	private Message(int type, int player, int row, int col, String roomId) {
+		this(type, player, row, col, roomId, CLASSIC_SIZE, CLASSIC_SIZE);
+	}
+
+    /**
+     * This is the constructor for a message naming a board; use the static factory methods instead.
+     *
+     * @param type      The Integer indicating the message type.
+     * @param player    The Integer indicating the player (1 or 2), or 0 if the message has none.
+     * @param row       The Integer indicating the row of the button.
+     * @param col       The Integer indicating the column of the button.
+     * @param roomId    The String indicating the requested room, or null.
+     * @param boardSize The Integer indicating the number of rows and columns of the board.
+     * @param winLength The Integer indicating the number of marks in a row that wins.
+     */
+	private Message(int type, int player, int row, int col, String roomId, int boardSize, int winLength) {
+		this(type, player, row, col, roomId, boardSize, winLength, 0, null);
+	}
+
+    /**
+     * This is the constructor for a message carrying a whole board; use the static factory methods instead.
+     *
+     * @param type      The Integer indicating the message type.
+     * @param player    The Integer indicating the player (1 or 2), or 0 if the message has none.
+     * @param row       The Integer indicating the row of the button.
+     * @param col       The Integer indicating the column of the button.
+     * @param roomId    The String indicating the requested room, or null.
+     * @param boardSize The Integer indicating the number of rows and columns of the board.
+     * @param winLength The Integer indicating the number of marks in a row that wins.
+     * @param skill     The Integer rating of a joining player, or 0.
+     * @param cells     The byte array of the board's marks row by row, owned by the message, or null.
+     */
+	private Message(int type, int player, int row, int col, String roomId, int boardSize, int winLength, int skill, byte[] cells) {
+		this.type = type;
+		this.player = player;
+		this.row = row;
+		this.col = col;
+		this.roomId = roomId;
+		this.boardSize = boardSize;
+		this.winLength = winLength;
+		this.skill = skill;
+		this.cells = cells;
+	}
+
+	/**
+	 * This is the join factory method.
+	 *
+	 * @param roomId The String indicating the requested room, or null to be placed into any room.
+	 *
+	 * @return Message the join message.
+	 */
+	public static Message join(String roomId) {
+		return new Message(JOIN, 0, 0, 0, roomId);
+	}
+
+	/**
+	 * This is the join factory method for a board other than 3 x 3.
+	 *
+	 * @param roomId    The String indicating the requested room, or null to be placed into any room with this board.
+	 * @param boardSize The Integer indicating the number of rows and columns of the board.
+	 * @param winLength The Integer indicating the number of marks in a row that wins.
+	 *
+	 * @return Message the join message.
+	 */
+	public static Message join(String roomId, int boardSize, int winLength) {
+		return new Message(JOIN, 0, 0, 0, roomId, boardSize, winLength);
+	}
+
+	/**
+	 * This is the join factory method for a player who gives a rating.
+	 * Players without a room id are matched with players of a similar rating if the server groups them by skill.
+	 *
+	 * @param roomId    The String indicating the requested room, or null to be matched with another player.
+	 * @param boardSize The Integer indicating the number of rows and columns of the board.
+	 * @param winLength The Integer indicating the number of marks in a row that wins.
+	 * @param skill     The Integer rating of the player, from 0 to 9999.
+	 *
+	 * @return Message the join message.
+	 */
+	public static Message join(String roomId, int boardSize, int winLength, int skill) {
+		return new Message(JOIN, 0, 0, 0, roomId, boardSize, winLength, skill, null);
+	}
+
+	/**
+	 * This is the joined factory method.
+	 *
+	 * @param player The Integer indicating the player that joined (1 or 2).
+	 *
+	 * @return Message the joined message.
+	 */
+	public static Message joined(int player) {
+		return new Message(JOINED, player, 0, 0, null);
+	}
+
+	/**
+	 * This is the joined factory method for a room whose board may differ from 3 x 3.
+	 *
+	 * @param player    The Integer indicating the player that joined (1 or 2).
+	 * @param boardSize The Integer indicating the number of rows and columns of the room's board.
+	 * @param winLength The Integer indicating the number of marks in a row that wins.
+	 *
+	 * @return Message the joined message.
+	 */
+	public static Message joined(int player, int boardSize, int winLength) {
+		return new Message(JOINED, player, 0, 0, null, boardSize, winLength);
+	}
+
+	/**
+	 * This is the full factory method.
+	 *
+	 * @return Message the players are full message.
+	 */
+	public static Message full() {
+		return FULL_MESSAGE;
+	}
+
+	/**
+	 * This is the move factory method.
+	 *
+	 * @param player The Integer indicating the player pressing the button.
+	 * @param row    The Integer indicating the row of the button.
+	 * @param col    The Integer indicating the column of the button.
+	 *
+	 * @return Message the move message.
+	 */
+	public static Message move(int player, int row, int col) {
+		return new Message(MOVE, player, row, col, null);
+	}
+
+	/**
+	 * This is the moved factory method.
+	 *
+	 * @param player The Integer indicating the player who pressed the button.
+	 * @param row    The Integer indicating the row of the button.
+	 * @param col    The Integer indicating the column of the button.
+	 *
+	 * @return Message the successful move message.
+	 */
+	public static Message moved(int player, int row, int col) {
+		return new Message(MOVED, player, row, col, null);
+	}
+
+	/**
+	 * This is the rejected factory method.
+	 *
+	 * @param player The Integer indicating the player whose move was invalid.
+	 *
+	 * @return Message the failed move message.
+	 */
+	public static Message rejected(int player) {
+		return new Message(REJECTED, player, 0, 0, null);
+	}
+
+	/**
+	 * This is the win factory method.
+	 *
+	 * @param player The Integer indicating the winning player.
+	 *
+	 * @return Message the win message.
+	 */
+	public static Message win(int player) {
+		return new Message(WIN, player, 0, 0, null);
+	}
+
+	/**
+	 * This is the draw factory method.
+	 *
+	 * @return Message the draw message.
+	 */
+	public static Message draw() {
+		return DRAW_MESSAGE;
+	}
+
+	/**
+	 * This is the exit factory method.
+	 *
+	 * @return Message the player exits message.
+	 */
+	public static Message exit() {
+		return EXIT_MESSAGE;
+	}
+
+	/**
+	 * This is the rematch factory method.
+	 *
+	 * @return Message the play again message.
+	 */
+	public static Message rematch() {
+		return REMATCH_MESSAGE;
+	}
+
+	/**
+	 * This is the quit factory method.
+	 *
+	 * @return Message the player wants to exit message.
+	 */
+	public static Message quit() {
+		return QUIT_MESSAGE;
+	}
+
+	/**
+	 * This is the playBot factory method.
+	 *
+	 * @return Message the play against the computer message.
+	 */
+	public static Message playBot() {
+		return PLAY_BOT_MESSAGE;
+	}
+
+	/**
+	 * This is the hint factory method.
+	 *
+	 * @param player The Integer indicating the player asking for a hint.
+	 *
+	 * @return Message the hint request message.
+	 */
+	public static Message hint(int player) {
+		return new Message(HINT, player, 0, 0, null);
+	}
+
+	/**
+	 * This is the suggested factory method.
+	 *
+	 * @param player The Integer indicating the player who asked for a hint.
+	 * @param row    The Integer indicating the row of the best button.
+	 * @param col    The Integer indicating the column of the best button.
+	 *
+	 * @return Message the hint answer message.
+	 */
+	public static Message suggested(int player, int row, int col) {
+		return new Message(SUGGESTED, player, row, col, null);
+	}
+
+	/**
+	 * This is the watch factory method.
+	 *
+	 * @param roomId The String indicating the room to be watched.
+	 *
+	 * @return Message the watch message.
+	 */
+	public static Message watch(String roomId) {
+		return new Message(WATCH, 0, 0, 0, roomId);
+	}
+
+	/**
+	 * This is the snapshot factory method.
+	 *
+	 * @param boardSize The Integer indicating the number of rows and columns of the board.
+	 * @param winLength The Integer indicating the number of marks in a row that wins.
+	 * @param cells     The byte array of the marks row by row (0, 1 or 2); it is copied.
+	 *
+	 * @return Message the snapshot message.
+	 *
+	 * @throws IllegalArgumentException If there is not exactly one mark per cell.
+	 */
+	public static Message snapshot(int boardSize, int winLength, byte[] cells) {
+		if (cells.length != boardSize * boardSize) {
+			throw new IllegalArgumentException("A " + boardSize + "x" + boardSize + " snapshot needs " + (boardSize * boardSize) + " cells");
+		}
+		return new Message(SNAPSHOT, 0, 0, 0, null, boardSize, winLength, 0, cells.clone());
+	}
+
+	/**
+	 * This is the token factory method.
+	 *
+	 * @param token The String token identifying the client's session.
+	 *
+	 * @return Message the resume token message.
+	 */
+	public static Message token(String token) {
+		return new Message(TOKEN, 0, 0, 0, token);
+	}
+
+	/**
+	 * This is the resume factory method.
+	 *
+	 * @param token The String token the server sent when the client joined.
+	 *
+	 * @return Message the resume message.
+	 */
+	public static Message resume(String token) {
+		return new Message(RESUME, 0, 0, 0, token);
+	}
+
+	/**
+	 * This is the message type getter method.
+	 *
+	 * @return int the message type.
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * This is the player getter method.
+	 *
+	 * @return int the player (1 or 2), or 0 if the message has none.
+	 */
+	public int getPlayer() {
+		return player;
+	}
+
+	/**
+	 * This is the row getter method.
+	 *
+	 * @return int the row of the button.
+	 */
+	public int getRow() {
+		return row;
+	}
+
+	/**
+	 * This is the column getter method.
+	 *
+	 * @return int the column of the button.
+	 */
+	public int getCol() {
+		return col;
+	}
+
+	/**
+	 * This is the room id getter method.
+	 *
+	 * @return String the requested room, or null.
+	 */
+	public String getRoomId() {
+		return roomId;
+	}
+
+	/**
+	 * This is the token getter method.
+	 *
+	 * @return String the token of a token or resume message, or null.
+	 */
+	public String getToken() {
+		return ((type == TOKEN) || (type == RESUME)) ? roomId : null;
+	}
+
+	/**
+	 * This is the board size getter method.
+	 *
+	 * @return int the number of rows and columns of the board, 3 unless a join or joined message names another.
+	 */
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	/**
+	 * This is the win length getter method.
+	 *
+	 * @return int the number of marks in a row that wins, 3 unless a join or joined message names another.
+	 */
+	public int getWinLength() {
+		return winLength;
+	}
+
+	/**
+	 * This is the skill getter method.
+	 *
+	 * @return int the rating a joining player gave, or 0.
+	 */
+	public int getSkill() {
+		return skill;
+	}
+
+	/**
+	 * This is the cell getter method of a snapshot.
+	 *
+	 * @param row The Integer indicating the row of the button.
+	 * @param col The Integer indicating the column of the button.
+	 *
+	 * @return int 1 or 2 for the player who marked the cell, 0 if it is free or the message is not a snapshot.
+	 */
+	public int getCell(int row, int col) {
+		return (cells == null) ? 0 : cells[row * boardSize + col];
+	}
+
+	/**
+	 * This is the isValidRoomId method.
+	 * The codecs decode no join or watch naming a longer room, so the server never hosts one.
+	 *
+	 * @param roomId The String indicating a room, or null for none.
+	 *
+	 * @return boolean true if the id is null or at most MAX_ROOM_ID_BYTES long in UTF-8.
+	 */
+	public static boolean isValidRoomId(String roomId) {
+		return (roomId == null) || (roomId.length() * 3 <= MAX_ROOM_ID_BYTES)
+				|| (roomId.getBytes(StandardCharsets.UTF_8).length <= MAX_ROOM_ID_BYTES);
+	}
+
+	/**
+	 * This is the isClassicBoard method.
+	 *
+	 * @return boolean true if the message is about the original 3 x 3 board.
+	 */
+	public boolean isClassicBoard() {
+		return (boardSize == CLASSIC_SIZE) && (winLength == CLASSIC_SIZE);
+	}
+
+	/**
+	 * This is the toText method.
+	 * It returns the text form of the message, encoding it on first use.
+	 *
+	 * @return String the line sent to text clients.
+	 */
+	public String toText() {
+		String result = text;
+		if (result == null) {
+			result = TextCodec.encode(this);
+			text = result;
+		}
+		return result;
+	}
+
+	/**
+	 * This is the toLine method.
+	 * It returns the text form as UTF-8 bytes ending with a line separator, encoding it on first use.
+	 * The array must not be modified.
+	 *
+	 * @return byte[] the bytes written to text clients.
+	 */
+	public byte[] toLine() {
+		byte[] result = line;
+		if (result == null) {
+			result = (toText() + "\n").getBytes(StandardCharsets.UTF_8);
+			line = result;
+		}
+		return result;
+	}
+
+	/**
+	 * This is the toFrame method.
+	 * It returns the binary frame of the message, encoding it on first use. The array must not be modified.
+	 *
+	 * @return byte[] the frame sent to binary clients.
+	 */
+	public byte[] toFrame() {
+		byte[] result = frame;
+		if (result == null) {
+			result = BinaryCodec.encode(this);
+			frame = result;
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return toText();
+	}
+}
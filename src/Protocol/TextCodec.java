@@ -0,0 +1,316 @@
+package Protocol;
+
+/**
+ * This is the TextCodec class translating between messages and the original English line protocol,
+ * e.g. "Player 1 pressed the Button at row 1 and col 2". It is kept for clients that do not negotiate
+ * the binary protocol. Lines are matched on their fixed prefixes and numbers are read at fixed offsets,
+ * so decoding does not split the line.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class TextCodec {
+	private static final String NAME_SUBMITTED = "Name Submitted";
+	private static final String ROOM = " room ";
+	private static final String VS_COMPUTER = " vs computer";
+	private static final String SIZE = " size ";
+	private static final String WIN = " win ";
+	private static final String SKILL = " skill ";
+	private static final String JOINED = " joined successfully";
+	private static final String ON_A = " on a ";
+	private static final String BOARD_WITH = " board with ";
+	private static final String PRESSED = " pressed the Button at row ";
+	private static final String SUCCESSFULLY_PRESSED = " successfully pressed the Button at row ";
+	private static final String SHOULD_PRESS = " should press the Button at row ";
+	private static final String AND_COL = " and col ";
+	private static final String WATCHES = "Spectator watches room ";
+	private static final String BOARD = "Board ";
+	private static final String RESUME_TOKEN = "Resume token ";
+	private static final String RESUME_GAME = "Resume game ";
+	private static final String IN_A_ROW = " in a row: ";
+
+	private TextCodec() {
+	}
+
+	/**
+	 * This is the decode method.
+	 * It decodes one line received from a client or from the server.
+	 *
+	 * @param line The String line without its line separator.
+	 *
+	 * @return Message the decoded message, or null if the line is not part of the protocol.
+	 */
+	public static Message decode(String line) {
+		if (line.startsWith(NAME_SUBMITTED)) {
+			if (line.startsWith(VS_COMPUTER, NAME_SUBMITTED.length())) {
+				return Message.playBot();
+			}
+			String roomId = null;
+			int room = line.indexOf(ROOM, NAME_SUBMITTED.length());
+			if (room >= 0) {
+				int start = room + ROOM.length();
+				int end = line.indexOf(' ', start);
+				roomId = (end < 0) ? line.substring(start) : line.substring(start, end);
+				if (!Message.isValidRoomId(roomId)) {
+					return null;
+				}
+			}
+			// An optional " skill <n>" gives the player's rating
+			int skill = line.indexOf(SKILL, NAME_SUBMITTED.length());
+			int rating = (skill < 0) ? 0 : Math.max(0, parseNumber(line, skill + SKILL.length(), numberEnd(line, skill + SKILL.length())));
+			// An optional " size <n> win <k>" asks for a larger board
+			int size = line.indexOf(SIZE, NAME_SUBMITTED.length());
+			if (size >= 0) {
+				int sizeEnd = numberEnd(line, size + SIZE.length());
+				if (line.startsWith(WIN, sizeEnd)) {
+					int winStart = sizeEnd + WIN.length();
+					int boardSize = parseNumber(line, size + SIZE.length(), sizeEnd);
+					int winLength = parseNumber(line, winStart, numberEnd(line, winStart));
+					if ((boardSize > 0) && (winLength > 0)) {
+						return Message.join(roomId, boardSize, winLength, rating);
+					}
+				}
+			}
+			return (rating == 0) ? Message.join(roomId) : Message.join(roomId, Message.CLASSIC_SIZE, Message.CLASSIC_SIZE, rating);
+		}
+		if (line.startsWith(WATCHES)) {
+			String roomId = line.substring(WATCHES.length());
+			return (!roomId.isEmpty() && Message.isValidRoomId(roomId)) ? Message.watch(roomId) : null;
+		}
+		if (line.startsWith(RESUME_TOKEN) && (line.length() > RESUME_TOKEN.length())) {
+			return Message.token(line.substring(RESUME_TOKEN.length()));
+		}
+		if (line.startsWith(RESUME_GAME) && (line.length() > RESUME_GAME.length())) {
+			return Message.resume(line.substring(RESUME_GAME.length()));
+		}
+		if (line.startsWith(BOARD)) {
+			return parseSnapshot(line);
+		}
+		if (line.startsWith("Player Exits")) {
+			return Message.exit();
+		}
+		if (line.startsWith("Player wants to play again")) {
+			return Message.rematch();
+		}
+		if (line.startsWith("Player wants to exit")) {
+			return Message.quit();
+		}
+		if (line.startsWith("Players are full")) {
+			return Message.full();
+		}
+		if (line.startsWith("Draw")) {
+			return Message.draw();
+		}
+		if (!line.startsWith("Player ") || line.length() < 9) {
+			return null;
+		}
+
+		// Every remaining line starts with "Player 1" or "Player 2"
+		int player = line.charAt(7) - '0';
+		if ((player != 1) && (player != 2)) {
+			return null;
+		}
+		if (line.startsWith(PRESSED, 8)) {
+			return parseCell(line, 8 + PRESSED.length(), player, Message.MOVE);
+		}
+		if (line.startsWith(SUCCESSFULLY_PRESSED, 8)) {
+			return parseCell(line, 8 + SUCCESSFULLY_PRESSED.length(), player, Message.MOVED);
+		}
+		if (line.startsWith(SHOULD_PRESS, 8)) {
+			return parseCell(line, 8 + SHOULD_PRESS.length(), player, Message.SUGGESTED);
+		}
+		if (line.startsWith(" asks for a hint", 8)) {
+			return Message.hint(player);
+		}
+		if (line.startsWith(JOINED, 8)) {
+			// An optional " on a <n>x<n> board with <k> in a row" names a board other than 3 x 3
+			int sizeStart = 8 + JOINED.length() + ON_A.length();
+			if (line.startsWith(ON_A, 8 + JOINED.length())) {
+				int sizeEnd = numberEnd(line, sizeStart);
+				int winStart = line.indexOf(BOARD_WITH, sizeEnd) + BOARD_WITH.length();
+				int boardSize = parseNumber(line, sizeStart, sizeEnd);
+				int winLength = (winStart < BOARD_WITH.length()) ? -1 : parseNumber(line, winStart, numberEnd(line, winStart));
+				if ((boardSize > 0) && (winLength > 0)) {
+					return Message.joined(player, boardSize, winLength);
+				}
+			}
+			return Message.joined(player);
+		}
+		if (line.startsWith(" failed to press the Button", 8)) {
+			return Message.rejected(player);
+		}
+		if (line.startsWith(" wins", 8)) {
+			return Message.win(player);
+		}
+		return null;
+	}
+
+	/**
+	 * This is the parseCell method.
+	 * It reads "&lt;row&gt; and col &lt;col&gt;" starting at the given offset.
+	 *
+	 * @param line   The String line being decoded.
+	 * @param offset The Integer offset of the row number.
+	 * @param player The Integer indicating the player of the move.
+	 * @param type   The Integer indicating MOVE, MOVED or SUGGESTED.
+	 *
+	 * @return Message the decoded move, or null if the numbers are malformed.
+	 */
+	private static Message parseCell(String line, int offset, int player, int type) {
+		int rowEnd = offset;
+		int row = 0;
+		while ((rowEnd < line.length()) && Character.isDigit(line.charAt(rowEnd))) {
+			row = row * 10 + (line.charAt(rowEnd++) - '0');
+		}
+		if ((rowEnd == offset) || !line.startsWith(AND_COL, rowEnd)) {
+			return null;
+		}
+		int colStart = rowEnd + AND_COL.length();
+		int colEnd = colStart;
+		int col = 0;
+		while ((colEnd < line.length()) && Character.isDigit(line.charAt(colEnd))) {
+			col = col * 10 + (line.charAt(colEnd++) - '0');
+		}
+		if (colEnd == colStart) {
+			return null;
+		}
+		if (type == Message.SUGGESTED) {
+			return Message.suggested(player, row, col);
+		}
+		return (type == Message.MOVE) ? Message.move(player, row, col) : Message.moved(player, row, col);
+	}
+
+	/**
+	 * This is the parseSnapshot method.
+	 * It reads "Board &lt;n&gt;x&lt;n&gt; with &lt;k&gt; in a row: &lt;cells&gt;", where cells holds one digit per cell, row by row.
+	 *
+	 * @param line The String line being decoded.
+	 *
+	 * @return Message the decoded snapshot, or null if the line is malformed.
+	 */
+	private static Message parseSnapshot(String line) {
+		int sizeEnd = numberEnd(line, BOARD.length());
+		int boardSize = parseNumber(line, BOARD.length(), sizeEnd);
+		int winStart = line.indexOf(" with ", sizeEnd) + " with ".length();
+		if ((boardSize <= 0) || (winStart < " with ".length())) {
+			return null;
+		}
+		int winEnd = numberEnd(line, winStart);
+		int winLength = parseNumber(line, winStart, winEnd);
+		int cellStart = winEnd + IN_A_ROW.length();
+		if ((winLength <= 0) || !line.startsWith(IN_A_ROW, winEnd) || (line.length() - cellStart != boardSize * boardSize)) {
+			return null;
+		}
+		byte[] cells = new byte[boardSize * boardSize];
+		for (int i = 0; i < cells.length; i++) {
+			int mark = line.charAt(cellStart + i) - '0';
+			if ((mark < 0) || (mark > 2)) {
+				return null;
+			}
+			cells[i] = (byte) mark;
+		}
+		return Message.snapshot(boardSize, winLength, cells);
+	}
+
+	/**
+	 * This is the numberEnd method.
+	 *
+	 * @param line   The String line being decoded.
+	 * @param offset The Integer offset the number starts at.
+	 *
+	 * @return int the offset of the first character after the digits.
+	 */
+	private static int numberEnd(String line, int offset) {
+		int end = offset;
+		while ((end < line.length()) && Character.isDigit(line.charAt(end))) {
+			end++;
+		}
+		return end;
+	}
+
+	/**
+	 * This is the parseNumber method.
+	 *
+	 * @param line  The String line being decoded.
+	 * @param start The Integer offset of the first digit.
+	 * @param end   The Integer offset after the last digit.
+	 *
+	 * @return int the number, or -1 if there are no digits or too many.
+	 */
+	private static int parseNumber(String line, int start, int end) {
+		if ((end == start) || (end - start > 4)) {
+			return -1;
+		}
+		return Integer.parseInt(line, start, end, 10);
+	}
+
+	/**
+	 * This is the encode method.
+	 * It encodes a message into one line of the text protocol.
+	 *
+	 * @param message The Message to be encoded.
+	 *
+	 * @return String the line without its line separator.
+	 */
+	public static String encode(Message message) {
+		switch (message.getType()) {
+			case Message.JOIN: {
+				String line = (message.getRoomId() == null) ? NAME_SUBMITTED : NAME_SUBMITTED + ROOM + message.getRoomId();
+				if (!message.isClassicBoard()) {
+					line = line + SIZE + message.getBoardSize() + WIN + message.getWinLength();
+				}
+				return (message.getSkill() == 0) ? line : line + SKILL + message.getSkill();
+			}
+			case Message.PLAY_BOT:
+				return NAME_SUBMITTED + VS_COMPUTER;
+			case Message.JOINED:
+				if (!message.isClassicBoard()) {
+					return "Player " + message.getPlayer() + JOINED + ON_A + message.getBoardSize() + "x" + message.getBoardSize()
+							+ BOARD_WITH + message.getWinLength() + " in a row";
+				}
+				return "Player " + message.getPlayer() + JOINED;
+			case Message.FULL:
+				return "Players are full";
+			case Message.MOVE:
+				return "Player " + message.getPlayer() + PRESSED + message.getRow() + AND_COL + message.getCol();
+			case Message.MOVED:
+				return "Player " + message.getPlayer() + SUCCESSFULLY_PRESSED + message.getRow() + AND_COL + message.getCol();
+			case Message.REJECTED:
+				return "Player " + message.getPlayer() + " failed to press the Button";
+			case Message.HINT:
+				return "Player " + message.getPlayer() + " asks for a hint";
+			case Message.SUGGESTED:
+				return "Player " + message.getPlayer() + SHOULD_PRESS + message.getRow() + AND_COL + message.getCol();
+			case Message.WIN:
+				return "Player " + message.getPlayer() + " wins";
+			case Message.WATCH:
+				return WATCHES + message.getRoomId();
+			case Message.TOKEN:
+				return RESUME_TOKEN + message.getToken();
+			case Message.RESUME:
+				return RESUME_GAME + message.getToken();
+			case Message.SNAPSHOT: {
+				int size = message.getBoardSize();
+				StringBuilder line = new StringBuilder(32 + size * size);
+				line.append(BOARD).append(size).append('x').append(size).append(" with ").append(message.getWinLength()).append(IN_A_ROW);
+				for (int row = 0; row < size; row++) {
+					for (int col = 0; col < size; col++) {
+						line.append((char) ('0' + message.getCell(row, col)));
+					}
+				}
+				return line.toString();
+			}
+			case Message.DRAW:
+				return "Draw";
+			case Message.EXIT:
+				return "Player Exits";
+			case Message.REMATCH:
+				return "Player wants to play again";
+			case Message.QUIT:
+				return "Player wants to exit";
+			default:
+				throw new IllegalArgumentException("Unknown message type " + message.getType());
+		}
+	}
+}
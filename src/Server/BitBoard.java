@@ -0,0 +1,64 @@
+package Server;
+
+/**
+ * This is the BitBoard class holding the bit layout of the 3 x 3 game board, where a player's marks are a bitmask.
+ * Cell (row, col) is bit (row * 3 + col). Checking a mask for a win is one lookup in a precomputed table, and
+ * a full board is the mask FULL. The boards themselves keep their masks elsewhere, e.g. both in one word of SharedView.
+ * 
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class BitBoard {
+	// The mask with all nine cells set.
+	public static final int FULL = 0x1FF;
+
+	// The eight winning lines: three rows, three columns and the two diagonals.
+	public static final int[] LINES = {
+		0b000_000_111, 0b000_111_000, 0b111_000_000,
+		0b001_001_001, 0b010_010_010, 0b100_100_100,
+		0b100_010_001, 0b001_010_100
+	};
+
+	// WINNING[mask] is true if the marks in mask complete at least one line, precomputed from LINES.
+	private static final boolean[] WINNING = new boolean[FULL + 1];
+	static {
+		for (int mask = 0; mask <= FULL; mask++) {
+			for (int line : LINES) {
+				if ((mask & line) == line) {
+					WINNING[mask] = true;
+				}
+			}
+		}
+	}
+
+	private BitBoard() {
+	}
+
+    /**
+     * This is the cell method.
+     * It converts a row and a column into the bit index of the cell.
+     *
+     * @param row The Integer indicating the row of the cell.
+     * @param col The Integer indicating the column of the cell.
+     * 
+     * @return int the bit index of the cell, or -1 if it is outside the board.
+     */
+	public static int cell(int row, int col) {
+		if ((row < 0) || (row > 2) || (col < 0) || (col > 2)) {
+			return -1;
+		}
+		return row * 3 + col;
+	}
+
+    /**
+     * This is the isWinningMask method.
+     *
+     * @param mask The Integer bitmask of one player's marks.
+     * 
+     * @return boolean true if the marks complete a line, false otherwise.
+     */
+	public static boolean isWinningMask(int mask) {
+		return WINNING[mask & FULL];
+	}
+}
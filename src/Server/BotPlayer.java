@@ -0,0 +1,89 @@
+package Server;
+
+import Bot.AlphaBeta;
+import Bot.PerfectPlay;
+import Protocol.Message;
+
+import java.util.concurrent.*;
+
+/**
+ * This is the BotPlayer class representing the computer opponent seated in a room as Player 2.
+ * It joins the room like any other connection and receives the room's broadcasts through send.
+ * When the human player has moved, it looks its answer up in the perfect-play table, falling back to a search
+ * for positions the table does not hold. Answers are found on a shared executor sized to the number of cores,
+ * so they never run on, or block, the threads serving connections.
+ *
+ * Configuration (system properties): bot.budgetMillis (default 20), the time one search may take.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class BotPlayer implements Connection {
+	// The seat the computer always takes; the human joins first and moves first.
+	public static final int PLAYER = 2;
+	private static final long BUDGET_NANOS = Long.getLong("bot.budgetMillis", 20) * 1_000_000;
+
+	private static final ExecutorService SEARCHES = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+		Thread thread = new Thread(runnable, "bot-search");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Room room;
+	private volatile boolean closed;
+
+    /**
+     * This is the constructor to construct a computer opponent for the specified room.
+     *
+     * @param room The Room the computer plays in.
+     */
+	public BotPlayer(Room room) {
+		this.room = room;
+	}
+
+    /**
+     * This is the send method receiving the room's broadcasts.
+     * It only schedules a search; it is called by the thread that moved and must return at once.
+     *
+     * @param message The Message broadcast to the room.
+     */
+	@Override
+	public void send(Message message) {
+		if (!closed && (message.getType() == Message.MOVED) && (message.getPlayer() != PLAYER)) {
+			SEARCHES.execute(() -> answer(message.getRow() * 3 + message.getCol()));
+		}
+	}
+
+    /**
+     * This is the answer method run on the search executor.
+     * It searches the current board and moves, unless the opponent's move ended the game meanwhile.
+     *
+     * @param opponentCell The Integer cell the opponent just took.
+     */
+	private void answer(int opponentCell) {
+		int marks = room.getSharedView().getMarks();
+		int opponent = marks & 0x1FF;
+		int mine = marks >>> 9;
+		// A finished game has already been restarted, which clears the opponent's last move
+		if (closed || ((opponent & (1 << opponentCell)) == 0)) {
+			return;
+		}
+		int cell = PerfectPlay.bestMove(opponent, mine);
+		if (cell < 0) {
+			cell = AlphaBeta.bestMove(mine, opponent, BUDGET_NANOS);
+		}
+		if (cell >= 0) {
+			room.move(this, cell / 3, cell % 3);
+		}
+	}
+
+    /**
+     * This is the close method.
+     * It stops the computer from moving; the room it played in is left by the session that created it.
+     */
+	@Override
+	public void close() {
+		closed = true;
+	}
+}
@@ -0,0 +1,38 @@
+package Server;
+
+import Protocol.Message;
+
+/**
+ * This is the Connection interface representing one connected client, independent of the transport serving it.
+ * Rooms and sessions only talk to clients through this interface, so the same game logic runs
+ * on top of the blocking thread-per-client server and the non-blocking selector server, and each
+ * connection encodes messages in the wire format its client negotiated.
+ * 
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public interface Connection {
+
+    /**
+     * This is the send method.
+     * It sends one message to the client.
+     *
+     * @param message The Message to be sent.
+     */
+	void send(Message message);
+
+    /**
+     * This is the setLowPriority method.
+     * It tells the transport that this client only watches, so its writes may give way to the players'.
+     * Transports that write every connection on its own thread may ignore it.
+     */
+	default void setLowPriority() {
+	}
+
+    /**
+     * This is the close method.
+     * It closes the underlying connection to the client.
+     */
+	void close();
+}
@@ -0,0 +1,71 @@
+package Server;
+
+/**
+ * This is the GameBoard interface representing the board of one room.
+ * The classic 3 x 3 game is played on a SharedView; larger boards, such as 15 x 15 five-in-a-row,
+ * are played on a GridBoard. Implementations are safe to use from several threads at once.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public interface GameBoard {
+
+    /**
+     * This is the MoveResult enum representing the outcome of applyMove.
+     */
+	enum MoveResult {
+		// The mark was placed and the game goes on.
+		PLACED,
+		// The cell was taken or invalid, it was not the player's turn, or the game is already over; the board did not change.
+		REJECTED,
+		// The mark was placed and completes a line for the player.
+		WIN,
+		// The mark was placed on the last free cell without completing a line.
+		DRAW
+	}
+
+    /**
+     * This is the applyMove method.
+     * It places the player's mark and evaluates the board in one atomic step.
+     * Player 1 moves first and the players take turns; a move out of turn is rejected.
+     * Once a move wins or draws, further moves are rejected until the board is restarted.
+     *
+     * @param player The Integer indicating the player (1 or 2).
+     * @param row    The Integer indicating the row of the button.
+     * @param col    The Integer indicating the column of the button.
+     *
+     * @return MoveResult the outcome of the move.
+     */
+	MoveResult applyMove(int player, int row, int col);
+
+    /**
+     * This is the get method.
+     *
+     * @param row The Integer indicating the row of the button.
+     * @param col The Integer indicating the column of the button.
+     *
+     * @return int 1 or 2 for the player who marked the cell, 0 if it is free.
+     */
+	int get(int row, int col);
+
+    /**
+     * This is the size getter method.
+     *
+     * @return int the number of rows, which is also the number of columns.
+     */
+	int getSize();
+
+    /**
+     * This is the win length getter method.
+     *
+     * @return int the number of marks in a row that wins.
+     */
+	int getWinLength();
+
+    /**
+     * This is the restart method.
+     * It restarts the game by resetting the game board.
+     */
+	void restart();
+}
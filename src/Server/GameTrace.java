@@ -0,0 +1,64 @@
+package Server;
+
+import History.GameHistory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This is the GameTrace class recording the order of the moves of one game of a room for the game history.
+ * Moves take no lock of the room, so the trace takes none either: every placed mark claims the next slot with an
+ * atomic counter. A board can be marked at most once per cell, so the slots never run out.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+final class GameTrace {
+	private final long startMillis;
+	private final int boardSize;
+	private final int winLength;
+	private final AtomicInteger count = new AtomicInteger();
+	private final AtomicIntegerArray cells;
+
+    /**
+     * This is the constructor to construct the trace of a game starting now.
+     *
+     * @param boardSize The Integer indicating the number of rows and columns of the board.
+     * @param winLength The Integer indicating the number of marks in a row that wins.
+     */
+	GameTrace(int boardSize, int winLength) {
+		this.startMillis = System.currentTimeMillis();
+		this.boardSize = boardSize;
+		this.winLength = winLength;
+		this.cells = new AtomicIntegerArray(boardSize * boardSize);
+	}
+
+    /**
+     * This is the record method called after a mark was placed.
+     *
+     * @param row The Integer indicating the row of the mark.
+     * @param col The Integer indicating the column of the mark.
+     */
+	void record(int row, int col) {
+		int slot = count.getAndIncrement();
+		if (slot < cells.length()) {
+			cells.set(slot, row * boardSize + col);
+		}
+	}
+
+    /**
+     * This is the finish method called once, when the game has ended.
+     * It hands the game to the game history.
+     *
+     * @param result The Integer indicating how the game ended, e.g. HistoryBlock.WIN.
+     * @param winner The Integer indicating the player who won (1 or 2), or 0 if nobody did.
+     */
+	void finish(int result, int winner) {
+		int[] moves = new int[Math.min(count.get(), cells.length())];
+		for (int i = 0; i < moves.length; i++) {
+			moves[i] = cells.get(i);
+		}
+		GameHistory.record(startMillis, boardSize, winLength, result, winner, moves);
+	}
+}
@@ -0,0 +1,165 @@
+package Server;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is the GridBoard class representing an N x N board won by K marks in a row, e.g. 15 x 15 five-in-a-row.
+ *
+ * A move only looks at the four lines through the cell just marked, at most K - 1 cells in each direction,
+ * and the draw check compares a running count of free cells with zero. The cost of a move therefore depends
+ * on K but not on the size of the board. Player 1 moves first and the players take turns, so the player to move
+ * follows from the number of free cells and is checked in the same step as the placement. Moves are serialised
+ * by a ReentrantLock, as in Room, so a virtual thread waiting for it does not pin its carrier thread.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class GridBoard implements GameBoard {
+	// The largest supported board; rows and columns must fit in one byte of the binary protocol.
+	public static final int MAX_SIZE = 32;
+	// The four directions a line can run in: across, down and both diagonals.
+	private static final int[][] DIRECTIONS = { {0, 1}, {1, 0}, {1, 1}, {1, -1} };
+
+	private final int size;
+	private final int winLength;
+	private final byte[] cells;
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private int freeCells;
+	private boolean finished;
+
+    /**
+     * This is the constructor to construct an empty board.
+     *
+     * @param size      The Integer number of rows and columns.
+     * @param winLength The Integer number of marks in a row that wins.
+     *
+     * @throws IllegalArgumentException If isValid rejects the size and win length.
+     */
+	public GridBoard(int size, int winLength) {
+		if (!isValid(size, winLength)) {
+			throw new IllegalArgumentException("Unsupported board " + size + "x" + size + " with " + winLength + " in a row");
+		}
+		this.size = size;
+		this.winLength = winLength;
+		this.cells = new byte[size * size];
+		this.freeCells = cells.length;
+	}
+
+    /**
+     * This is the isValid method.
+     *
+     * @param size      The Integer number of rows and columns.
+     * @param winLength The Integer number of marks in a row that wins.
+     *
+     * @return boolean true if the board is between 3 x 3 and MAX_SIZE x MAX_SIZE and a line fits on it.
+     */
+	public static boolean isValid(int size, int winLength) {
+		return (size >= 3) && (size <= MAX_SIZE) && (winLength >= 3) && (winLength <= size);
+	}
+
+	@Override
+	public MoveResult applyMove(int player, int row, int col) {
+		if ((row < 0) || (row >= size) || (col < 0) || (col >= size) || ((player != 1) && (player != 2))) {
+			return MoveResult.REJECTED;
+		}
+		lock.lock();
+		try {
+			int cell = row * size + col;
+			int toMove = ((cells.length - freeCells) % 2 == 0) ? 1 : 2;
+			if (finished || (cells[cell] != 0) || (player != toMove)) {
+				return MoveResult.REJECTED;
+			}
+			cells[cell] = (byte) player;
+			freeCells--;
+			if (completesLine(player, row, col)) {
+				finished = true;
+				return MoveResult.WIN;
+			}
+			if (freeCells == 0) {
+				finished = true;
+				return MoveResult.DRAW;
+			}
+			return MoveResult.PLACED;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+    /**
+     * This is the completesLine method.
+     * It counts the player's marks in a row through the given cell in each of the four directions.
+     *
+     * @param player The Integer indicating the player who just moved.
+     * @param row    The Integer indicating the row of the new mark.
+     * @param col    The Integer indicating the column of the new mark.
+     *
+     * @return boolean true if some line through the cell has at least winLength of the player's marks.
+     */
+	private boolean completesLine(int player, int row, int col) {
+		for (int[] direction : DIRECTIONS) {
+			int count = 1 + count(player, row, col, direction[0], direction[1]) + count(player, row, col, -direction[0], -direction[1]);
+			if (count >= winLength) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+    /**
+     * This is the count method.
+     *
+     * @param player The Integer indicating the player.
+     * @param row    The Integer indicating the row to start from, not counted itself.
+     * @param col    The Integer indicating the column to start from, not counted itself.
+     * @param dRow   The Integer step between rows.
+     * @param dCol   The Integer step between columns.
+     *
+     * @return int the number of the player's marks in a row in that direction, at most winLength - 1.
+     */
+	private int count(int player, int row, int col, int dRow, int dCol) {
+		int count = 0;
+		int r = row + dRow;
+		int c = col + dCol;
+		while ((count < winLength - 1) && (r >= 0) && (r < size) && (c >= 0) && (c < size) && (cells[r * size + c] == player)) {
+			count++;
+			r += dRow;
+			c += dCol;
+		}
+		return count;
+	}
+
+	@Override
+	public int get(int row, int col) {
+		lock.lock();
+		try {
+			return cells[row * size + col];
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public int getWinLength() {
+		return winLength;
+	}
+
+	@Override
+	public void restart() {
+		lock.lock();
+		try {
+			Arrays.fill(cells, (byte) 0);
+			freeCells = cells.length;
+			finished = false;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package Server;
+
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the IdleWatch class reaping a connection the client has sent nothing on for too long.
+ *
+ * A half-open TCP connection never fails a read, so without a deadline it would hold its seat, and on the
+ * blocking transport a pool thread, forever. Each connection gets one timeout on the shared TimerWheel;
+ * receiving a message only records the time, and when the timeout fires it is scheduled again for the rest
+ * of the window if the client has been heard from meanwhile. An idle connection is closed, which ends its
+ * session like any disconnect, so a player can still resume the game.
+ *
+ * Spectators only listen, so they are never reaped for being quiet.
+ *
+ * Configuration (system property): server.idleMillis (default 300000; 0 turns reaping off).
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+final class IdleWatch {
+	private static final long IDLE_NANOS = Long.getLong("server.idleMillis", 300000) * 1_000_000;
+
+	private final Connection connection;
+	private final Session session;
+	private volatile long lastRead = System.nanoTime();
+	private volatile TimerWheel.Timeout timeout;
+	private volatile boolean stopped;
+
+    /**
+     * This is the constructor to construct the watch of one connection.
+     *
+     * @param connection The Connection to be closed once it is idle.
+     * @param session    The Session of the connection, telling whether the client only watches.
+     */
+	IdleWatch(Connection connection, Session session) {
+		this.connection = connection;
+		this.session = session;
+	}
+
+    /**
+     * This is the start method called when the connection is accepted.
+     */
+	void start() {
+		if (IDLE_NANOS > 0) {
+			schedule(IDLE_NANOS);
+		}
+	}
+
+    /**
+     * This is the touch method called for every message received from the client.
+     */
+	void touch() {
+		lastRead = System.nanoTime();
+	}
+
+    /**
+     * This is the stop method called once the connection is closed.
+     */
+	void stop() {
+		stopped = true;
+		TimerWheel.Timeout current = timeout;
+		if (current != null) {
+			current.cancel();
+		}
+	}
+
+    /**
+     * This is the schedule method.
+     *
+     * @param delay The long number of nanoseconds until the connection is checked.
+     */
+	private void schedule(long delay) {
+		timeout = TimerWheel.shared().schedule(this::check, delay, TimeUnit.NANOSECONDS);
+	}
+
+    /**
+     * This is the check method run on the wheel thread.
+     * It closes the connection if nothing was received for the whole window, or checks again later.
+     */
+	private void check() {
+		if (stopped) {
+			return;
+		}
+		long idle = System.nanoTime() - lastRead;
+		if (session.isSpectating()) {
+			schedule(IDLE_NANOS);
+		}
+		else if (idle < IDLE_NANOS) {
+			schedule(IDLE_NANOS - idle);
+		}
+		else {
+			EventLog.log(Level.WARN, Event.IDLE_TIMEOUT, null, idle / 1_000_000);
+			connection.close();
+		}
+	}
+}
@@ -1,13 +1,29 @@
 package Server;
 
+import Bot.PerfectPlay;
+import History.GameHistory;
+import Journal.MoveJournal;
+import Logging.EventLog;
+
 import java.io.*;
 import java.net.*;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Executors;
 
 /**
  * This is the MainServer representing the main server application for handling client connections.
  * It initializes the server socket, starts the server, and handles shutdown gracefully.
  * 
+ * The transport is chosen with --transport=blocking (default, a pool of 200 platform threads),
+ * --transport=virtual (one virtual thread per client) or --transport=nio (a few selector event loops, sized with --loops=N).
+ * Every room event is appended to the move journal in journal/ (-Djournal.dir), and games in progress are rebuilt from it at startup.
+ * Every finished game is exported to the day-partitioned game history in history/ (-Dhistory.dir) for History.HistoryReport.
+ * The perfect-play table used by the computer opponent and for hints is mapped from --table=perfect-play.bin.
+ * Metrics are published over JMX, and with --metrics=9100 also at http://127.0.0.1:9100/metrics.
+ * Behind a Gateway, each node is started on its own --port with the --node=name the gateway knows it by.
+ * 
  * @author karinanathalie
  * @version 1.0
  * @since 2023-11-25
@@ -17,11 +33,12 @@ public class MainServer {
     /**
      * This is the main method to start the server.
      *
-     * @param args Command line arguments 
+     * @param args Command line arguments, e.g. --transport=nio --loops=4 --port=5001 --node=a
      * @throws IOException If an I/O error occurs when creating the ServerSocket.
      */
 	public static void main(String[] args) throws IOException {
 		System.out.println("Server is runnning...");
+		EventLog.start("server");
 		
 		Runtime.getRuntime().addShutdownHook(new Thread (new Runnable() {
 			public void run() {
@@ -29,9 +46,38 @@ public class MainServer {
 			}
 		}));
 	
-		try (var listener = new ServerSocket(5001)){
+		int port = Integer.parseInt(option(args, "port", "5001"));
+		String transport = option(args, "transport", "blocking");
+		System.out.println("Perfect-play table " + PerfectPlay.load(Paths.get(option(args, "table", "perfect-play.bin"))));
+		GameHistory.start(new File(System.getProperty("history.dir", "history")));
+		RoomRegistry rooms = recover(new File(System.getProperty("journal.dir", "journal")));
+		rooms.getSuspendedSessions().setNodeName(option(args, "node", null));
+		ServerMetrics.get().start(rooms);
+		int metricsPort = Integer.parseInt(option(args, "metrics", "0"));
+		if (metricsPort > 0) {
+			new MetricsEndpoint(metricsPort, ServerMetrics.get()).start();
+			System.out.println("Metrics at http://127.0.0.1:" + metricsPort + "/metrics");
+		}
+		
+		if (transport.equals("nio")) {
+			int loops = Integer.parseInt(option(args, "loops", String.valueOf(Runtime.getRuntime().availableProcessors())));
+			try (var channel = ServerSocketChannel.open()) {
+				channel.bind(new InetSocketAddress(port), 1024);
+				// Create and start the server
+				NioServer server = new NioServer(channel, loops, rooms);
+				server.start();
+			}
+			catch(Exception e) {
+				System.out.println(e.getMessage());
+			}
+			return;
+		}
+	
+		try (var listener = new ServerSocket(port, 1024)){
 			// Create and start the server
-			Server server = new Server(listener);
+			Server server = transport.equals("virtual")
+					? new Server(listener, Server.newVirtualThreadExecutor(), Server.newVirtualThreadExecutor(), rooms)
+					: new Server(listener, Executors.newFixedThreadPool(200), Executors.newCachedThreadPool(), rooms);
 			server.start();
 		}
 		catch(Exception e) {
@@ -39,5 +85,47 @@ public class MainServer {
 		}
 
 	}
+	
+    /**
+     * This is the recover method.
+     * It reads the move journal, starts a new journal segment and rebuilds the games that were in progress.
+     *
+     * @param journalDir The File directory of the journal.
+     *
+     * @return RoomRegistry the rooms, holding the recovered games.
+     */
+	private static RoomRegistry recover(File journalDir) {
+		RoomRegistry rooms = new RoomRegistry();
+		try {
+			var records = MoveJournal.read(journalDir);
+			MoveJournal.start(journalDir);
+			int recovered = rooms.recover(records);
+			System.out.println("Recovered " + recovered + " games in progress from " + records.size() + " journal records");
+		} catch (IOException e) {
+			System.out.println("Journal not recovered: " + e.getMessage());
+			MoveJournal.start(journalDir);
+		}
+		return rooms;
+	}
+	
+    /**
+     * This is the option method.
+     * It reads a "--name=value" option from the command line arguments.
+     *
+     * @param args         Command line arguments
+     * @param name         The String indicating the name of the option.
+     * @param defaultValue The String returned when the option is not given.
+     * 
+     * @return String the value of the option.
+     */
+	static String option(String[] args, String name, String defaultValue) {
+		String prefix = "--" + name + "=";
+		for (String arg : args) {
+			if (arg.startsWith(prefix)) {
+				return arg.substring(prefix.length());
+			}
+		}
+		return defaultValue;
+	}
 
 }
@@ -0,0 +1,286 @@
+package Server;
+
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+import Metrics.LatencyHistogram;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is the Matchmaker class pairing the players who join without a room id into new rooms of their own.
+ *
+ * Players asking for the same board, and with skill buckets also of a similar rating, stand in the same
+ * waiting line. A line is a single atomic slot: whoever arrives takes the player waiting there, or waits there
+ * if it is empty. Since two players always make a match, a line never holds more than one player for long,
+ * so the slot is a first-in, first-out queue of the players that are still unmatched. Matching is one
+ * compare-and-set on the line of the player's own board, so joins on any number of threads never wait for
+ * a global lock, and every match gets a fresh room.
+ *
+ * With skill buckets, a player who has waited longer than match.widenMillis may also be matched with a player
+ * of a neighbouring bucket: by one arriving there, or, when the player's wait reaches match.widenMillis on the
+ * shared TimerWheel, with one already waiting there, so two players in neighbouring lines need no third to meet.
+ *
+ * Configuration (system properties): match.skillBucket (the width of a skill bucket; 0, the default,
+ * matches regardless of rating) and match.widenMillis (default 5000).
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class Matchmaker {
+	private static final int BUCKET_WIDTH = Integer.getInteger("match.skillBucket", 0);
+	private static final long WIDEN_NANOS = Long.getLong("match.widenMillis", 5000) * 1_000_000;
+
+	private final RoomRegistry rooms;
+	// The waiting line of every board and skill bucket, keyed by line.
+	private final ConcurrentHashMap<Long, AtomicReference<Ticket>> lines = new ConcurrentHashMap<>();
+	private final AtomicInteger depth = new AtomicInteger();
+	private final LongAdder matches = new LongAdder();
+	private final LatencyHistogram timeToMatch = new LatencyHistogram();
+
+    /**
+     * This is the Ticket class representing one player's place in a waiting line.
+     * The player's session keeps it until the ticket names the room the player was matched into.
+     */
+	public static final class Ticket {
+		private final Connection connection;
+		private final int boardSize;
+		private final int winLength;
+		private final int bucket;
+		private final long enqueued = System.nanoTime();
+		// Set by whoever takes the ticket out of its line: a match or a cancellation.
+		private final AtomicBoolean taken = new AtomicBoolean();
+		private volatile Room room;
+		private volatile boolean abandoned;
+
+        /**
+         * This is the constructor for a ticket.
+         *
+         * @param connection The Connection of the player.
+         * @param boardSize  The Integer number of rows and columns of the board.
+         * @param winLength  The Integer number of marks in a row that wins.
+         * @param bucket     The Integer skill bucket of the player.
+         */
+		private Ticket(Connection connection, int boardSize, int winLength, int bucket) {
+			this.connection = connection;
+			this.boardSize = boardSize;
+			this.winLength = winLength;
+			this.bucket = bucket;
+		}
+
+        /**
+         * This is the room getter method.
+         * The room is set before the player is told it joined, so a session may read it on its next message.
+         *
+         * @return Room the room the player was matched into, or null while the player waits.
+         */
+		public Room getRoom() {
+			return room;
+		}
+	}
+
+    /**
+     * This is the constructor to construct a Matchmaker opening rooms in the specified registry.
+     *
+     * @param rooms The RoomRegistry the matched players' rooms are opened in.
+     */
+	public Matchmaker(RoomRegistry rooms) {
+		this.rooms = rooms;
+	}
+
+    /**
+     * This is the join method.
+     * It matches the player with the player waiting longest for the same board, or puts the player in line.
+     *
+     * @param connection The Connection of the joining player.
+     * @param boardSize  The Integer number of rows and columns of the board.
+     * @param winLength  The Integer number of marks in a row that wins.
+     * @param skill      The Integer rating of the player, or 0.
+     *
+     * @return Ticket the player's ticket; its room is already set if the player was matched at once.
+     */
+	public Ticket join(Connection connection, int boardSize, int winLength, int skill) {
+		Ticket ticket = new Ticket(connection, boardSize, winLength, (BUCKET_WIDTH > 0) ? skill / BUCKET_WIDTH : 0);
+		// The arriving player is never in a line, so nobody else can take its ticket
+		ticket.taken.set(true);
+		place(ticket);
+		return ticket;
+	}
+
+    /**
+     * This is the place method.
+     * It matches a player who is in no line, or puts the player in the line of its board and bucket.
+     *
+     * @param ticket The Ticket of the player, taken by the caller.
+     */
+	private void place(Ticket ticket) {
+		AtomicReference<Ticket> line = lines.computeIfAbsent(key(ticket, ticket.bucket), key -> new AtomicReference<>());
+		while (true) {
+			Ticket waiting = line.get();
+			if (waiting == null) {
+				Ticket neighbour = takeFromNeighbour(ticket);
+				if (neighbour != null) {
+					match(neighbour, ticket);
+					return;
+				}
+				ticket.taken.set(false);
+				if (line.compareAndSet(null, ticket)) {
+					depth.incrementAndGet();
+					// A player who disconnected while widen held its ticket could not take it out of the line
+					if (ticket.abandoned && ticket.taken.compareAndSet(false, true)) {
+						line.compareAndSet(ticket, null);
+						depth.decrementAndGet();
+						return;
+					}
+					long waited = System.nanoTime() - ticket.enqueued;
+					if ((BUCKET_WIDTH > 0) && (waited < WIDEN_NANOS)) {
+						TimerWheel.shared().schedule(() -> widen(ticket), WIDEN_NANOS - waited, TimeUnit.NANOSECONDS);
+					}
+					return;
+				}
+				ticket.taken.set(true);
+			}
+			else if (line.compareAndSet(waiting, null) && waiting.taken.compareAndSet(false, true)) {
+				depth.decrementAndGet();
+				match(waiting, ticket);
+				return;
+			}
+		}
+	}
+
+    /**
+     * This is the widen method run on the timer wheel once a player has waited match.widenMillis.
+     * It takes the player out of its line and places it again, now looking into the neighbouring buckets.
+     *
+     * @param ticket The Ticket of the player.
+     */
+	private void widen(Ticket ticket) {
+		AtomicReference<Ticket> line = lines.get(key(ticket, ticket.bucket));
+		if (!line.compareAndSet(ticket, null) || !ticket.taken.compareAndSet(false, true)) {
+			// Matched or cancelled meanwhile
+			return;
+		}
+		depth.decrementAndGet();
+		if (!ticket.abandoned) {
+			place(ticket);
+		}
+	}
+
+    /**
+     * This is the cancel method called when a player disconnects before the session learnt its room.
+     *
+     * @param ticket The Ticket of the player.
+     *
+     * @return Room the room the player was matched into meanwhile, or null if the player left the line unmatched.
+     */
+	public Room cancel(Ticket ticket) {
+		ticket.abandoned = true;
+		if (ticket.taken.compareAndSet(false, true)) {
+			lines.get(key(ticket, ticket.bucket)).compareAndSet(ticket, null);
+			depth.decrementAndGet();
+			return null;
+		}
+		// Matched: if the room is not set yet, the matching thread sees abandoned and removes the player itself
+		return ticket.room;
+	}
+
+    /**
+     * This is the takeFromNeighbour method.
+     * It takes a player from a neighbouring skill bucket, if either of the two has waited longer than match.widenMillis.
+     *
+     * @param ticket The Ticket of the player looking for a match.
+     *
+     * @return Ticket the neighbour taken out of its line, or null if there is none.
+     */
+	private Ticket takeFromNeighbour(Ticket ticket) {
+		if (BUCKET_WIDTH == 0) {
+			return null;
+		}
+		long now = System.nanoTime();
+		boolean widened = now - ticket.enqueued >= WIDEN_NANOS;
+		for (int bucket = ticket.bucket - 1; bucket <= ticket.bucket + 1; bucket += 2) {
+			AtomicReference<Ticket> line = lines.get(key(ticket, bucket));
+			Ticket waiting = (line == null) ? null : line.get();
+			if ((waiting != null) && (widened || (now - waiting.enqueued >= WIDEN_NANOS)) && line.compareAndSet(waiting, null)
+					&& waiting.taken.compareAndSet(false, true)) {
+				depth.decrementAndGet();
+				return waiting;
+			}
+		}
+		return null;
+	}
+
+    /**
+     * This is the match method.
+     * It opens a room for two players, names it in both tickets and seats them.
+     *
+     * @param first  The Ticket of the player who waited.
+     * @param second The Ticket of the arriving player.
+     */
+	private void match(Ticket first, Ticket second) {
+		Room room;
+		do {
+			room = rooms.openRoom(first.boardSize, first.winLength);
+			first.room = room;
+			second.room = room;
+		} while (!room.joinPair(first.connection, second.connection));
+
+		long now = System.nanoTime();
+		timeToMatch.record(now - first.enqueued);
+		timeToMatch.record(now - second.enqueued);
+		matches.increment();
+		EventLog.log(Level.INFO, Event.MATCHED, room.getId(), (now - first.enqueued) / 1000);
+
+		// A player who disconnected while being matched could not find the room to leave it
+		for (Ticket ticket : new Ticket[] { first, second }) {
+			if (ticket.abandoned) {
+				rooms.leave(room, ticket.connection);
+			}
+		}
+	}
+
+    /**
+     * This is the key method.
+     *
+     * @param ticket The Ticket naming the board.
+     * @param bucket The Integer skill bucket.
+     *
+     * @return long the key of the waiting line for the ticket's board and the bucket.
+     */
+	private static long key(Ticket ticket, int bucket) {
+		return ((long) ticket.boardSize << 48) | ((long) ticket.winLength << 32) | (bucket & 0xFFFFFFFFL);
+	}
+
+    /**
+     * This is the queue depth getter method.
+     *
+     * @return int the number of players waiting to be matched.
+     */
+	public int getQueueDepth() {
+		return depth.get();
+	}
+
+    /**
+     * This is the match count getter method.
+     *
+     * @return long the number of matches made.
+     */
+	public long getMatches() {
+		return matches.sum();
+	}
+
+    /**
+     * This is the time-to-match getter method.
+     *
+     * @return LatencyHistogram the nanoseconds every matched player waited, including those matched at once.
+     */
+	public LatencyHistogram getTimeToMatch() {
+		return timeToMatch;
+	}
+}
@@ -0,0 +1,66 @@
+package Server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This is the MetricsEndpoint class serving the server's metrics over HTTP on the loopback interface.
+ * GET /metrics answers with ServerMetrics.toText; the endpoint runs on the JDK's built-in HTTP server,
+ * on a thread of its own, so scraping never touches the threads serving the players.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class MetricsEndpoint {
+	private final HttpServer server;
+
+    /**
+     * This is the constructor to construct an endpoint on the specified port.
+     *
+     * @param port    The Integer port on 127.0.0.1.
+     * @param metrics The ServerMetrics to be served.
+     *
+     * @throws IOException If the port cannot be bound.
+     */
+	public MetricsEndpoint(int port, ServerMetrics metrics) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 16);
+		server.createContext("/metrics", exchange -> respond(exchange, metrics));
+	}
+
+    /**
+     * This is the start method.
+     */
+	public void start() {
+		server.start();
+	}
+
+    /**
+     * This is the respond method.
+     *
+     * @param exchange The HttpExchange of the request.
+     * @param metrics  The ServerMetrics to be written.
+     *
+     * @throws IOException If the response cannot be written.
+     */
+	private static void respond(HttpExchange exchange, ServerMetrics metrics) throws IOException {
+		try (exchange) {
+			if (!exchange.getRequestMethod().equals("GET")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = metrics.toText().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+	}
+}
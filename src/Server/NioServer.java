@@ -0,0 +1,529 @@
+package Server;
+
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+import Protocol.BinaryCodec;
+import Protocol.Message;
+import Protocol.TextCodec;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is the NioServer class representing the non-blocking game server.
+ * Connections are accepted on the main thread and spread over a small number of event loops,
+ * each multiplexing its connections on one java.nio Selector. It speaks the same text and binary protocols
+ * as the blocking Server and keeps no thread per connection, so it can hold tens of thousands of idle clients.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class NioServer {
+	// The most unread bytes buffered for a client before the connection is dropped.
+	private static final int MAX_PENDING = 4096;
+	private static final byte[] EMPTY = new byte[0];
+	// The most low-priority connections, e.g. spectators, a loop flushes before it serves the players again.
+	private static final int LOW_PRIORITY_BATCH = 256;
+	// How long the acceptor waits after a failed accept, doubled on every failure in a row.
+	private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+	private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+	// The protocols a connection can speak, known once its first byte arrives.
+	private static final int UNKNOWN = 0;
+	private static final int TEXT = 1;
+	private static final int BINARY = 2;
+
+	private ServerSocketChannel serverChannel;
+	private EventLoop[] loops;
+
+	// The registry of all the rooms, each owning its own board and broadcast set.
+	private RoomRegistry rooms;
+
+    /**
+     * This is the constructor to construct a NioServer object with the specified channel.
+     *
+     * @param serverChannel The bound ServerSocketChannel for accepting client connections.
+     * @param loopCount     The Integer indicating the number of event-loop threads.
+     *
+     * @throws IOException If a selector cannot be opened.
+     */
+	public NioServer(ServerSocketChannel serverChannel, int loopCount) throws IOException {
+		this(serverChannel, loopCount, new RoomRegistry());
+	}
+
+    /**
+     * This is the constructor to construct a NioServer object hosting the specified rooms.
+     *
+     * @param serverChannel The bound ServerSocketChannel for accepting client connections.
+     * @param loopCount     The Integer indicating the number of event-loop threads.
+     * @param rooms         The RoomRegistry, e.g. holding games recovered from the journal.
+     *
+     * @throws IOException If a selector cannot be opened.
+     */
+	public NioServer(ServerSocketChannel serverChannel, int loopCount, RoomRegistry rooms) throws IOException {
+		this.serverChannel = serverChannel;
+		this.rooms = rooms;
+		this.loops = new EventLoop[Math.max(1, loopCount)];
+		for (int i = 0; i < loops.length; i++) {
+			loops[i] = new EventLoop(i);
+		}
+		ServerMetrics.get().setEventLoops(loops.length);
+	}
+
+    /**
+     * This is the start method.
+     * It starts the event loops and hands every accepted connection to them in turn.
+     * A failed accept is logged, and the acceptor waits before the next one, longer after every failure in a row.
+     */
+	public void start() {
+		for (EventLoop loop : loops) {
+			loop.start();
+		}
+		int clientCount = 1;
+		long backoffMillis = 0;
+		while (serverChannel.isOpen()) {
+			SocketChannel channel = null;
+			try {
+				channel = serverChannel.accept();
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				loops[clientCount % loops.length].register(channel);
+				EventLog.log(Level.INFO, Event.CONNECTED, null, channel);
+				clientCount++;
+				backoffMillis = 0;
+			} catch (IOException e) {
+				if (!serverChannel.isOpen()) {
+					return;
+				}
+				EventLog.log(Level.ERROR, Event.ERROR, null, e);
+				if (channel != null) {
+					try {
+						channel.close();
+					} catch (IOException closing) {
+						EventLog.log(Level.ERROR, Event.ERROR, null, closing);
+					}
+				}
+				// Accepting fails again at once while the cause lasts, e.g. when the process has no file descriptors left
+				backoffMillis = Math.min(MAX_ACCEPT_BACKOFF_MILLIS, Math.max(MIN_ACCEPT_BACKOFF_MILLIS, backoffMillis * 2));
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+			}
+		}
+	}
+
+    /**
+     * This is the EventLoop class representing one selector thread serving many connections.
+     */
+	private class EventLoop extends Thread {
+		private final Selector selector;
+		private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+		private final Queue<NioConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+		private final Queue<NioConnection> lowPriorityFlushes = new ConcurrentLinkedQueue<>();
+
+		// One read buffer and one write batch shared by every connection of this loop, so idle connections cost no buffer.
+		private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(16 * 1024);
+		private final ByteBuffer[] writeBatch = new ByteBuffer[OutboundQueue.MAX_BATCH];
+
+        /**
+         * This is the constructor method to construct an EventLoop with its own selector.
+         *
+         * @param index The Integer indicating the index of the loop, used in the thread name.
+         *
+         * @throws IOException If the selector cannot be opened.
+         */
+		EventLoop(int index) throws IOException {
+			super("nio-loop-" + index);
+			this.selector = Selector.open();
+			setDaemon(true);
+		}
+
+        /**
+         * This is the register method.
+         * It hands a newly accepted channel to this loop.
+         *
+         * @param channel The SocketChannel of the new client.
+         */
+		void register(SocketChannel channel) {
+			pendingChannels.add(channel);
+			selector.wakeup();
+		}
+
+        /**
+         * This is the requestFlush method.
+         * It asks this loop to write out the pending messages of a connection.
+         *
+         * @param connection The NioConnection with queued messages.
+         */
+		void requestFlush(NioConnection connection) {
+			(connection.lowPriority ? lowPriorityFlushes : pendingFlushes).add(connection);
+			if (Thread.currentThread() != this) {
+				selector.wakeup();
+			}
+		}
+
+        /**
+         * This is the run method of the event loop.
+         * It waits for ready channels and dispatches reads and writes until the server stops.
+         */
+		@Override
+		public void run() {
+			while (selector.isOpen()) {
+				try {
+					// While spectators wait to be flushed, only poll for ready channels so the players go first
+					if (lowPriorityFlushes.isEmpty()) {
+						selector.select();
+					}
+					else {
+						selector.selectNow();
+					}
+					long busyFrom = System.nanoTime();
+					registerPendingChannels();
+
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						NioConnection connection = (NioConnection) key.attachment();
+						if (!key.isValid()) {
+							connection.disconnect();
+							continue;
+						}
+						if (key.isReadable()) {
+							connection.read(readBuffer);
+						}
+						if (key.isValid() && key.isWritable()) {
+							connection.flush(writeBatch);
+						}
+					}
+					// Messages queued while handling the keys above, on this or another thread
+					flushPendingConnections();
+					flushLowPriorityConnections();
+					ServerMetrics.get().recordLoopBusy(System.nanoTime() - busyFrom);
+				} catch (IOException e) {
+					EventLog.log(Level.ERROR, Event.ERROR, null, e);
+				}
+			}
+		}
+
+        /**
+         * This is the registerPendingChannels method.
+         * It registers the channels handed over by the acceptor with this loop's selector.
+         */
+		private void registerPendingChannels() {
+			SocketChannel channel;
+			while ((channel = pendingChannels.poll()) != null) {
+				try {
+					NioConnection connection = new NioConnection(this, channel);
+					connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+				} catch (IOException e) {
+					EventLog.log(Level.ERROR, Event.ERROR, null, e);
+				}
+			}
+		}
+
+        /**
+         * This is the flushPendingConnections method.
+         * It writes out the messages queued for connections since the last select.
+         */
+		private void flushPendingConnections() {
+			NioConnection connection;
+			while ((connection = pendingFlushes.poll()) != null) {
+				connection.flush(writeBatch);
+			}
+		}
+
+        /**
+         * This is the flushLowPriorityConnections method.
+         * It writes out a slice of the low-priority connections; the rest wait until the players were served again.
+         */
+		private void flushLowPriorityConnections() {
+			NioConnection connection;
+			for (int i = 0; (i < LOW_PRIORITY_BATCH) && ((connection = lowPriorityFlushes.poll()) != null); i++) {
+				connection.flush(writeBatch);
+			}
+		}
+	}
+
+    /**
+     * This is the NioConnection class representing one client served by an event loop.
+     * Reads and writes only happen on the loop thread; other threads merely queue messages.
+     */
+	private class NioConnection implements Connection {
+		private final EventLoop loop;
+		private final SocketChannel channel;
+		private final Session session;
+		private final IdleWatch idleWatch;
+		private SelectionKey key;
+
+		// The messages waiting to be written, and those the socket only partly accepted on the last flush.
+		private final OutboundQueue outbound = new OutboundQueue();
+		private final ArrayDeque<ByteBuffer> unwritten = new ArrayDeque<>(0);
+		private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+		// The received bytes that do not form a complete line or frame yet.
+		private byte[] pending = EMPTY;
+		private int pendingLength;
+		private volatile int protocol = UNKNOWN;
+		private volatile boolean closed;
+		private volatile boolean closeRequested;
+		private volatile boolean slowConsumer;
+		private volatile boolean lowPriority;
+
+        /**
+         * This is the constructor method to construct a NioConnection for the specified channel.
+         *
+         * @param loop    The EventLoop serving the connection.
+         * @param channel The SocketChannel of the client.
+         */
+		NioConnection(EventLoop loop, SocketChannel channel) {
+			this.loop = loop;
+			this.channel = channel;
+			this.session = new Session(rooms, this);
+			this.idleWatch = new IdleWatch(this, session);
+			idleWatch.start();
+			ServerMetrics.get().connected();
+		}
+
+        /**
+         * This is the send method.
+         * It queues one message for the client, in the format the client negotiated.
+         *
+         * @param message The Message to be sent.
+         */
+		@Override
+		public void send(Message message) {
+			enqueue((protocol == BINARY) ? message.toFrame() : message.toLine());
+		}
+
+        /**
+         * This is the enqueue method.
+         * It queues raw bytes for the client and asks the event loop to write them.
+         *
+         * @param bytes The byte array to be written; it is never modified.
+         */
+		private void enqueue(byte[] bytes) {
+			if (closed) {
+				return;
+			}
+			if (!outbound.offer(bytes)) {
+				// The client reads too slowly for its queue to keep up; drop it rather than buffer without bound
+				slowConsumer = true;
+				flushRequested.set(true);
+				loop.requestFlush(this);
+				return;
+			}
+			if (flushRequested.compareAndSet(false, true)) {
+				loop.requestFlush(this);
+			}
+		}
+
+		@Override
+		public void setLowPriority() {
+			lowPriority = true;
+		}
+
+        /**
+         * This is the close method.
+         * It asks the event loop to close the channel once the messages queued so far are written.
+         */
+		@Override
+		public void close() {
+			closeRequested = true;
+			flushRequested.set(true);
+			loop.requestFlush(this);
+		}
+
+        /**
+         * This is the read method.
+         * It reads the available bytes and hands every complete message to the session.
+         *
+         * @param buffer The ByteBuffer shared by the loop for reading.
+         */
+		void read(ByteBuffer buffer) {
+			buffer.clear();
+			int count;
+			try {
+				count = channel.read(buffer);
+			} catch (IOException e) {
+				count = -1;
+			}
+			if (count < 0) {
+				disconnect();
+				return;
+			}
+			idleWatch.touch();
+			buffer.flip();
+			while (buffer.hasRemaining() && !closed) {
+				if (pendingLength == MAX_PENDING) {
+					// A client that sends a line or frame this long is not speaking the protocol
+					disconnect();
+					return;
+				}
+				int received = Math.min(buffer.remaining(), MAX_PENDING - pendingLength);
+				if (pendingLength + received > pending.length) {
+					pending = Arrays.copyOf(pending, Math.min(MAX_PENDING, Math.max(64, 2 * (pendingLength + received))));
+				}
+				buffer.get(pending, pendingLength, received);
+				pendingLength += received;
+
+				int consumed;
+				try {
+					consumed = decode();
+				} catch (RuntimeException e) {
+					EventLog.log(Level.ERROR, Event.ERROR, null, e);
+					disconnect();
+					return;
+				}
+				pendingLength -= consumed;
+				System.arraycopy(pending, consumed, pending, 0, pendingLength);
+			}
+			// Idle connections keep no receive buffer between messages
+			if (pendingLength == 0) {
+				pending = EMPTY;
+			}
+		}
+
+        /**
+         * This is the decode method.
+         * It picks the protocol from the first bytes of the connection and decodes every complete message.
+         *
+         * @return int the number of pending bytes that were consumed.
+         */
+		private int decode() {
+			ServerMetrics metrics = ServerMetrics.get();
+			int offset = 0;
+			if (protocol == UNKNOWN) {
+				if (pending[0] != BinaryCodec.HANDSHAKE_MARKER) {
+					protocol = TEXT;
+				}
+				else if (pendingLength < BinaryCodec.HANDSHAKE_LENGTH) {
+					return 0;
+				}
+				else {
+					int version = BinaryCodec.negotiate(BinaryCodec.parseHandshake(pending, 0));
+					enqueue(BinaryCodec.handshake(version));
+					if (version == 0) {
+						close();
+						return pendingLength;
+					}
+					protocol = BINARY;
+					offset = BinaryCodec.HANDSHAKE_LENGTH;
+				}
+			}
+
+			if (protocol == BINARY) {
+				ByteBuffer frames = ByteBuffer.wrap(pending, offset, pendingLength - offset);
+				while (!closed) {
+					long start = System.nanoTime();
+					Message message = BinaryCodec.decode(frames);
+					if (message == null) {
+						break;
+					}
+					metrics.recordDecode(System.nanoTime() - start);
+					session.onMessage(message);
+					metrics.recordCommand(System.nanoTime() - start);
+				}
+				return frames.position();
+			}
+
+			int lineStart = offset;
+			for (int i = offset; (i < pendingLength) && !closed; i++) {
+				if (pending[i] == '\n') {
+					int lineEnd = ((i > lineStart) && (pending[i - 1] == '\r')) ? i - 1 : i;
+					long start = System.nanoTime();
+					Message message = TextCodec.decode(new String(pending, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+					metrics.recordDecode(System.nanoTime() - start);
+					session.onMessage(message);
+					metrics.recordCommand(System.nanoTime() - start);
+					lineStart = i + 1;
+				}
+			}
+			return lineStart;
+		}
+
+        /**
+         * This is the flush method.
+         * It writes as many queued messages as the socket accepts, up to MAX_BATCH in one gathering write,
+         * and waits for OP_WRITE for the rest.
+         *
+         * @param batch The ByteBuffer array shared by the loop for gathering writes.
+         */
+		void flush(ByteBuffer[] batch) {
+			flushRequested.set(false);
+			if (closed || key == null) {
+				return;
+			}
+			if (slowConsumer) {
+				EventLog.log(Level.WARN, Event.SLOW_CONSUMER, null, channel);
+				disconnect();
+				return;
+			}
+			try {
+				while (true) {
+					int count = 0;
+					while ((count < batch.length) && !unwritten.isEmpty()) {
+						batch[count++] = unwritten.poll();
+					}
+					byte[] bytes;
+					while ((count < batch.length) && (bytes = outbound.poll()) != null) {
+						batch[count++] = ByteBuffer.wrap(bytes);
+					}
+					if (count == 0) {
+						break;
+					}
+					channel.write(batch, 0, count);
+					for (int i = count - 1; i >= 0; i--) {
+						if (batch[i].hasRemaining()) {
+							unwritten.addFirst(batch[i]);
+						}
+						batch[i] = null;
+					}
+					if (!unwritten.isEmpty()) {
+						key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+						return;
+					}
+				}
+				if (closeRequested) {
+					disconnect();
+					return;
+				}
+				key.interestOps(SelectionKey.OP_READ);
+			} catch (IOException | CancelledKeyException e) {
+				disconnect();
+			}
+		}
+
+        /**
+         * This is the disconnect method.
+         * It closes the channel and removes the client from its room exactly once.
+         */
+		void disconnect() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (key != null) {
+				key.cancel();
+			}
+			try {
+				channel.close();
+			} catch (IOException e) {
+				EventLog.log(Level.ERROR, Event.ERROR, null, e);
+			}
+			outbound.clear();
+			unwritten.clear();
+			idleWatch.stop();
+			session.onDisconnect();
+			ServerMetrics.get().disconnected();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package Server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is the OutboundQueue class representing the bounded queue of encoded messages waiting to be written to one client.
+ * Any thread may offer messages without blocking; a single writer at a time drains them, several per flush.
+ * When a client reads too slowly for its queue to keep up, offer fails and the connection is dropped
+ * instead of stalling the players who broadcast to it.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class OutboundQueue {
+	// The most messages a client may have waiting before it is treated as a slow consumer.
+	public static final int CAPACITY = Integer.getInteger("server.outboundCapacity", 1024);
+	// The most messages a writer drains before it flushes.
+	public static final int MAX_BATCH = 64;
+
+	// The messages waiting in every queue of the server, for the metrics.
+	private static final LongAdder QUEUED = new LongAdder();
+
+	private final Queue<byte[]> messages = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	/**
+	 * This is the offer method.
+	 *
+	 * @param bytes The byte array of one encoded message; it is never modified.
+	 *
+	 * @return boolean true if the message was queued, false if the queue is full.
+	 */
+	public boolean offer(byte[] bytes) {
+		if (size.incrementAndGet() > CAPACITY) {
+			size.decrementAndGet();
+			return false;
+		}
+		messages.add(bytes);
+		QUEUED.increment();
+		return true;
+	}
+
+	/**
+	 * This is the poll method.
+	 *
+	 * @return byte[] the oldest queued message, or null if the queue is empty.
+	 */
+	public byte[] poll() {
+		byte[] bytes = messages.poll();
+		if (bytes != null) {
+			size.decrementAndGet();
+			QUEUED.decrement();
+		}
+		return bytes;
+	}
+
+	/**
+	 * This is the peek method.
+	 *
+	 * @return byte[] the oldest queued message without removing it, or null if the queue is empty.
+	 */
+	public byte[] peek() {
+		return messages.peek();
+	}
+
+	/**
+	 * This is the isEmpty method.
+	 *
+	 * @return boolean true if no message is waiting, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return messages.isEmpty();
+	}
+
+	/**
+	 * This is the size method.
+	 *
+	 * @return int the number of messages waiting.
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * This is the queued method.
+	 *
+	 * @return long the number of messages waiting in all the queues of the server.
+	 */
+	public static long queued() {
+		return QUEUED.sum();
+	}
+
+	/**
+	 * This is the tryStartDrain method.
+	 * Exactly one caller wins until finishDrain is called, so messages are written by one writer at a time.
+	 *
+	 * @return boolean true if the caller became the writer, false if a writer is already draining.
+	 */
+	public boolean tryStartDrain() {
+		return draining.compareAndSet(false, true);
+	}
+
+	/**
+	 * This is the finishDrain method.
+	 * It releases the writer role; the caller must re-check isEmpty afterwards for messages offered meanwhile.
+	 */
+	public void finishDrain() {
+		draining.set(false);
+	}
+
+	/**
+	 * This is the clear method.
+	 * It drops every waiting message, used once the connection has been closed.
+	 */
+	public void clear() {
+		while (poll() != null) {
+			// discard
+		}
+	}
+}
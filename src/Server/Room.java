@@ -0,0 +1,663 @@
+package Server;
+
+import Bot.PerfectPlay;
+import History.GameHistory;
+import History.HistoryBlock;
+import Journal.JournalRecord;
+import Journal.MoveJournal;
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+import Protocol.Message;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is the Room class representing a single match hosted by the server.
+ * Each room owns its own game board, its own players and its own broadcast set,
+ * so that games running in different rooms never contend on one another's locks.
+ * Joining a room by id is guarded by a ReentrantLock rather than the room's monitor, because messages are written
+ * to the players while it is held and a virtual thread blocked in a monitor would pin its carrier thread.
+ * Seats are handed out by an atomic counter, so a rematch takes no lock. The room remembers the seat each
+ * connection took for the current game, and a player always moves and asks for hints from that seat, whatever
+ * player its client claims to be; the board rejects a move out of turn in the same step that places it.
+ * Moves take no lock of the room: the board is updated with GameBoard.applyMove, which for the classic
+ * 3 x 3 board is a single compare-and-set on a SharedView. Larger boards are played on a GridBoard.
+ * Spectators are not players: they watch through a Spectators fan-out that never delays the players' messages.
+ * A player whose connection dropped keeps its seat, under its old connection, until it resumes or expires.
+ * The player to move has turn.timeoutMillis (default 60000; 0 turns the clock off) to do so, or forfeits the game.
+ * The clock is a timeout on the shared TimerWheel, replaced on every move; a stale clock knows it by the turn number.
+ * While the game history is enabled, the moves of each game are traced and the game is exported when it ends.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class Room {
+	private static final long TURN_MILLIS = Long.getLong("turn.timeoutMillis", 60000);
+
+	private final String id;
+	private final GameBoard board;
+	// The joined messages naming this room's board, so they are encoded once for every game.
+	private final Message joinedFirst;
+	private final Message joinedSecond;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	// Set under the lock once the registry has dropped the room; a closed room seats nobody.
+	private volatile boolean closed;
+	// The seat taken last: 0 before anyone sat down, then 1, 2, 1, 2... as the players sit down for each game.
+	private final AtomicInteger seated = new AtomicInteger();
+
+	// The set of all the connections of the players in this room, used for broadcast.
+	// Copy-on-write, so moves can broadcast without the lock; it only changes on joins and leaves.
+	private final Set<Connection> connections = new CopyOnWriteArraySet<>();
+	// The seat (1 or 2) each player took for the current game, set whenever a seat is handed out.
+	private final Map<Connection, Integer> seats = new ConcurrentHashMap<>();
+	// The audience of the room, sent every broadcast after the players.
+	private final Spectators spectators;
+
+	// Counts the turns clocked so far; a clock only forfeits the game if no move or game end came after it.
+	private final AtomicLong turn = new AtomicLong();
+	private volatile TimerWheel.Timeout turnClock;
+	// The moves of the game in progress, or null; whoever takes it out finishes the game for the history.
+	private final AtomicReference<GameTrace> trace = new AtomicReference<>();
+
+    /**
+     * This is the constructor to construct a Room object with the specified room id.
+     *
+     * @param id The String indicating the id of the room.
+     */
+	public Room(String id) {
+		this(id, Message.CLASSIC_SIZE, Message.CLASSIC_SIZE);
+	}
+
+    /**
+     * This is the constructor to construct a Room object with the specified board.
+     *
+     * @param id        The String indicating the id of the room.
+     * @param size      The Integer indicating the number of rows and columns of the board.
+     * @param winLength The Integer indicating the number of marks in a row that wins.
+     *
+     * @throws IllegalArgumentException If GridBoard.isValid rejects the board.
+     */
+	public Room(String id, int size, int winLength) {
+		this.id = id;
+		boolean classic = (size == Message.CLASSIC_SIZE) && (winLength == Message.CLASSIC_SIZE);
+		this.board = classic ? new SharedView() : new GridBoard(size, winLength);
+		this.joinedFirst = Message.joined(1, size, winLength);
+		this.joinedSecond = Message.joined(2, size, winLength);
+		this.spectators = new Spectators(board);
+	}
+
+	/**
+	 * This is the room id getter method.
+	 *
+	 * @return String the id of the room.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * This is the board getter method.
+	 *
+	 * @return GameBoard the board of the room.
+	 */
+	public GameBoard getBoard() {
+		return board;
+	}
+
+	/**
+	 * This is the shared view getter method.
+	 *
+	 * @return SharedView the board of the room if it is the classic 3 x 3 board, or null otherwise.
+	 */
+	SharedView getSharedView() {
+		return (board instanceof SharedView) ? (SharedView) board : null;
+	}
+
+	/**
+	 * This is the hasSeat method.
+	 * It checks whether another player can still join the room.
+	 *
+	 * @return boolean true if the room has fewer than two players, false otherwise.
+	 */
+	public boolean hasSeat() {
+		lock.lock();
+		try {
+			return connections.size() < 2;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This is the isInProgress method.
+	 *
+	 * @return boolean true if both players are seated for a game.
+	 */
+	public boolean isInProgress() {
+		return seated.get() == 2;
+	}
+
+	/**
+	 * This is the isEmpty method.
+	 * It checks whether every player and every spectator has left the room.
+	 *
+	 * @return boolean true if nobody is connected to the room, false otherwise.
+	 */
+	public boolean isEmpty() {
+		lock.lock();
+		try {
+			return connections.isEmpty() && spectators.isEmpty();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This is the closeIfEmpty method called by the registry while it drops the room.
+	 * The check and the closing happen under the lock, so a player who looked the room up just before it was
+	 * dropped is either in it, and keeps it from being dropped, or finds it closed and looks the id up again.
+	 *
+	 * @return boolean true if nobody was connected to the room, which is now closed.
+	 */
+	boolean closeIfEmpty() {
+		lock.lock();
+		try {
+			if (!connections.isEmpty() || !spectators.isEmpty()) {
+				return false;
+			}
+			closed = true;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This is the isClosed method.
+	 *
+	 * @return boolean true if the registry has dropped the room, so that its id now names another room.
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * This is the join method called when a player submits their name.
+	 * The first player is told they are Player 1, and the second player's arrival is broadcast to both.
+	 *
+	 * @param output The Connection of the joining player.
+	 *
+	 * @return boolean true if the player took a seat, false if the room is full or closed.
+	 */
+	public boolean join(Connection output) {
+		lock.lock();
+		try {
+			if (closed) {
+				return false;
+			}
+			if (!connections.contains(output) && !hasSeat()) {
+				output.send(Message.full());
+				return false;
+			}
+			connections.add(output);
+			seat(output);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This is the watch method called when a client asks to watch the room.
+	 * The spectator is sent a snapshot of the board, then every message broadcast to the players.
+	 *
+	 * @param output The Connection of the spectator.
+	 *
+	 * @return boolean true if the spectator is watching, false if the room is closed.
+	 */
+	public boolean watch(Connection output) {
+		lock.lock();
+		try {
+			if (closed) {
+				return false;
+			}
+			spectators.attach(output);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This is the spectator count getter method.
+	 *
+	 * @return int the number of spectators watching the room.
+	 */
+	public int getSpectatorCount() {
+		return spectators.size();
+	}
+
+	/**
+	 * This is the joinPair method called by the Matchmaker for two players it matched.
+	 * The first player is seated as Player 1 and the second as Player 2.
+	 *
+	 * @param first  The Connection of the player who waited longer.
+	 * @param second The Connection of the other player.
+	 *
+	 * @return boolean true if both took a seat, false if somebody joined the room by its id first.
+	 */
+	public boolean joinPair(Connection first, Connection second) {
+		lock.lock();
+		try {
+			if (closed || !connections.isEmpty()) {
+				return false;
+			}
+			connections.add(first);
+			connections.add(second);
+			seat(first);
+			seat(second);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This is the resume method called when a player whose connection dropped reconnects.
+	 * The new connection takes the seat of the old one, then is sent the current board. It is added to the
+	 * broadcast set before the board is read, so every move is either in the snapshot or broadcast to it.
+	 *
+	 * @param dropped The Connection that dropped, still seated in the room.
+	 * @param output  The Connection the player reconnected with.
+	 *
+	 * @return boolean true if the player got its seat back, false if it had already left the room.
+	 */
+	public boolean resume(Connection dropped, Connection output) {
+		lock.lock();
+		try {
+			if (!connections.remove(dropped)) {
+				return false;
+			}
+			connections.add(output);
+			Integer seat = seats.remove(dropped);
+			if (seat != null) {
+				seats.put(output, seat);
+			}
+			int size = board.getSize();
+			byte[] cells = new byte[size * size];
+			for (int cell = 0; cell < cells.length; cell++) {
+				cells[cell] = (byte) board.get(cell / size, cell % size);
+			}
+			output.send(Message.snapshot(size, board.getWinLength(), cells));
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This is the rejoin method called when a player wants to play again.
+	 * It seats the player again without changing the broadcast set of the room.
+	 *
+	 * @param output The Connection of the player.
+	 */
+	public void rejoin(Connection output) {
+		if (connections.contains(output)) {
+			seat(output);
+		}
+	}
+
+	/**
+	 * This is the seat method.
+	 * It hands out Player 1 and Player 2 in the order the players arrive.
+	 *
+	 * @param output The Connection of the player taking a seat.
+	 */
+	private void seat(Connection output) {
+		int player = seated.updateAndGet(last -> (last % 2) + 1);
+		seats.put(output, player);
+		journal(JournalRecord.JOIN, player, 0, 0);
+		if (player == 1) {
+			output.send(joinedFirst);
+		}
+		else {
+			broadcast(joinedSecond);
+			startTrace();
+			startClock(playerToMove());
+		}
+	}
+
+	/**
+	 * This is the move method.
+	 * It applies a move of the player's seat on the board of this room and broadcasts the result to the players.
+	 * The move is rejected unless both players are seated and it is the player's turn.
+	 *
+	 * @param output The Connection of the player making the move.
+	 * @param row    The Integer indicating the row of the button.
+	 * @param col    The Integer indicating the column of the button.
+	 */
+	public void move(Connection output, int row, int col) {
+		int player = seatOf(output);
+		// Place the mark and evaluate the board in one atomic step, without taking the room lock
+		long start = System.nanoTime();
+		GameBoard.MoveResult result = (seated.get() == 2) ? board.applyMove(player, row, col) : GameBoard.MoveResult.REJECTED;
+		if (result != GameBoard.MoveResult.REJECTED) {
+			ServerMetrics.get().recordMove(System.nanoTime() - start);
+			GameTrace game = trace.get();
+			if (game != null) {
+				game.record(row, col);
+			}
+		}
+		switch (result) {
+			case PLACED:
+				startClock(3 - player);
+				broadcast(Message.moved(player, row, col));
+				journal(JournalRecord.MOVE, player, row, col);
+				break;
+			// The finished board rejects every move until it is restarted, so the end of the game is broadcast and
+			// journaled before any move of the next game can be
+			case WIN:
+				stopClock();
+				broadcast(Message.moved(player, row, col));
+				broadcast(Message.win(player), true);
+				journal(JournalRecord.MOVE, player, row, col);
+				journal(JournalRecord.WIN, player, 0, 0);
+				finishTrace(HistoryBlock.WIN, player);
+				restartBoard();
+				break;
+			case DRAW:
+				stopClock();
+				broadcast(Message.moved(player, row, col));
+				broadcast(Message.draw(), true);
+				journal(JournalRecord.MOVE, player, row, col);
+				journal(JournalRecord.DRAW, player, 0, 0);
+				finishTrace(HistoryBlock.DRAW, 0);
+				restartBoard();
+				break;
+			default:
+				output.send(Message.rejected(player));
+				break;
+		}
+	}
+
+	/**
+	 * This is the hint method called when a player asks which button to press.
+	 * It answers the player with the best move from the perfect-play table, if it is their turn on a 3 x 3 board.
+	 *
+	 * @param output The Connection of the player asking.
+	 */
+	public void hint(Connection output) {
+		int player = seatOf(output);
+		SharedView sharedView = getSharedView();
+		if (sharedView == null) {
+			return;
+		}
+		int marks = sharedView.getMarks();
+		int player1 = marks & BitBoard.FULL;
+		int player2 = marks >>> 9;
+		if (PerfectPlay.playerToMove(player1, player2) != player) {
+			return;
+		}
+		int cell = PerfectPlay.bestMove(player1, player2);
+		if (cell >= 0) {
+			output.send(Message.suggested(player, cell / 3, cell % 3));
+		}
+	}
+
+	/**
+	 * This is the exit method called when a player exits in the middle of the game.
+	 * It restarts the board and tells both players that the game has ended.
+	 *
+	 * @return boolean true if the game was ended, false if both players had not sat down for it.
+	 */
+	public boolean exit() {
+		// Only a game both players sat down for can be exited
+		if (seated.get() == 2) {
+			stopClock();
+			finishTrace(HistoryBlock.EXIT, 0);
+			restartBoard();
+			broadcast(Message.exit());
+			journal(JournalRecord.EXIT, 0, 0, 0);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * This is the leave method called when a player disconnects.
+	 *
+	 * @param output The Connection of the player leaving the room.
+	 */
+	public void leave(Connection output) {
+		lock.lock();
+		try {
+			if (spectators.detach(output) || !connections.remove(output)) {
+				return;
+			}
+			seats.remove(output);
+			if (connections.isEmpty()) {
+				close();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This is the closeIfUnclaimed method called when the grace window of a recovered game has passed.
+	 * It ends the game if neither player came back to the room for it.
+	 *
+	 * @return boolean true if the room was closed, false if a player is in it.
+	 */
+	boolean closeIfUnclaimed() {
+		lock.lock();
+		try {
+			if (!connections.isEmpty()) {
+				return false;
+			}
+			close();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This is the close method called with the lock held once no player is left in the room.
+	 * It ends the game, tells the spectators and journals the room as closed, so it is not rebuilt after a restart.
+	 */
+	private void close() {
+		stopClock();
+		seated.set(0);
+		finishTrace(HistoryBlock.ABANDONED, 0);
+		restartBoard();
+		spectators.publish(Message.exit());
+		journal(JournalRecord.CLOSE, 0, 0, 0);
+	}
+
+	/**
+	 * This is the startClock method.
+	 * It gives the player to move turn.timeoutMillis to do so, replacing the clock of the previous turn.
+	 *
+	 * @param player The Integer indicating the player to move (1 or 2).
+	 */
+	private void startClock(int player) {
+		if (TURN_MILLIS <= 0) {
+			return;
+		}
+		long clocked = turn.incrementAndGet();
+		TimerWheel.Timeout previous = turnClock;
+		turnClock = TimerWheel.shared().schedule(() -> forfeit(player, clocked), TURN_MILLIS, TimeUnit.MILLISECONDS);
+		if (previous != null) {
+			previous.cancel();
+		}
+	}
+
+	/**
+	 * This is the stopClock method called when the game ends.
+	 */
+	private void stopClock() {
+		turn.incrementAndGet();
+		TimerWheel.Timeout clock = turnClock;
+		if (clock != null) {
+			clock.cancel();
+		}
+	}
+
+	/**
+	 * This is the forfeit method run on the timer wheel when a turn clock runs out.
+	 * Like exit, it takes no lock: the turn number makes sure only the clock of the current turn ends the game.
+	 *
+	 * @param player  The Integer indicating the player who did not move (1 or 2).
+	 * @param clocked The long turn number the clock was started for.
+	 */
+	private void forfeit(int player, long clocked) {
+		if ((seated.get() != 2) || !turn.compareAndSet(clocked, clocked + 1)) {
+			return;
+		}
+		EventLog.log(Level.INFO, Event.TURN_TIMEOUT, id, player);
+		finishTrace(HistoryBlock.FORFEIT, 3 - player);
+		restartBoard();
+		broadcast(Message.win(3 - player));
+		journal(JournalRecord.WIN, 3 - player, 0, 0);
+	}
+
+	/**
+	 * This is the seatOf method.
+	 *
+	 * @param output The Connection of a player.
+	 *
+	 * @return int the seat the player took for the current game (1 or 2), or 0 if it has none.
+	 */
+	private int seatOf(Connection output) {
+		Integer seat = seats.get(output);
+		return (seat == null) ? 0 : seat;
+	}
+
+	/**
+	 * This is the playerToMove method.
+	 *
+	 * @return int the player to move on the board (1 or 2), which is not always Player 1 in a recovered game.
+	 */
+	private int playerToMove() {
+		int size = board.getSize();
+		int balance = 0;
+		for (int cell = 0; cell < size * size; cell++) {
+			int mark = board.get(cell / size, cell % size);
+			balance += (mark == 1) ? 1 : ((mark == 2) ? -1 : 0);
+		}
+		return (balance > 0) ? 2 : 1;
+	}
+
+	/**
+	 * This is the restore method called at startup for a game that was in progress when the server stopped.
+	 * It replays the journaled moves on the empty board and journals them again, so the new journal
+	 * segment alone is enough to rebuild the game after another restart.
+	 *
+	 * @param moves The List of the game's MOVE records, in order.
+	 */
+	void restore(List<JournalRecord> moves) {
+		journal(JournalRecord.RESTORED, 0, 0, 0);
+		startTrace();
+		GameTrace game = trace.get();
+		for (JournalRecord move : moves) {
+			GameBoard.MoveResult result = board.applyMove(move.getPlayer(), move.getRow(), move.getCol());
+			if (result == GameBoard.MoveResult.PLACED) {
+				if (game != null) {
+					game.record(move.getRow(), move.getCol());
+				}
+				journal(JournalRecord.MOVE, move.getPlayer(), move.getRow(), move.getCol());
+			}
+			else if (result != GameBoard.MoveResult.REJECTED) {
+				// The journal ended between a winning move and its result; the game is over
+				trace.set(null);
+				restartBoard();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * This is the restartBoard method called whenever a game ends.
+	 * The board is restarted through the spectators, which number the games to tell older moves from newer ones.
+	 */
+	private void restartBoard() {
+		spectators.restart();
+	}
+
+	/**
+	 * This is the startTrace method called when a game starts.
+	 * It traces the moves of the new game if the game history is enabled.
+	 */
+	private void startTrace() {
+		trace.set(GameHistory.isEnabled() ? new GameTrace(board.getSize(), board.getWinLength()) : null);
+	}
+
+	/**
+	 * This is the finishTrace method called when a game ends, before the board is restarted.
+	 * Only the first call for a game exports it, however many ways it ends at once.
+	 *
+	 * @param result The Integer indicating how the game ended, e.g. HistoryBlock.WIN.
+	 * @param winner The Integer indicating the player who won (1 or 2), or 0 if nobody did.
+	 */
+	private void finishTrace(int result, int winner) {
+		GameTrace game = trace.getAndSet(null);
+		if (game != null) {
+			game.finish(result, winner);
+		}
+	}
+
+	/**
+	 * This is the journal method.
+	 * It queues one event of this room for the move journal; it never blocks.
+	 *
+	 * @param kind   The Integer indicating what happened, e.g. JournalRecord.MOVE.
+	 * @param player The Integer indicating the player (1 or 2), or 0 if the event has none.
+	 * @param row    The Integer indicating the row of a move.
+	 * @param col    The Integer indicating the column of a move.
+	 */
+	private void journal(int kind, int player, int row, int col) {
+		MoveJournal.append(kind, id, player, row, col, board.getSize(), board.getWinLength());
+	}
+
+	/**
+	 * This is the broadcast method.
+	 * It sends a message to every player in this room, then hands it to the spectators' fan-out.
+	 *
+	 * @param message The Message to be sent.
+	 */
+	private void broadcast(Message message) {
+		broadcast(message, false);
+	}
+
+	/**
+	 * This is the broadcast method for a message that may end the game.
+	 *
+	 * @param message The Message to be sent.
+	 * @param ending  The boolean telling whether the message ends the game before the board is restarted.
+	 */
+	private void broadcast(Message message, boolean ending) {
+		long start = System.nanoTime();
+		for (Connection connection : connections) {
+			connection.send(message);
+		}
+		if (ending) {
+			spectators.publishEnd(message);
+		}
+		else {
+			spectators.publish(message);
+		}
+		ServerMetrics.get().recordBroadcast(System.nanoTime() - start);
+		EventLog.log(Level.INFO, Event.BROADCAST, id, message);
+	}
+}
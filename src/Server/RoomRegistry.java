@@ -0,0 +1,268 @@
+package Server;
+
+import Journal.JournalRecord;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This is the RoomRegistry class keeping track of every room hosted by the server.
+ * Rooms are looked up by id, so that joins, moves and restarts are routed to the room they belong to.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class RoomRegistry {
+	// How long a game rebuilt from the journal waits for its players, as long as a dropped player's game.
+	private static final long RECOVERY_GRACE_MILLIS = Long.getLong("resume.graceMillis", 30000);
+
+	private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+	private final AtomicLong nextId = new AtomicLong(1);
+	private final Matchmaker matchmaker = new Matchmaker(this);
+	private final SuspendedSessions suspended = new SuspendedSessions(this);
+
+	/**
+	 * This is the get method.
+	 *
+	 * @param id The String indicating the id of the room.
+	 *
+	 * @return Room the room with the given id, or null if there is no such room.
+	 */
+	public Room get(String id) {
+		return rooms.get(id);
+	}
+
+	/**
+	 * This is the getOrCreate method.
+	 * It returns the room with the given id, creating it if it does not exist yet.
+	 *
+	 * @param id The String indicating the id of the room.
+	 *
+	 * @return Room the room with the given id.
+	 */
+	public Room getOrCreate(String id) {
+		return rooms.computeIfAbsent(id, Room::new);
+	}
+
+	/**
+	 * This is the getOrCreate method for a room with a given board.
+	 * An existing room keeps the board it was created with.
+	 *
+	 * @param id        The String indicating the id of the room.
+	 * @param size      The Integer indicating the number of rows and columns of a new room's board.
+	 * @param winLength The Integer indicating the number of marks in a row that wins on a new room's board.
+	 *
+	 * @return Room the room with the given id.
+	 */
+	public Room getOrCreate(String id, int size, int winLength) {
+		return rooms.computeIfAbsent(id, key -> new Room(key, size, winLength));
+	}
+
+	/**
+	 * This is the join method called when a player asks for a room by its id.
+	 * It seats the player in the room, creating the room if it does not exist yet. A room that was dropped
+	 * between the lookup and the join is closed, and the id is looked up again.
+	 *
+	 * @param id        The String indicating the id of the room.
+	 * @param size      The Integer indicating the number of rows and columns of a new room's board.
+	 * @param winLength The Integer indicating the number of marks in a row that wins on a new room's board.
+	 * @param output    The Connection of the joining player.
+	 *
+	 * @return Room the room the player took a seat in, or null if it is full.
+	 */
+	public Room join(String id, int size, int winLength, Connection output) {
+		while (true) {
+			Room room = getOrCreate(id, size, winLength);
+			if (room.join(output)) {
+				return room;
+			}
+			if (!room.isClosed()) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * This is the matchmaker getter method.
+	 *
+	 * @return Matchmaker the matchmaker pairing the players who join without a room id.
+	 */
+	public Matchmaker getMatchmaker() {
+		return matchmaker;
+	}
+
+	/**
+	 * This is the suspended sessions getter method.
+	 *
+	 * @return SuspendedSessions the games of the players whose connection dropped, waiting for them to resume.
+	 */
+	public SuspendedSessions getSuspendedSessions() {
+		return suspended;
+	}
+
+	/**
+	 * This is the openRoom method.
+	 * It opens a new, empty room with a generated id, e.g. for two players the matchmaker paired.
+	 *
+	 * @param size      The Integer indicating the number of rows and columns of the board.
+	 * @param winLength The Integer indicating the number of marks in a row that wins.
+	 *
+	 * @return Room the new room.
+	 */
+	public Room openRoom(int size, int winLength) {
+		return getOrCreate("room-" + nextId.getAndIncrement(), size, winLength);
+	}
+
+	/**
+	 * This is the openPrivateRoom method.
+	 * It opens a new room that no other player is placed into, e.g. for a game against the computer.
+	 *
+	 * @param prefix The String prefix of the room id.
+	 *
+	 * @return Room the new, empty room.
+	 */
+	public Room openPrivateRoom(String prefix) {
+		return getOrCreate(prefix + "-" + nextId.getAndIncrement());
+	}
+
+	/**
+	 * This is the leave method called when a player disconnects.
+	 * It removes the player from the room and drops the room once it is empty.
+	 *
+	 * @param room   The Room the player was in.
+	 * @param output The Connection of the player leaving.
+	 */
+	public void leave(Room room, Connection output) {
+		room.leave(output);
+		drop(room);
+	}
+
+	/**
+	 * This is the drop method.
+	 * It removes the room from the registry if nobody is in it, closing it in the same step.
+	 *
+	 * @param room The Room to drop.
+	 */
+	private void drop(Room room) {
+		rooms.computeIfPresent(room.getId(), (id, current) -> ((current == room) && room.closeIfEmpty()) ? null : current);
+	}
+
+	/**
+	 * This is the recover method called at startup.
+	 * It replays the journal and rebuilds every room whose game was in progress, i.e. had moves after its last
+	 * win, draw, exit or close. Players get back to such a game by joining its room id again; a rebuilt room
+	 * nobody joins within resume.graceMillis is closed, as the game of a player who never resumed would be.
+	 *
+	 * @param records The List of journal records, oldest first.
+	 *
+	 * @return int the number of games rebuilt.
+	 */
+	public int recover(List<JournalRecord> records) {
+		Map<String, JournalRecord> boards = new HashMap<>();
+		Map<String, List<JournalRecord>> games = new LinkedHashMap<>();
+		for (JournalRecord record : records) {
+			String id = record.getRoomId();
+			switch (record.getKind()) {
+				case JournalRecord.JOIN:
+				case JournalRecord.RESTORED:
+					boards.put(id, record);
+					if (record.getKind() == JournalRecord.RESTORED) {
+						games.remove(id);
+					}
+					break;
+				case JournalRecord.MOVE:
+					games.computeIfAbsent(id, key -> new ArrayList<>()).add(record);
+					break;
+				case JournalRecord.CLOSE:
+					boards.remove(id);
+					games.remove(id);
+					break;
+				default:
+					// WIN, DRAW and EXIT end the game but keep the room
+					games.remove(id);
+					break;
+			}
+		}
+
+		int recovered = 0;
+		for (Map.Entry<String, List<JournalRecord>> game : games.entrySet()) {
+			JournalRecord board = boards.get(game.getKey());
+			if ((board == null) || !GridBoard.isValid(board.getBoardSize(), board.getWinLength())) {
+				continue;
+			}
+			Room room = getOrCreate(game.getKey(), board.getBoardSize(), board.getWinLength());
+			room.restore(game.getValue());
+			reserveId(game.getKey());
+			TimerWheel.shared().schedule(() -> expire(room), RECOVERY_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+			recovered++;
+		}
+		return recovered;
+	}
+
+	/**
+	 * This is the expire method run on the timer wheel when the grace window of a recovered game has passed.
+	 *
+	 * @param room The Room the game was rebuilt in.
+	 */
+	private void expire(Room room) {
+		if (room.closeIfUnclaimed()) {
+			drop(room);
+		}
+	}
+
+	/**
+	 * This is the reserveId method.
+	 * It makes sure generated room ids such as room-7 never reuse the id of a recovered room.
+	 *
+	 * @param id The String id of a recovered room.
+	 */
+	private void reserveId(String id) {
+		int dash = id.lastIndexOf('-');
+		try {
+			long number = Long.parseLong(id.substring(dash + 1));
+			nextId.accumulateAndGet(number + 1, Math::max);
+		} catch (NumberFormatException e) {
+			// not a generated id
+		}
+	}
+
+	/**
+	 * This is the getRoomsInProgress method.
+	 *
+	 * @return int the number of rooms where both players are seated; it walks every room.
+	 */
+	public int getRoomsInProgress() {
+		int inProgress = 0;
+		for (Room room : rooms.values()) {
+			if (room.isInProgress()) {
+				inProgress++;
+			}
+		}
+		return inProgress;
+	}
+
+	/**
+	 * This is the getSpectatorCount method.
+	 *
+	 * @return int the number of spectators watching any room; it walks every room.
+	 */
+	public int getSpectatorCount() {
+		int spectators = 0;
+		for (Room room : rooms.values()) {
+			spectators += room.getSpectatorCount();
+		}
+		return spectators;
+	}
+
+	/**
+	 * This is the size method.
+	 *
+	 * @return int the number of rooms currently hosted.
+	 */
+	public int size() {
+		return rooms.size();
+	}
+}
@@ -1,13 +1,25 @@
 package Server;
 
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+import Protocol.BinaryCodec;
+import Protocol.Message;
+import Protocol.TextCodec;
+
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This is the Server Class representing the game server that handles client connections.
- * It manages communication between clients, game logic, and broadcasts messages to all connected clients.
+ * It manages communication between clients and routes every command to the room the client plays in.
+ * Every client is served by a blocking Handler, running either on a fixed pool of platform threads
+ * or on a virtual thread of its own.
  * 
  * @author karinanathalie
  * @version 1.0
@@ -15,14 +27,12 @@ import java.net.*;
  */
 public class Server {
 	private ServerSocket serverSocket;
-	private SharedView sharedView;
-	
-	private int numPlayer;
-	private int row;
-	private int col;
+	private ExecutorService pool;
+	// Runs the writers draining the outbound queues, apart from the handlers blocked reading their clients.
+	private ExecutorService writerPool;
 
-	// The set of all the print writers for all the clients, used for broadcast.
-	private Set<PrintWriter> writers = new HashSet<>();
+	// The registry of all the rooms, each owning its own board and broadcast set.
+	private RoomRegistry rooms;
 
     /**
      * This is the constructor to construct a Server object with the specified ServerSocket.
@@ -30,23 +40,64 @@ public class Server {
      * @param serverSocket The ServerSocket for handling client connections.
      */
 	public Server(ServerSocket serverSocket) {
+		this(serverSocket, Executors.newFixedThreadPool(200), Executors.newCachedThreadPool());
+	}
+
+    /**
+     * This is the constructor to construct a Server object running its handlers on the specified executors.
+     *
+     * @param serverSocket The ServerSocket for handling client connections.
+     * @param pool         The ExecutorService running one Handler per client.
+     * @param writerPool   The ExecutorService running the writers of the outbound queues.
+     */
+	public Server(ServerSocket serverSocket, ExecutorService pool, ExecutorService writerPool) {
+		this(serverSocket, pool, writerPool, new RoomRegistry());
+	}
+
+    /**
+     * This is the constructor to construct a Server object hosting the specified rooms.
+     *
+     * @param serverSocket The ServerSocket for handling client connections.
+     * @param pool         The ExecutorService running one Handler per client.
+     * @param writerPool   The ExecutorService running the writers of the outbound queues.
+     * @param rooms        The RoomRegistry, e.g. holding games recovered from the journal.
+     */
+	public Server(ServerSocket serverSocket, ExecutorService pool, ExecutorService writerPool, RoomRegistry rooms) {
 		this.serverSocket = serverSocket;
-		this.numPlayer = 0;
-		this.sharedView = new SharedView();
+		this.pool = pool;
+		this.writerPool = writerPool;
+		this.rooms = rooms;
+		ServerMetrics.get().setWorkerPool(pool);
+	}
+
+    /**
+     * This is the newVirtualThreadExecutor method.
+     * It creates an executor starting one virtual thread per Handler. Virtual threads need Java 21,
+     * so the method is looked up reflectively and the server falls back to an unbounded pool of
+     * platform threads when running on an older runtime.
+     *
+     * @return ExecutorService the executor for the virtual-thread mode.
+     */
+	public static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			System.out.println("Virtual threads need Java 21, using a cached platform thread pool instead");
+			return Executors.newCachedThreadPool();
+		}
 	}
 
     /**
      * This is the start method.
-     * It starts the server and handles client connections using a thread pool.
+     * It starts the server and handles client connections using the executor.
      */
 	public void start() {
-		var pool = Executors.newFixedThreadPool(200);
-		int clientCount = 1;
 		while (true) {
 			try {
 				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
 				pool.execute(new Handler(socket));
-				System.out.println("Connected to client " + clientCount++);
+				EventLog.log(Level.INFO, Event.CONNECTED, null, socket);
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -55,11 +106,18 @@ public class Server {
 
     /**
      * This is the Handler class represents a thread that handles communication with a specific client.
+     * The first byte sent by the client tells whether it speaks the text protocol or opens the binary handshake.
+     * A client that sends nothing for server.idleMillis is disconnected, so a dead connection does not hold its thread.
+     * Every command is timed from the start of its decoding until the session has handled it, without allocating.
      */
-	public class Handler implements Runnable {
+	public class Handler implements Runnable, Connection {
 		private Socket socket;
-		private Scanner input;
-		private PrintWriter output;
+		private OutputStream output;
+		private volatile boolean binary;
+		private IdleWatch idleWatch;
+
+		// The messages waiting to be written; broadcasts only enqueue here and never wait on the socket.
+		private final OutboundQueue outbound = new OutboundQueue();
 
         /**
          * This is the constructor method to construct a Handler object with the specified socket.
@@ -69,164 +127,145 @@ public class Server {
 		public Handler(Socket socket) {
 			this.socket = socket;
 		}
+
+        /**
+         * This is the send method.
+         * It queues one message for the client in the format the client negotiated.
+         *
+         * @param message The Message to be sent.
+         */
+		@Override
+		public void send(Message message) {
+			enqueue(binary ? message.toFrame() : message.toLine());
+		}
+
+        /**
+         * This is the enqueue method.
+         * It queues raw bytes for the client and starts a writer if none is draining the queue.
+         * A client whose queue overflows is reading too slowly and is disconnected.
+         *
+         * @param bytes The byte array to be written; it is never modified.
+         */
+		private void enqueue(byte[] bytes) {
+			if (!outbound.offer(bytes)) {
+				EventLog.log(Level.WARN, Event.SLOW_CONSUMER, null, socket);
+				close();
+				return;
+			}
+			if (outbound.tryStartDrain()) {
+				writerPool.execute(this::drain);
+			}
+		}
+
+        /**
+         * This is the drain method run by the writer.
+         * It writes the queued messages, flushing once per batch rather than once per message.
+         */
+		private void drain() {
+			try {
+				int batch = 0;
+				byte[] bytes;
+				while ((bytes = outbound.poll()) != null) {
+					output.write(bytes);
+					if ((++batch == OutboundQueue.MAX_BATCH) || outbound.isEmpty()) {
+						output.flush();
+						batch = 0;
+					}
+				}
+			} catch (IOException e) {
+				outbound.clear();
+				close();
+			} finally {
+				outbound.finishDrain();
+			}
+			// A message may have been queued after the last poll but before the writer role was released
+			if (!outbound.isEmpty() && outbound.tryStartDrain()) {
+				writerPool.execute(this::drain);
+			}
+		}
+
+        /**
+         * This is the close method.
+         * It closes the socket of the client.
+         */
+		@Override
+		public void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				EventLog.log(Level.ERROR, Event.ERROR, null, e);
+			}
+		}
 		
         /**
          * This is the run method for handling client communication and game logic.
          */
 		@Override
 		public void run() {
-			System.out.println("Connected: " + socket);
+			Session session = new Session(rooms, this);
+			ServerMetrics metrics = ServerMetrics.get();
+			metrics.connected();
+			idleWatch = new IdleWatch(this, session);
+			idleWatch.start();
 			try {
-				input = new Scanner(socket.getInputStream());
-				output = new PrintWriter(socket.getOutputStream(), true);
-
-				// Add the client to the broadcast list
-				writers.add(output);
-
-				while (input.hasNextLine()) {
-					var command = input.nextLine();
-
-					System.out.println("Server Received: " + command);
-
-					// Condition 1: Players submitted their name (indicating they join the game)
-					if (command.startsWith("Name Submitted")) {
-						numPlayer++;
-
-						if ((numPlayer == 1) && (writers.size() < 3)) {
-							output.println("Player 1 joined successfully");
-						}
-						else if ((numPlayer == 2)&& (writers.size() < 3)) {
-							for (PrintWriter writer : writers) {
-								writer.println("Player 2 joined successfully");
-							}
-							System.out.println("Server Broadcasted: Player 2 joined successfully");
-							numPlayer = 0;
-						}
-						else {
-							numPlayer--;
-							output.println("Players are full");
-							System.out.println(numPlayer);
-						}
-					}
-					
-					// Condition 2: Player exits in the middle of the game
-					if (command.startsWith("Player Exits")) {
-						System.out.println(numPlayer);
-						if (numPlayer == 0) {
-							sharedView.restart();
-							for (PrintWriter writer : writers) {
-								writer.println("Player Exits");
-							}
-							System.out.println("Server Broadcasted: Player Exits");
-						}
+				var input = new BufferedInputStream(socket.getInputStream());
+				output = new BufferedOutputStream(socket.getOutputStream());
+
+				// Peek at the first byte to pick the protocol
+				input.mark(BinaryCodec.HANDSHAKE_LENGTH);
+				int first = input.read();
+				input.reset();
+				
+				if (first == BinaryCodec.HANDSHAKE_MARKER) {
+					byte[] handshake = new byte[BinaryCodec.HANDSHAKE_LENGTH];
+					new DataInputStream(input).readFully(handshake);
+					int version = BinaryCodec.negotiate(BinaryCodec.parseHandshake(handshake, 0));
+					if (version == 0) {
+						output.write(BinaryCodec.handshake(version));
+						output.flush();
+						return;
 					}
+					enqueue(BinaryCodec.handshake(version));
+					binary = true;
 					
-					// Condition 3: Player moves
-					if (command.startsWith("Player 1 pressed the Button")) {
-						String[] commands = command.split("\\s+");
-						row = Integer.parseInt(commands[7]);
-						col = Integer.parseInt(commands[10]);
-						
-						// Check whether the move is valid
-						boolean buttonStatus = sharedView.checkButton(row, col, "Player 1");
-						if (buttonStatus == true) {
-							for (PrintWriter writer : writers) {
-								writer.println("Player 1 successfully pressed the Button at row " + row + " and col "+ col);
-							}
-							System.out.println("Server Broadcasted: Player 1 successfully pressed the Button at row " + row + " and col "+ col);
-							
-							// If the move is valid, check whether the move makes the player win
-							boolean winningStatus = sharedView.checkWinningCondition("Player 1");
-							if (winningStatus == true) {
-								sharedView.restart();
-								for (PrintWriter writer : writers) {
-									writer.println("Player 1 wins");
-								}
-								System.out.println("Server Broadcasted: Player 1 wins");
-							}
-							
-							// If the move is valid, check whether the move creates a draw condition
-							boolean drawStatus = sharedView.checkDrawCondition();
-							if (drawStatus == true) {
-								sharedView.restart();
-								for (PrintWriter writer : writers) {
-									writer.println("Draw");
-								}
-								System.out.println("Server Broadcasted: Draw");
-							}
-							
-						}
-						else {
-							output.println("Player 1 failed to press the Button");
-						}
-
-						
-					}
-					else if (command.startsWith("Player 2 pressed the Button")) {
-						String[] commands = command.split("\\s+");
-						row = Integer.parseInt(commands[7]);
-						col = Integer.parseInt(commands[10]);
-						
-						// Check whether the move is valid
-						boolean buttonStatus = sharedView.checkButton(row, col, "Player 2");
-						if (buttonStatus == true) {
-							for (PrintWriter writer : writers) {
-								writer.println("Player 2 successfully pressed the Button at row " + row + " and col "+ col);
-							}
-							System.out.println("Server Broadcasted: Player 2 successfully pressed the Button at row " + row + " and col "+ col);
-							
-							// If the move is valid, check whether the move makes the player win
-							boolean winningStatus = sharedView.checkWinningCondition("Player 2");
-							if (winningStatus == true) {
-								sharedView.restart();
-								for (PrintWriter writer : writers) {
-									writer.println("Player 2 wins");
-								}
-								System.out.println("Server Broadcasted: Player 2 wins");
-							}
-							
-							// If the move is valid, check whether the move creates a draw condition
-							boolean drawStatus = sharedView.checkDrawCondition();
-							if (drawStatus == true) {
-								sharedView.restart();
-								for (PrintWriter writer : writers) {
-									writer.println("Draw");
-								}
-								System.out.println("Server Broadcasted: Draw");
-							}
-							
-						}
-						else {
-							output.println("Player 2 failed to press the Button");
-						}
+					// One frame buffer for the whole connection: the length byte, then up to 255 bytes of type and payload
+					var in = new DataInputStream(input);
+					byte[] frame = new byte[256];
+					ByteBuffer frameView = ByteBuffer.wrap(frame);
+					int length;
+					while ((length = in.read()) >= 0) {
+						frame[0] = (byte) length;
+						in.readFully(frame, 1, length);
+						idleWatch.touch();
+						long start = System.nanoTime();
+						frameView.clear().limit(1 + length);
+						Message message = BinaryCodec.decode(frameView);
+						metrics.recordDecode(System.nanoTime() - start);
+						session.onMessage(message);
+						metrics.recordCommand(System.nanoTime() - start);
 					}
-			
-					// Condition 3: Player wants to play again
-					if(command.startsWith("Player wants to play again")) {
-						numPlayer++;
-						System.out.println(numPlayer);
-						if ((numPlayer == 1) && (writers.size() < 3)) {
-							output.println("Player 1 joined successfully");
-						}
-						else if ((numPlayer == 2) && (writers.size() < 3)) {
-							for (PrintWriter writer : writers) {
-								writer.println("Player 2 joined successfully");
-							}
-							System.out.println("Server Broadcasted: Player 2 joined successfully");
-							numPlayer = 0;
-						}
+				}
+				else {
+					var in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+					String line;
+					while ((line = in.readLine()) != null) {
+						idleWatch.touch();
+						long start = System.nanoTime();
+						Message message = TextCodec.decode(line);
+						metrics.recordDecode(System.nanoTime() - start);
+						session.onMessage(message);
+						metrics.recordCommand(System.nanoTime() - start);
 					}
-					
 				}
 			} catch (Exception e) {
-				System.out.println(e.getMessage());
+				EventLog.log(Level.ERROR, Event.ERROR, null, e);
 				
 			} finally {
 				// Condition 4: Client Disconnected
-				if (output != null) {
-					System.out.println("Client disconnected");
-					writers.remove(output);
-				}
+				idleWatch.stop();
+				session.onDisconnect();
+				metrics.disconnected();
+				close();
 			}
 		}
 	}
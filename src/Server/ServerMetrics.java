@@ -0,0 +1,344 @@
+package Server;
+
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+import Metrics.LatencyHistogram;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This is the ServerMetrics class counting what the server does, for JMX and the metrics endpoint.
+ *
+ * Counters are LongAdders and latencies are LatencyHistograms, so recording on the hot path is a few
+ * uncontended atomic increments, with no allocation and no lock. A command is timed in three stages: decoding it
+ * in the transport, applying the move to the board, and queueing the broadcast for every player and spectator,
+ * plus the whole command from the start of decoding until the session has handled it. Everything else is read
+ * from the rooms when asked for. Moves per second and the utilization of the handler pool or event loops are
+ * sampled once a second on the TimerWheel.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class ServerMetrics implements ServerMetricsMBean {
+	private static final ServerMetrics INSTANCE = new ServerMetrics();
+	private static final long SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final LongAdder connected = new LongAdder();
+	private final LongAdder disconnected = new LongAdder();
+	private final LongAdder moves = new LongAdder();
+	private final LongAdder loopBusyNanos = new LongAdder();
+	private final LatencyHistogram decode = new LatencyHistogram();
+	private final LatencyHistogram update = new LatencyHistogram();
+	private final LatencyHistogram broadcast = new LatencyHistogram();
+	private final LatencyHistogram command = new LatencyHistogram();
+
+	private volatile RoomRegistry rooms;
+	private volatile ThreadPoolExecutor workers;
+	private volatile int eventLoops;
+
+	// Only touched by the sampling task on the timer wheel.
+	private long sampledAt;
+	private long sampledMoves;
+	private long sampledBusyNanos;
+	private volatile double movesPerSecond;
+	private volatile double loopUtilization;
+
+    /**
+     * This is the constructor, private to the single instance.
+     */
+	private ServerMetrics() {
+	}
+
+    /**
+     * This is the get method.
+     *
+     * @return ServerMetrics the metrics of this server.
+     */
+	public static ServerMetrics get() {
+		return INSTANCE;
+	}
+
+    /**
+     * This is the start method called once the server is set up.
+     * It registers the metrics with JMX and starts sampling the rates.
+     *
+     * @param rooms The RoomRegistry of the server.
+     */
+	public void start(RoomRegistry rooms) {
+		this.rooms = rooms;
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("TicTacToe:type=ServerMetrics"));
+		} catch (JMException e) {
+			EventLog.log(Level.WARN, Event.ERROR, null, e);
+		}
+		sampledAt = System.nanoTime();
+		TimerWheel.shared().schedule(this::sample, SAMPLE_NANOS, TimeUnit.NANOSECONDS);
+	}
+
+    /**
+     * This is the setWorkerPool method called by the blocking transport.
+     *
+     * @param pool The ExecutorService running the handlers; only a ThreadPoolExecutor reports its utilization.
+     */
+	public void setWorkerPool(ExecutorService pool) {
+		this.workers = (pool instanceof ThreadPoolExecutor) ? (ThreadPoolExecutor) pool : null;
+	}
+
+    /**
+     * This is the setEventLoops method called by the non-blocking transport.
+     *
+     * @param loops The Integer number of event loops.
+     */
+	public void setEventLoops(int loops) {
+		this.eventLoops = loops;
+	}
+
+    /**
+     * This is the sample method run on the timer wheel once a second.
+     */
+	private void sample() {
+		long now = System.nanoTime();
+		long elapsed = Math.max(1, now - sampledAt);
+		long totalMoves = moves.sum();
+		long busy = loopBusyNanos.sum();
+		movesPerSecond = (totalMoves - sampledMoves) * 1e9 / elapsed;
+		loopUtilization = (eventLoops == 0) ? 0 : (double) (busy - sampledBusyNanos) / elapsed / eventLoops;
+		sampledAt = now;
+		sampledMoves = totalMoves;
+		sampledBusyNanos = busy;
+		TimerWheel.shared().schedule(this::sample, SAMPLE_NANOS, TimeUnit.NANOSECONDS);
+	}
+
+    /**
+     * This is the connected method called when a client connects.
+     */
+	public void connected() {
+		connected.increment();
+	}
+
+    /**
+     * This is the disconnected method called when a client disconnects.
+     */
+	public void disconnected() {
+		disconnected.increment();
+	}
+
+    /**
+     * This is the recordDecode method.
+     *
+     * @param nanos The long nanoseconds spent decoding one command.
+     */
+	public void recordDecode(long nanos) {
+		decode.record(nanos);
+	}
+
+    /**
+     * This is the recordCommand method.
+     *
+     * @param nanos The long nanoseconds from the start of decoding a command until it was handled.
+     */
+	public void recordCommand(long nanos) {
+		command.record(nanos);
+	}
+
+    /**
+     * This is the recordMove method called for every move accepted on a board.
+     *
+     * @param nanos The long nanoseconds spent applying the move to the board.
+     */
+	void recordMove(long nanos) {
+		moves.increment();
+		update.record(nanos);
+	}
+
+    /**
+     * This is the recordBroadcast method.
+     *
+     * @param nanos The long nanoseconds spent queueing a message for every player and the spectators.
+     */
+	void recordBroadcast(long nanos) {
+		broadcast.record(nanos);
+	}
+
+    /**
+     * This is the recordLoopBusy method called by an event loop after handling the channels one select returned.
+     *
+     * @param nanos The long nanoseconds the loop spent handling them.
+     */
+	void recordLoopBusy(long nanos) {
+		loopBusyNanos.add(nanos);
+	}
+
+	@Override
+	public long getActiveConnections() {
+		return connected.sum() - disconnected.sum();
+	}
+
+	@Override
+	public double getWorkerUtilization() {
+		ThreadPoolExecutor pool = workers;
+		if (pool != null) {
+			return (double) pool.getActiveCount() / pool.getMaximumPoolSize();
+		}
+		return (eventLoops > 0) ? loopUtilization : -1;
+	}
+
+	@Override
+	public int getRooms() {
+		return (rooms == null) ? 0 : rooms.size();
+	}
+
+	@Override
+	public int getRoomsInProgress() {
+		return (rooms == null) ? 0 : rooms.getRoomsInProgress();
+	}
+
+	@Override
+	public long getMoves() {
+		return moves.sum();
+	}
+
+	@Override
+	public double getMovesPerSecond() {
+		return movesPerSecond;
+	}
+
+	@Override
+	public long getOutboundQueued() {
+		return OutboundQueue.queued();
+	}
+
+	@Override
+	public long getSpectatorQueued() {
+		return Spectators.queued();
+	}
+
+	@Override
+	public int getSpectators() {
+		return (rooms == null) ? 0 : rooms.getSpectatorCount();
+	}
+
+	@Override
+	public int getMatchmakerQueueDepth() {
+		return (rooms == null) ? 0 : rooms.getMatchmaker().getQueueDepth();
+	}
+
+	@Override
+	public long getMatches() {
+		return (rooms == null) ? 0 : rooms.getMatchmaker().getMatches();
+	}
+
+	@Override
+	public int getSuspendedSessions() {
+		return (rooms == null) ? 0 : rooms.getSuspendedSessions().size();
+	}
+
+	@Override
+	public int getPendingTimeouts() {
+		return TimerWheel.shared().pending();
+	}
+
+	@Override
+	public long[] getDecodeMicros() {
+		return micros(decode);
+	}
+
+	@Override
+	public long[] getUpdateMicros() {
+		return micros(update);
+	}
+
+	@Override
+	public long[] getBroadcastMicros() {
+		return micros(broadcast);
+	}
+
+	@Override
+	public long[] getCommandMicros() {
+		return micros(command);
+	}
+
+	@Override
+	public long[] getTimeToMatchMicros() {
+		return (rooms == null) ? new long[4] : micros(rooms.getMatchmaker().getTimeToMatch());
+	}
+
+    /**
+     * This is the micros method.
+     *
+     * @param histogram The LatencyHistogram in nanoseconds.
+     *
+     * @return long[] its p50, p99, p999 and max in microseconds.
+     */
+	private static long[] micros(LatencyHistogram histogram) {
+		return new long[] { histogram.percentile(50) / 1000, histogram.percentile(99) / 1000,
+				histogram.percentile(99.9) / 1000, histogram.getMax() / 1000 };
+	}
+
+    /**
+     * This is the toText method.
+     * It writes every metric as one "name value" line, with the latencies as quantiles in nanoseconds.
+     *
+     * @return String the metrics in the plain text format scrapers such as Prometheus read.
+     */
+	public String toText() {
+		StringBuilder text = new StringBuilder(2048);
+		gauge(text, "tictactoe_active_connections", getActiveConnections());
+		gauge(text, "tictactoe_worker_utilization", getWorkerUtilization());
+		gauge(text, "tictactoe_rooms", getRooms());
+		gauge(text, "tictactoe_rooms_in_progress", getRoomsInProgress());
+		gauge(text, "tictactoe_moves_total", getMoves());
+		gauge(text, "tictactoe_moves_per_second", getMovesPerSecond());
+		gauge(text, "tictactoe_outbound_queued", getOutboundQueued());
+		gauge(text, "tictactoe_spectator_queued", getSpectatorQueued());
+		gauge(text, "tictactoe_spectators", getSpectators());
+		gauge(text, "tictactoe_matchmaker_queue_depth", getMatchmakerQueueDepth());
+		gauge(text, "tictactoe_matches_total", getMatches());
+		gauge(text, "tictactoe_suspended_sessions", getSuspendedSessions());
+		gauge(text, "tictactoe_pending_timeouts", getPendingTimeouts());
+		histogram(text, "decode", decode);
+		histogram(text, "update", update);
+		histogram(text, "broadcast", broadcast);
+		histogram(text, "command", command);
+		if (rooms != null) {
+			histogram(text, "time_to_match", rooms.getMatchmaker().getTimeToMatch());
+		}
+		return text.toString();
+	}
+
+    /**
+     * This is the gauge method.
+     *
+     * @param text  The StringBuilder the line is appended to.
+     * @param name  The String name of the metric.
+     * @param value The Number value of the metric.
+     */
+	private static void gauge(StringBuilder text, String name, Number value) {
+		text.append(name).append(' ').append(value).append('\n');
+	}
+
+    /**
+     * This is the histogram method.
+     *
+     * @param text      The StringBuilder the lines are appended to.
+     * @param stage     The String name of the stage timed.
+     * @param histogram The LatencyHistogram of the stage.
+     */
+	private static void histogram(StringBuilder text, String stage, LatencyHistogram histogram) {
+		String name = "tictactoe_latency_nanos{stage=\"" + stage + "\"";
+		for (String quantile : new String[] { "0.5", "0.9", "0.99", "0.999" }) {
+			text.append(name).append(",quantile=\"").append(quantile).append("\"} ")
+					.append(histogram.percentile(Double.parseDouble(quantile) * 100)).append('\n');
+		}
+		text.append(name).append(",quantile=\"1\"} ").append(histogram.getMax()).append('\n');
+		text.append("tictactoe_latency_count{stage=\"").append(stage).append("\"} ").append(histogram.getCount()).append('\n');
+	}
+}
@@ -0,0 +1,138 @@
+package Server;
+
+/**
+ * This is the ServerMetricsMBean interface naming the attributes the server publishes over JMX,
+ * as TicTacToe:type=ServerMetrics. Latencies are in microseconds.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public interface ServerMetricsMBean {
+
+    /**
+     * This is the active connections getter method.
+     *
+     * @return long the number of clients connected.
+     */
+	long getActiveConnections();
+
+    /**
+     * This is the worker utilization getter method.
+     *
+     * @return double the busy share of the handler pool or the event loops over the last second, or -1 if unknown.
+     */
+	double getWorkerUtilization();
+
+    /**
+     * This is the rooms getter method.
+     *
+     * @return int the number of rooms hosted.
+     */
+	int getRooms();
+
+    /**
+     * This is the rooms in progress getter method.
+     *
+     * @return int the number of rooms where both players are seated.
+     */
+	int getRoomsInProgress();
+
+    /**
+     * This is the moves getter method.
+     *
+     * @return long the number of moves accepted since the server started.
+     */
+	long getMoves();
+
+    /**
+     * This is the moves per second getter method.
+     *
+     * @return double the moves accepted over the last second.
+     */
+	double getMovesPerSecond();
+
+    /**
+     * This is the outbound queued getter method.
+     *
+     * @return long the messages queued for the players and spectators and not written yet.
+     */
+	long getOutboundQueued();
+
+    /**
+     * This is the spectator queued getter method.
+     *
+     * @return long the broadcasts waiting for the spectator fan-out threads.
+     */
+	long getSpectatorQueued();
+
+    /**
+     * This is the spectators getter method.
+     *
+     * @return int the number of spectators watching a room.
+     */
+	int getSpectators();
+
+    /**
+     * This is the matchmaker queue depth getter method.
+     *
+     * @return int the number of players waiting to be matched.
+     */
+	int getMatchmakerQueueDepth();
+
+    /**
+     * This is the matches getter method.
+     *
+     * @return long the number of matches made.
+     */
+	long getMatches();
+
+    /**
+     * This is the suspended sessions getter method.
+     *
+     * @return int the number of dropped players whose game is held for them.
+     */
+	int getSuspendedSessions();
+
+    /**
+     * This is the pending timeouts getter method.
+     *
+     * @return int the number of deadlines on the timer wheel.
+     */
+	int getPendingTimeouts();
+
+    /**
+     * This is the decode latency getter method.
+     *
+     * @return long[] the p50, p99, p999 and max of decoding a command.
+     */
+	long[] getDecodeMicros();
+
+    /**
+     * This is the update latency getter method.
+     *
+     * @return long[] the p50, p99, p999 and max of applying a move to the board.
+     */
+	long[] getUpdateMicros();
+
+    /**
+     * This is the broadcast latency getter method.
+     *
+     * @return long[] the p50, p99, p999 and max of queueing a broadcast for every player and the spectators.
+     */
+	long[] getBroadcastMicros();
+
+    /**
+     * This is the command latency getter method.
+     *
+     * @return long[] the p50, p99, p999 and max from decoding a command until it was handled and broadcast.
+     */
+	long[] getCommandMicros();
+
+    /**
+     * This is the time-to-match getter method.
+     *
+     * @return long[] the p50, p99, p999 and max a player waited to be matched.
+     */
+	long[] getTimeToMatchMicros();
+}
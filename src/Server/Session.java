@@ -0,0 +1,239 @@
+package Server;
+
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+import Protocol.Message;
+
+/**
+ * This is the Session class representing the game state of one connected client.
+ * It handles the messages decoded from the client and routes them to the room the client plays in.
+ * A session is driven by exactly one thread at a time, whichever transport is serving the connection.
+ * A player is sent a resume token when it joins; if its connection drops, its game is suspended rather than
+ * left, and a new session presenting the token within the grace window takes the game over.
+ * 
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class Session {
+	private final RoomRegistry rooms;
+	private final Connection connection;
+	private Room room;
+	// The client's place in the matchmaker's line until it learns the room it was matched into, or null.
+	private Matchmaker.Ticket ticket;
+	// The computer opponent when the client plays against the computer, or null.
+	private BotPlayer bot;
+	// Whether the client watches its room as a spectator instead of playing in it; read by the idle watch.
+	private volatile boolean spectating;
+	// The token the client may resume its game with after its connection drops, or null.
+	private String token;
+
+    /**
+     * This is the constructor to construct a Session object for the specified connection.
+     *
+     * @param rooms      The RoomRegistry holding every room on the server.
+     * @param connection The Connection to the client.
+     */
+	public Session(RoomRegistry rooms, Connection connection) {
+		this.rooms = rooms;
+		this.connection = connection;
+	}
+
+    /**
+     * This is the isSpectating method.
+     *
+     * @return boolean true if the client watches a room instead of playing.
+     */
+	public boolean isSpectating() {
+		return spectating;
+	}
+
+    /**
+     * This is the onMessage method for handling one message received from the client.
+     *
+     * @param message The Message decoded from the client, or null if the client sent something unknown.
+     */
+	public void onMessage(Message message) {
+		if (message == null) {
+			return;
+		}
+		if ((ticket != null) && (ticket.getRoom() != null)) {
+			room = ticket.getRoom();
+			ticket = null;
+		}
+		EventLog.log(Level.INFO, Event.RECEIVED, (room == null) ? null : room.getId(), message);
+		if (spectating) {
+			// A spectator only watches; it cannot move, exit or restart the players' game
+			return;
+		}
+
+		switch (message.getType()) {
+			// Condition 1: Players submitted their name (indicating they join the game)
+			case Message.JOIN:
+				if (room != null) {
+					rejoin();
+				}
+				else if (ticket == null) {
+					// Boards that are not supported are played as the classic 3 x 3 game
+					boolean valid = GridBoard.isValid(message.getBoardSize(), message.getWinLength());
+					int size = valid ? message.getBoardSize() : Message.CLASSIC_SIZE;
+					int winLength = valid ? message.getWinLength() : Message.CLASSIC_SIZE;
+					if (message.getRoomId() == null) {
+						issueToken();
+						ticket = rooms.getMatchmaker().join(connection, size, winLength, message.getSkill());
+						room = ticket.getRoom();
+						ticket = (room == null) ? ticket : null;
+					}
+					else {
+						room = rooms.join(message.getRoomId(), size, winLength, connection);
+						if (room != null) {
+							issueToken();
+						}
+					}
+				}
+				break;
+
+			// Condition 1b: Player submitted their name to play against the computer
+			case Message.PLAY_BOT:
+				if (room != null) {
+					rejoin();
+				}
+				else if (ticket == null) {
+					issueToken();
+					room = rooms.openPrivateRoom("bot");
+					bot = new BotPlayer(room);
+					room.join(connection);
+					room.join(bot);
+				}
+				break;
+
+			// Condition 1c: Client wants to watch a room as a spectator
+			case Message.WATCH:
+				// Watching opens no room, so the first player to join the id still chooses its board
+				if ((room == null) && (ticket == null)) {
+					Room watched = rooms.get(message.getRoomId());
+					if ((watched == null) || !watched.watch(connection)) {
+						connection.send(Message.exit());
+						break;
+					}
+					room = watched;
+					spectating = true;
+					connection.setLowPriority();
+				}
+				break;
+
+			// Condition 1d: Client reconnected and wants its game back
+			case Message.RESUME:
+				if ((room == null) && (ticket == null)) {
+					resume(message.getToken());
+				}
+				break;
+
+			// Condition 2: Player exits in the middle of the game
+			case Message.EXIT:
+				// A player still waiting for an opponent has no game to end, so it alone is told the game is over
+				if ((room != null) && !room.exit()) {
+					connection.send(Message.exit());
+				}
+				break;
+
+			// Condition 3: Player moves
+			case Message.MOVE:
+				// The player moves from the seat the room gave it, whichever player the client names
+				if (room != null) {
+					room.move(connection, message.getRow(), message.getCol());
+				}
+				break;
+
+			// Condition 3b: Player asks for a hint
+			case Message.HINT:
+				if (room != null) {
+					room.hint(connection);
+				}
+				break;
+
+			// Condition 3c: Player quits for good, so its game is not kept for it when it disconnects
+			case Message.QUIT:
+				token = null;
+				break;
+
+			// Condition 4: Player wants to play again
+			case Message.REMATCH:
+				if (room != null) {
+					rejoin();
+				}
+				break;
+
+			default:
+				break;
+		}
+	}
+
+    /**
+     * This is the issueToken method.
+     * It sends the client the token it may resume its game with, once per session.
+     */
+	private void issueToken() {
+		if (token == null) {
+			token = rooms.getSuspendedSessions().newToken();
+			connection.send(Message.token(token));
+		}
+	}
+
+    /**
+     * This is the resume method.
+     * It takes over the game suspended under the token and seats this connection in place of the dropped one.
+     * A client whose token is unknown or expired is told its game has ended.
+     *
+     * @param resumeToken The String token sent by the client.
+     */
+	private void resume(String resumeToken) {
+		SuspendedSessions.Suspended suspended = rooms.getSuspendedSessions().resume(resumeToken);
+		if ((suspended == null) || !suspended.getRoom().resume(suspended.getConnection(), connection)) {
+			connection.send(Message.exit());
+			return;
+		}
+		room = suspended.getRoom();
+		bot = suspended.getBot();
+		token = resumeToken;
+		EventLog.log(Level.INFO, Event.RESUMED, room.getId(), null);
+	}
+
+    /**
+     * This is the rejoin method.
+     * It seats the client again, followed by the computer if the client plays against it.
+     */
+	private void rejoin() {
+		room.rejoin(connection);
+		if (bot != null) {
+			room.rejoin(bot);
+		}
+	}
+
+    /**
+     * This is the onDisconnect method called once the client has disconnected.
+     * It suspends the player's game for it to resume, or removes the client from its room.
+     */
+	public void onDisconnect() {
+		if (ticket != null) {
+			room = rooms.getMatchmaker().cancel(ticket);
+			ticket = null;
+		}
+		EventLog.log(Level.INFO, Event.DISCONNECTED, (room == null) ? null : room.getId(), null);
+		if ((room != null) && !spectating && (token != null)) {
+			rooms.getSuspendedSessions().suspend(token, room, connection, bot);
+			room = null;
+			bot = null;
+		}
+		if (room != null) {
+			rooms.leave(room, connection);
+			if (bot != null) {
+				bot.close();
+				rooms.leave(room, bot);
+				bot = null;
+			}
+			room = null;
+		}
+	}
+}
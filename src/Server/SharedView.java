@@ -1,28 +1,114 @@
 package Server;
 
-import Client.View;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is the SharedView class representing the shared game state between multiple clients.
  * It manages the game board, checks button presses, winning conditions, draw conditions, and game restarts.
  * 
+ * The whole board lives in one AtomicLong: bits 0-8 hold Player 1's marks, bits 9-17 Player 2's marks
+ * (see BitBoard for the cell layout) and bit 18 is set once the game is won or drawn. Every method is a
+ * read or a compare-and-set of that word, so no monitor is taken, and applyMove places a mark and evaluates
+ * the result in one atomic step that no other move can slip in between. Player 1 moves first and the players
+ * take turns, so the player to move follows from the number of marks in the same word, and a move out of turn
+ * is rejected by that same step.
+ * 
  * @author karinanathalie
  * @version 1.0
  * @since 2023-11-25
  */
-public class SharedView {
-	private int board[][];
+public class SharedView implements GameBoard {
+	private static final int PLAYER_2_SHIFT = 9;
+	private static final long FINISHED = 1L << 18;
+	
+	private final AtomicLong state;
 	
     /**
      * This is the constructor method to constructs a SharedView object, initializing the game board.
      */
 	public SharedView() {
-		board = new int[3][3];
-	    for (int i = 0; i < 3; i++) {
-	        for (int j = 0; j < 3; j++) {
-	            board[i][j] = 0;
-	        }
-	    }
+		state = new AtomicLong();
+	}
+	
+    /**
+     * This is the playerNumber method.
+     * It converts the player name used by the callers into the player number used by the board.
+     *
+     * @param Player The String indicating the player ("Player 1" or "Player 2").
+     * 
+     * @return int 1 or 2, or 0 for any other name.
+     */
+	private static int playerNumber(String Player) {
+		if (Player.equals("Player 1")) {
+			return 1;
+		}
+		return Player.equals("Player 2") ? 2 : 0;
+	}
+	
+    /**
+     * This is the mask method.
+     *
+     * @param current The long packed board state.
+     * @param player  The Integer indicating the player (1 or 2).
+     * 
+     * @return int the bitmask of the player's marks.
+     */
+	private static int mask(long current, int player) {
+		return (int) (current >>> ((player == 2) ? PLAYER_2_SHIFT : 0)) & BitBoard.FULL;
+	}
+
+    /**
+     * This is the toMove method.
+     *
+     * @param current The long packed board state.
+     *
+     * @return int the player whose turn it is (1 or 2): Player 2 once Player 1 has one mark more.
+     */
+	private static int toMove(long current) {
+		return (Integer.bitCount(mask(current, 1)) > Integer.bitCount(mask(current, 2))) ? 2 : 1;
+	}
+	
+    /**
+     * This is the applyMove method.
+     * It places the player's mark and evaluates the board in one atomic step.
+     * A move out of turn is rejected, and once a move wins or draws, further moves are rejected until the board
+     * is restarted.
+     *
+     * @param player The Integer indicating the player (1 or 2).
+     * @param row    The Integer indicating the row of the button.
+     * @param col    The Integer indicating the column of the button.
+     * 
+     * @return MoveResult the outcome of the move.
+     */
+	@Override
+	public MoveResult applyMove(int player, int row, int col) {
+		int cell = BitBoard.cell(row, col);
+		if ((cell < 0) || ((player != 1) && (player != 2))) {
+			return MoveResult.REJECTED;
+		}
+		long bit = 1L << (cell + ((player == 2) ? PLAYER_2_SHIFT : 0));
+		int cellBit = 1 << cell;
+		while (true) {
+			long current = state.get();
+			if (((current & FINISHED) != 0) || (((mask(current, 1) | mask(current, 2)) & cellBit) != 0)
+					|| (toMove(current) != player)) {
+				return MoveResult.REJECTED;
+			}
+			long next = current | bit;
+			MoveResult result = MoveResult.PLACED;
+			if (BitBoard.isWinningMask(mask(next, player))) {
+				result = MoveResult.WIN;
+			}
+			else if ((mask(next, 1) | mask(next, 2)) == BitBoard.FULL) {
+				result = MoveResult.DRAW;
+			}
+			if (result != MoveResult.PLACED) {
+				next |= FINISHED;
+			}
+			if (state.compareAndSet(current, next)) {
+				return result;
+			}
+		}
 	}
 	
     /**
@@ -36,19 +122,8 @@ public class SharedView {
      * 
      * @return boolean true if the button was successfully pressed, false otherwise.
      */
-	public synchronized boolean checkButton(int row, int col, String Player) {
-		if(board[row][col] == 0) {
-			if (Player.equals("Player 1")) {
-				board[row][col] = 1;
-			} 
-			else if (Player.equals("Player 2")) {
-				board[row][col] = 2;
-			}
-		}
-		else {
-			return false;
-		}
-		return true;
+	public boolean checkButton(int row, int col, String Player) {
+		return applyMove(playerNumber(Player), row, col) != MoveResult.REJECTED;
 	}
 	
     /**
@@ -59,69 +134,9 @@ public class SharedView {
      * 
      * @return boolean true if the player has won, false otherwise.
      */
-	public synchronized boolean checkWinningCondition(String Player) {
-		int item = 0;
-		if (Player.equals("Player 1")) {
-			item = 1;
-		} 
-		else if (Player.equals("Player 2")) {
-			item = 2;
-		}
-		 
-		// Check horizontally
-		int count = 0;
-	    for (int i = 0; i < 3; i++) {
-	        for (int j = 0; j < 3; j++) {
-	            if (board[i][j] == item) {
-	            	count++;
-	            }
-	            if (count == 3) {
-	            	return true;
-	            }
-	            if (j == 2) {
-	            	count = 0;
-	            }
-	        }
-	    }
-
-		// Check vertically
-		count = 0;
-	    for (int i = 0; i < 3; i++) {
-	        for (int j = 0; j < 3; j++) {
-	            if (board[j][i] == item) {
-	            	count++;
-	            }
-	            if (count == 3) {
-	            	return true;
-	            }
-	            if (j == 2) {
-	            	count = 0;
-	            }
-	        }
-	    }
-		
-		// Check diagonally
-		count = 0;
-	    for (int i = 0; i < 3; i++) {
-            if (board[i][i] == item) {
-            	count++;
-            }
-            if (count == 3) {
-            	return true;
-            }
-	    }
-	    
-	    count = 0;
-	    for (int i = 0; i < 3; i++) {
-            if (board[i][2-i] == item) {
-            	count++;
-            }
-            if (count == 3) {
-            	return true;
-            }
-	    }
-	    
-		return false;
+	public boolean checkWinningCondition(String Player) {
+		int player = playerNumber(Player);
+		return (player != 0) && BitBoard.isWinningMask(mask(state.get(), player));
 	}
 	
     /**
@@ -130,27 +145,56 @@ public class SharedView {
      *
      * @return boolean true if the game is a draw, false otherwise.
      */
-	public synchronized boolean checkDrawCondition() {
-	    for (int i = 0; i < 3; i++) {
-	        for (int j = 0; j < 3; j++) {
-	        	if (board[i][j] == 0) {
-	        		return false;
-	        	}
-	        }
-	    }
-	    return true;
+	public boolean checkDrawCondition() {
+		long current = state.get();
+		return (mask(current, 1) | mask(current, 2)) == BitBoard.FULL;
+	}
+
+    /**
+     * This is the get method.
+     * It reads who marked the button at the specified row and column.
+     *
+     * @param row The Integer indicating the row of the button.
+     * @param col The Integer indicating the column of the button.
+     * 
+     * @return int the player who marked the button (1 or 2), or 0 if it is free.
+     */
+	@Override
+	public int get(int row, int col) {
+		long current = state.get();
+		int cellBit = 1 << BitBoard.cell(row, col);
+		if ((mask(current, 1) & cellBit) != 0) {
+			return 1;
+		}
+		return ((mask(current, 2) & cellBit) != 0) ? 2 : 0;
+	}
+
+	@Override
+	public int getSize() {
+		return 3;
+	}
+
+	@Override
+	public int getWinLength() {
+		return 3;
+	}
+
+    /**
+     * This is the getMarks method.
+     * It reads both players' marks in one atomic snapshot.
+     *
+     * @return int the marks of Player 1 in bits 0-8 and of Player 2 in bits 9-17, one bit per cell.
+     */
+	public int getMarks() {
+		return (int) state.get() & ((BitBoard.FULL << PLAYER_2_SHIFT) | BitBoard.FULL);
 	}
 
     /**
      * This is the restart method.
      * It restarts the game by resetting the game board.
      */
-	public synchronized void restart() {
-		board = new int[3][3];
-	    for (int i = 0; i < 3; i++) {
-	        for (int j = 0; j < 3; j++) {
-	            board[i][j] = 0;
-	        }
-	    }
+	@Override
+	public void restart() {
+		state.set(0);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,311 @@
+package Server;
+
+import Protocol.Message;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is the Spectators class representing the audience watching one room.
+ *
+ * The players' messages are sent by the thread that moved, as before; the room only hands a copy of each
+ * broadcast to publish, which queues it and returns. The messages reach the spectators from a separate pool
+ * of fan-out threads, one room at a time and in order, so however large the audience, the players' moves
+ * never wait for it. Each message is encoded once and the same bytes are queued for every spectator; a
+ * spectator who reads too slowly overflows its own outbound queue and is dropped like any slow client.
+ *
+ * A new spectator first receives a snapshot of the whole board, then every move after it. The fan-out thread
+ * keeps its own copy of the board, updated from the same messages it sends, so the snapshot always matches
+ * the point in the stream at which the spectator starts receiving moves. Every queued message carries the number
+ * of the game it was published in, which is advanced around every restart of the board, and a message ending a
+ * game carries the number of the game that begins after it, whether it was published before or after the
+ * restart; a copy taken while the moves of an earlier game are still queued is not marked with them, and
+ * neither is its spectator.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+final class Spectators {
+	// The threads sending to spectators of every room, kept apart from the threads serving the players.
+	private static final ExecutorService FAN_OUT = Executors.newFixedThreadPool(
+			Integer.getInteger("server.fanOutThreads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)), task -> {
+				Thread thread = new Thread(task, "spectator-fan-out");
+				thread.setDaemon(true);
+				return thread;
+			});
+	// The most events one room handles before the fan-out thread moves on to other rooms.
+	private static final int MAX_BATCH = 64;
+	// The events waiting in every room's queue, for the metrics.
+	private static final LongAdder QUEUED = new LongAdder();
+
+	private final GameBoard board;
+	private final Set<Connection> watching = ConcurrentHashMap.newKeySet();
+	// Messages to be sent, and connections to be attached, in the order they were published.
+	private final Queue<Object> events = new ConcurrentLinkedQueue<>();
+	// The connections in events, so that isEmpty need not walk the queue.
+	private final AtomicInteger attaching = new AtomicInteger();
+	private final AtomicBoolean draining = new AtomicBoolean();
+	// Set once the first spectator arrives; until then publish costs the players nothing.
+	private volatile boolean live;
+	// The number of the game on the board: advanced before and after every restart, so it is odd during one.
+	private final AtomicLong game = new AtomicLong();
+	// The spectators whose snapshot is of a later game than the messages still being sent, with that game.
+	private final Map<Connection, Long> catchingUp = new ConcurrentHashMap<>();
+
+	// Only touched by the fan-out thread currently draining the events.
+	private final byte[] cells;
+	private boolean copied;
+	// The game the copy of the board is of.
+	private long cellsGame;
+	private Message snapshot;
+
+    /**
+     * This is the Published class holding a queued message with the game it was published in.
+     */
+	private static final class Published {
+		final Message message;
+		final long game;
+
+        /**
+         * This is the constructor of a queued message.
+         *
+         * @param message The Message broadcast to the players.
+         * @param game    The long number of the game on the board when it was published, or of the game that
+         *                begins after it if the message ends one.
+         */
+		Published(Message message, long game) {
+			this.message = message;
+			this.game = game;
+		}
+	}
+
+    /**
+     * This is the constructor to construct the audience of a room.
+     *
+     * @param board The GameBoard of the room, read once when the first spectator arrives.
+     */
+	Spectators(GameBoard board) {
+		this.board = board;
+		this.cells = new byte[board.getSize() * board.getSize()];
+	}
+
+    /**
+     * This is the attach method.
+     * The spectator receives a snapshot of the board and then every message published after it.
+     *
+     * @param connection The Connection of the spectator.
+     */
+	void attach(Connection connection) {
+		live = true;
+		attaching.incrementAndGet();
+		events.add(connection);
+		QUEUED.increment();
+		schedule();
+	}
+
+    /**
+     * This is the detach method.
+     *
+     * @param connection The Connection of the spectator.
+     *
+     * @return boolean true if the connection was watching the room.
+     */
+	boolean detach(Connection connection) {
+		// A connection still waiting to be attached is skipped when its turn comes
+		boolean waiting = events.remove(connection);
+		if (waiting) {
+			attaching.decrementAndGet();
+			QUEUED.decrement();
+		}
+		catchingUp.remove(connection);
+		return watching.remove(connection) | waiting;
+	}
+
+    /**
+     * This is the isEmpty method.
+     *
+     * @return boolean true if nobody watches the room or is about to.
+     */
+	boolean isEmpty() {
+		return watching.isEmpty() && (attaching.get() == 0);
+	}
+
+    /**
+     * This is the size method.
+     *
+     * @return int the number of spectators receiving moves.
+     */
+	int size() {
+		return watching.size();
+	}
+
+    /**
+     * This is the queued method.
+     *
+     * @return long the number of broadcasts and spectators waiting for the fan-out threads, in every room.
+     */
+	static long queued() {
+		return QUEUED.sum();
+	}
+
+    /**
+     * This is the publish method called after the players were sent a message.
+     * It queues the message for the spectators and returns without sending anything.
+     *
+     * @param message The Message broadcast to the players.
+     */
+	void publish(Message message) {
+		if (live) {
+			events.add(new Published(message, game.get()));
+			QUEUED.increment();
+			schedule();
+		}
+	}
+
+    /**
+     * This is the publishEnd method called after the players were sent the end of the game, before the restart.
+     * It queues the message like publish, numbered with the game that begins once the board is restarted.
+     *
+     * @param message The Message broadcast to the players.
+     */
+	void publishEnd(Message message) {
+		if (live) {
+			events.add(new Published(message, (game.get() | 1) + 1));
+			QUEUED.increment();
+			schedule();
+		}
+	}
+
+    /**
+     * This is the restart method called by the room whenever a game ends.
+     * It restarts the board, numbering the game that begins.
+     */
+	void restart() {
+		game.incrementAndGet();
+		board.restart();
+		game.incrementAndGet();
+	}
+
+    /**
+     * This is the schedule method.
+     * It starts a fan-out task unless one is already draining this room's events.
+     */
+	private void schedule() {
+		if (draining.compareAndSet(false, true)) {
+			FAN_OUT.execute(this::drain);
+		}
+	}
+
+    /**
+     * This is the drain method run by a fan-out thread.
+     * It handles a batch of events, then leaves the thread to other rooms and reschedules if more are queued.
+     */
+	private void drain() {
+		try {
+			Object event;
+			for (int handled = 0; (handled < MAX_BATCH) && ((event = events.poll()) != null); handled++) {
+				QUEUED.decrement();
+				if (event instanceof Connection) {
+					attaching.decrementAndGet();
+					attachNow((Connection) event);
+				}
+				else {
+					fanOut((Published) event);
+				}
+			}
+		} finally {
+			draining.set(false);
+		}
+		// An event may have been queued after the last poll but before the draining flag was released
+		if (!events.isEmpty()) {
+			schedule();
+		}
+	}
+
+    /**
+     * This is the attachNow method.
+     * It sends the snapshot and adds the spectator to the audience, between two messages of the stream.
+     *
+     * @param connection The Connection of the spectator.
+     */
+	private void attachNow(Connection connection) {
+		if (!copied) {
+			// Messages of this game published before the copy are replayed onto it; placing a mark twice changes nothing.
+			// The copy is retried if the board was restarted while it was read, so it is all of one game.
+			long before;
+			do {
+				before = game.get();
+				if ((before & 1) != 0) {
+					Thread.onSpinWait();
+					continue;
+				}
+				for (int cell = 0; cell < cells.length; cell++) {
+					cells[cell] = (byte) board.get(cell / board.getSize(), cell % board.getSize());
+				}
+			} while (((before & 1) != 0) || (game.get() != before));
+			cellsGame = before;
+			copied = true;
+		}
+		if (snapshot == null) {
+			snapshot = Message.snapshot(board.getSize(), board.getWinLength(), cells);
+		}
+		connection.send(snapshot);
+		catchingUp.put(connection, cellsGame);
+		watching.add(connection);
+	}
+
+    /**
+     * This is the fanOut method.
+     * It applies a message to the copy of the board and sends it to every spectator whose snapshot it is not older than.
+     *
+     * @param published The Published message to be sent.
+     */
+	private void fanOut(Published published) {
+		Message message = published.message;
+		switch (message.getType()) {
+			case Message.MOVED:
+				// A move of an earlier game than the copy's would mark the new board
+				if (published.game >= cellsGame) {
+					cells[message.getRow() * board.getSize() + message.getCol()] = (byte) message.getPlayer();
+					snapshot = null;
+				}
+				break;
+			case Message.WIN:
+			case Message.DRAW:
+			case Message.EXIT:
+				// The board has been restarted, unless the copy was taken after the restart
+				if (published.game > cellsGame) {
+					Arrays.fill(cells, (byte) 0);
+					cellsGame = published.game;
+					snapshot = null;
+				}
+				break;
+			default:
+				break;
+		}
+		boolean ended = message.getType() != Message.MOVED;
+		for (Connection connection : watching) {
+			if (!catchingUp.isEmpty()) {
+				Long since = catchingUp.get(connection);
+				if (since != null) {
+					// The snapshot already shows this game, so earlier moves and the restart that began it are skipped
+					if ((published.game < since) || (ended && (published.game == since))) {
+						continue;
+					}
+					if (published.game > since) {
+						catchingUp.remove(connection);
+					}
+				}
+			}
+			connection.send(message);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package Server;
+
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This is the SuspendedSessions class holding the games of players whose connection dropped.
+ *
+ * Every player is sent a resume token when it joins. When its connection drops, the player keeps its seat
+ * and its game goes on hold here, keyed by the token, for a grace window. A client that reconnects within
+ * the window and sends the token is reattached to its room and sent the current board; once the window has
+ * passed, the player is removed from its room as if it had disconnected for good, and the game ends.
+ *
+ * Each suspended session has a timeout on the shared TimerWheel, cancelled if the player resumes in time.
+ * The store is bounded: when it is full, the session suspended longest ago expires early to make room. The
+ * sessions are also queued in the order they were suspended, so that one is the head of the queue; sessions
+ * resumed or expired meanwhile are dropped from the head as new ones are suspended.
+ *
+ * Configuration (system properties): resume.graceMillis (default 30000) and resume.capacity (default 10000).
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class SuspendedSessions {
+	private static final long GRACE_NANOS = Long.getLong("resume.graceMillis", 30000) * 1_000_000;
+	private static final int CAPACITY = Integer.getInteger("resume.capacity", 10000);
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	private final RoomRegistry rooms;
+	private final ConcurrentHashMap<String, Suspended> byToken = new ConcurrentHashMap<>();
+	// Every session in the order it was suspended, which is the order of the deadlines, as all have the same window.
+	private final ConcurrentLinkedQueue<Suspended> order = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private volatile String tokenPrefix = "";
+
+    /**
+     * This is the Suspended class representing the game of one player whose connection dropped.
+     */
+	public static final class Suspended {
+		private final String token;
+		private final Room room;
+		private final Connection connection;
+		private final BotPlayer bot;
+		// Set by whoever takes the session out of the store: a resume or an expiry.
+		private final AtomicBoolean taken = new AtomicBoolean();
+		private volatile TimerWheel.Timeout expiry;
+
+        /**
+         * This is the constructor for a suspended session.
+         *
+         * @param token      The String resume token of the player.
+         * @param room       The Room the player is seated in.
+         * @param connection The Connection that dropped, still seated in the room.
+         * @param bot        The BotPlayer the player plays against, or null.
+         */
+		private Suspended(String token, Room room, Connection connection, BotPlayer bot) {
+			this.token = token;
+			this.room = room;
+			this.connection = connection;
+			this.bot = bot;
+		}
+
+        /**
+         * This is the room getter method.
+         *
+         * @return Room the room the player is seated in.
+         */
+		public Room getRoom() {
+			return room;
+		}
+
+        /**
+         * This is the connection getter method.
+         *
+         * @return Connection the connection that dropped.
+         */
+		public Connection getConnection() {
+			return connection;
+		}
+
+        /**
+         * This is the bot getter method.
+         *
+         * @return BotPlayer the computer opponent of the player, or null.
+         */
+		public BotPlayer getBot() {
+			return bot;
+		}
+	}
+
+    /**
+     * This is the constructor to construct the store for the rooms of the specified registry.
+     *
+     * @param rooms The RoomRegistry the expired players are removed from.
+     */
+	public SuspendedSessions(RoomRegistry rooms) {
+		this.rooms = rooms;
+	}
+
+    /**
+     * This is the setNodeName method.
+     * Behind a gateway, every token starts with the name of the node holding the game, so the gateway can send
+     * a reconnecting client back to it.
+     *
+     * @param nodeName The String name of this server among the gateway's nodes, or null.
+     */
+	public void setNodeName(String nodeName) {
+		this.tokenPrefix = (nodeName == null) ? "" : nodeName + ".";
+	}
+
+    /**
+     * This is the newToken method.
+     *
+     * @return String a new resume token that cannot be guessed, starting with the node name if there is one.
+     */
+	public String newToken() {
+		return tokenPrefix + String.format("%016x%016x", RANDOM.nextLong(), RANDOM.nextLong());
+	}
+
+    /**
+     * This is the suspend method called when a player's connection drops in the middle of a game.
+     *
+     * @param token      The String resume token of the player.
+     * @param room       The Room the player is seated in.
+     * @param connection The Connection that dropped.
+     * @param bot        The BotPlayer the player plays against, or null.
+     */
+	public void suspend(String token, Room room, Connection connection, BotPlayer bot) {
+		Suspended suspended = new Suspended(token, room, connection, bot);
+		Suspended previous = byToken.put(token, suspended);
+		if (previous != null) {
+			take(previous);
+		}
+		suspended.expiry = TimerWheel.shared().schedule(() -> take(suspended), GRACE_NANOS, TimeUnit.NANOSECONDS);
+		order.add(suspended);
+		if (size.incrementAndGet() > CAPACITY) {
+			evictOldest();
+		}
+		else {
+			dropTaken();
+		}
+		EventLog.log(Level.INFO, Event.SUSPENDED, room.getId(), null);
+	}
+
+    /**
+     * This is the resume method called when a client reconnects with its token.
+     *
+     * @param token The String resume token sent by the client.
+     *
+     * @return Suspended the player's game, taken out of the store, or null if the token is unknown or expired.
+     */
+	public Suspended resume(String token) {
+		Suspended suspended = byToken.remove(token);
+		if ((suspended == null) || !suspended.taken.compareAndSet(false, true)) {
+			return null;
+		}
+		size.decrementAndGet();
+		TimerWheel.Timeout timeout = suspended.expiry;
+		if (timeout != null) {
+			timeout.cancel();
+		}
+		return suspended;
+	}
+
+    /**
+     * This is the take method run when a session's grace window has passed, or it is evicted or replaced.
+     * It expires the session unless the player resumed it first.
+     *
+     * @param suspended The Suspended session.
+     */
+	private void take(Suspended suspended) {
+		if (!suspended.taken.compareAndSet(false, true)) {
+			return;
+		}
+		byToken.remove(suspended.token, suspended);
+		size.decrementAndGet();
+		TimerWheel.Timeout timeout = suspended.expiry;
+		if (timeout != null) {
+			timeout.cancel();
+		}
+		expire(suspended);
+	}
+
+    /**
+     * This is the evictOldest method called when the store is over its capacity.
+     * It expires the sessions suspended longest ago, from the head of the queue, until the store is back within
+     * its capacity.
+     */
+	private void evictOldest() {
+		Suspended oldest;
+		while ((size.get() > CAPACITY) && ((oldest = order.poll()) != null)) {
+			take(oldest);
+		}
+	}
+
+    /**
+     * This is the dropTaken method.
+     * It drops the sessions at the head of the queue that were already resumed or expired.
+     */
+	private void dropTaken() {
+		Suspended head;
+		while (((head = order.peek()) != null) && head.taken.get()) {
+			order.remove(head);
+		}
+	}
+
+    /**
+     * This is the expire method.
+     * It ends the player's game and removes the player, and its computer opponent, from the room.
+     *
+     * @param suspended The Suspended session taken out of the store.
+     */
+	private void expire(Suspended suspended) {
+		EventLog.log(Level.INFO, Event.EXPIRED, suspended.room.getId(), null);
+		suspended.room.exit();
+		rooms.leave(suspended.room, suspended.connection);
+		if (suspended.bot != null) {
+			suspended.bot.close();
+			rooms.leave(suspended.room, suspended.bot);
+		}
+	}
+
+    /**
+     * This is the size method.
+     *
+     * @return int the number of sessions waiting to be resumed.
+     */
+	public int size() {
+		return size.get();
+	}
+}
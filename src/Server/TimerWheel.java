@@ -0,0 +1,288 @@
+package Server;
+
+import Logging.Event;
+import Logging.EventLog;
+import Logging.Level;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is the TimerWheel class scheduling the server's deadlines on a hashed timing wheel.
+ *
+ * The wheel is a ring of buckets, one per tick. A deadline is hashed to the bucket of the tick it falls on,
+ * together with the number of turns of the wheel still to go, so scheduling and cancelling cost O(1) whatever
+ * the number of deadlines, and a single thread serves them all: move clocks, idle connections and suspended
+ * sessions alike. Deadlines fire up to one tick late, which is plenty for timeouts measured in seconds.
+ *
+ * Scheduling and cancelling are lock-free from any thread: new and cancelled timeouts are queued and only the
+ * wheel thread touches the buckets, moving them in at the start of every tick. Expired tasks run on the wheel
+ * thread, so they must be short and never block; sending a message only queues it, so ending a game is fine.
+ *
+ * Configuration (system properties): timer.tickMillis (default 100) and timer.wheelSize (default 512, rounded
+ * up to a power of two).
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public final class TimerWheel {
+	// The most new timeouts moved into the buckets per tick, so a burst of schedules cannot stall the wheel.
+	private static final int MAX_TRANSFERS = 100_000;
+	private static final TimerWheel SHARED = new TimerWheel("timer-wheel",
+			Long.getLong("timer.tickMillis", 100), Integer.getInteger("timer.wheelSize", 512));
+
+	private final String name;
+	private final long tickNanos;
+	private final Timeout[] buckets;
+	private final int mask;
+	private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicBoolean started = new AtomicBoolean();
+	// The origin of the ticks; deadlines are kept relative to it.
+	private final long startTime = System.nanoTime();
+
+	// Only touched by the wheel thread.
+	private long tick;
+
+    /**
+     * This is the Timeout class representing one scheduled task.
+     * A timeout sits in one bucket of the wheel, linked to the other timeouts of that bucket.
+     */
+	public static final class Timeout {
+		private static final int WAITING = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+		private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+		private final TimerWheel wheel;
+		private final Runnable task;
+		private final long deadline;
+		private volatile int state = WAITING;
+
+		// Only touched by the wheel thread.
+		private long remainingRounds;
+		private int bucket = -1;
+		private Timeout previous;
+		private Timeout next;
+
+        /**
+         * This is the constructor for a timeout.
+         *
+         * @param wheel    The TimerWheel the timeout is scheduled on.
+         * @param task     The Runnable run when the deadline passes.
+         * @param deadline The long nanoTime, relative to the wheel's start, at which the task is due.
+         */
+		private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+			this.wheel = wheel;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+        /**
+         * This is the cancel method.
+         *
+         * @return boolean true if the task will not run, false if it already ran or was cancelled.
+         */
+		public boolean cancel() {
+			if (!STATE.compareAndSet(this, WAITING, CANCELLED)) {
+				return false;
+			}
+			wheel.pending.decrementAndGet();
+			wheel.cancelled.add(this);
+			return true;
+		}
+
+        /**
+         * This is the isExpired method.
+         *
+         * @return boolean true once the task has run.
+         */
+		public boolean isExpired() {
+			return state == EXPIRED;
+		}
+	}
+
+    /**
+     * This is the constructor to construct a wheel; its thread starts with the first timeout.
+     *
+     * @param name       The String name of the wheel's thread.
+     * @param tickMillis The long number of milliseconds per tick.
+     * @param wheelSize  The Integer number of buckets, rounded up to a power of two.
+     */
+	public TimerWheel(String name, long tickMillis, int wheelSize) {
+		this.name = name;
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+		int size = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+		this.buckets = new Timeout[size];
+		this.mask = size - 1;
+	}
+
+    /**
+     * This is the shared wheel getter method.
+     *
+     * @return TimerWheel the wheel serving every deadline of the server.
+     */
+	public static TimerWheel shared() {
+		return SHARED;
+	}
+
+    /**
+     * This is the schedule method.
+     *
+     * @param task  The Runnable to be run on the wheel thread once the delay has passed; it must not block.
+     * @param delay The long delay.
+     * @param unit  The TimeUnit of the delay.
+     *
+     * @return Timeout the handle to cancel the task with.
+     */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		start();
+		Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + unit.toNanos(Math.max(0, delay)));
+		pending.incrementAndGet();
+		added.add(timeout);
+		return timeout;
+	}
+
+    /**
+     * This is the pending getter method.
+     *
+     * @return int the number of tasks scheduled and neither run nor cancelled yet.
+     */
+	public int pending() {
+		return pending.get();
+	}
+
+    /**
+     * This is the start method.
+     * It starts the wheel thread, once.
+     */
+	private void start() {
+		if (!started.compareAndSet(false, true)) {
+			return;
+		}
+		Thread worker = new Thread(this::run, name);
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+    /**
+     * This is the run method of the wheel thread.
+     * Every tick it moves the new and cancelled timeouts in and out of the buckets and runs the tick's tasks.
+     */
+	private void run() {
+		tick = (System.nanoTime() - startTime) / tickNanos;
+		while (true) {
+			long due = startTime + (tick + 1) * tickNanos;
+			long wait;
+			while ((wait = due - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			removeCancelled();
+			transferAdded();
+			expire((int) (tick & mask));
+			tick++;
+		}
+	}
+
+    /**
+     * This is the transferAdded method.
+     * It hashes the timeouts scheduled since the last tick into their buckets.
+     */
+	private void transferAdded() {
+		Timeout timeout;
+		for (int i = 0; (i < MAX_TRANSFERS) && ((timeout = added.poll()) != null); i++) {
+			if (timeout.state != Timeout.WAITING) {
+				continue;
+			}
+			long ticks = timeout.deadline / tickNanos;
+			timeout.remainingRounds = (ticks - tick) / buckets.length;
+			// A deadline that is already due goes into the current bucket, so it runs on this tick
+			link(timeout, (int) (Math.max(ticks, tick) & mask));
+		}
+	}
+
+    /**
+     * This is the removeCancelled method.
+     * It unlinks the timeouts cancelled since the last tick from their buckets.
+     */
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			// A timeout cancelled before it was moved in has no bucket; transferAdded skips it
+			if (timeout.bucket >= 0) {
+				unlink(timeout);
+			}
+		}
+	}
+
+    /**
+     * This is the expire method.
+     * It runs the tasks of a bucket that are due on this turn of the wheel and counts down the others.
+     *
+     * @param bucket The Integer index of the bucket of the current tick.
+     */
+	private void expire(int bucket) {
+		Timeout timeout = buckets[bucket];
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			if (timeout.remainingRounds <= 0) {
+				unlink(timeout);
+				if (Timeout.STATE.compareAndSet(timeout, Timeout.WAITING, Timeout.EXPIRED)) {
+					pending.decrementAndGet();
+					try {
+						timeout.task.run();
+					} catch (RuntimeException e) {
+						EventLog.log(Level.ERROR, Event.ERROR, null, e);
+					}
+				}
+			}
+			else {
+				timeout.remainingRounds--;
+			}
+			timeout = next;
+		}
+	}
+
+    /**
+     * This is the link method.
+     *
+     * @param timeout The Timeout to be added to the bucket.
+     * @param bucket  The Integer index of the bucket.
+     */
+	private void link(Timeout timeout, int bucket) {
+		timeout.bucket = bucket;
+		timeout.previous = null;
+		timeout.next = buckets[bucket];
+		if (timeout.next != null) {
+			timeout.next.previous = timeout;
+		}
+		buckets[bucket] = timeout;
+	}
+
+    /**
+     * This is the unlink method.
+     *
+     * @param timeout The Timeout to be removed from its bucket.
+     */
+	private void unlink(Timeout timeout) {
+		if (timeout.previous != null) {
+			timeout.previous.next = timeout.next;
+		}
+		else {
+			buckets[timeout.bucket] = timeout.next;
+		}
+		if (timeout.next != null) {
+			timeout.next.previous = timeout.previous;
+		}
+		timeout.bucket = -1;
+		timeout.previous = null;
+		timeout.next = null;
+	}
+}
@@ -0,0 +1,126 @@
+package Simulation;
+
+import Bot.AlphaBeta;
+import Bot.PerfectPlay;
+import Server.BitBoard;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the Strategy enum of the players a tournament can pit against each other.
+ * A strategy sees the position as two 9-bit masks (see BitBoard for the cell layout) and keeps no state of its
+ * own, so one instance serves every thread; randomness comes from the random source of the caller's game.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public enum Strategy {
+
+	// Presses any free cell.
+	RANDOM {
+		@Override
+		public int choose(int mine, int theirs, int player, SplittableRandom random) {
+			return randomCell(~(mine | theirs) & BitBoard.FULL, random);
+		}
+	},
+
+	// Wins if it can, blocks the opponent's win if it must, and otherwise prefers the centre, then a corner.
+	HEURISTIC {
+		@Override
+		public int choose(int mine, int theirs, int player, SplittableRandom random) {
+			int free = ~(mine | theirs) & BitBoard.FULL;
+			int block = -1;
+			for (int cell = 0; cell < 9; cell++) {
+				int bit = 1 << cell;
+				if ((free & bit) == 0) {
+					continue;
+				}
+				if (BitBoard.isWinningMask(mine | bit)) {
+					return cell;
+				}
+				if ((block < 0) && BitBoard.isWinningMask(theirs | bit)) {
+					block = cell;
+				}
+			}
+			if (block >= 0) {
+				return block;
+			}
+			if ((free & CENTRE) != 0) {
+				return 4;
+			}
+			return randomCell(((free & CORNERS) != 0) ? (free & CORNERS) : free, random);
+		}
+	},
+
+	// Searches with the computer opponent's engine, within the same budget (-Dbot.budgetMillis).
+	ALPHA_BETA {
+		@Override
+		public int choose(int mine, int theirs, int player, SplittableRandom random) {
+			return AlphaBeta.bestMove(mine, theirs, BUDGET_NANOS);
+		}
+	},
+
+	// Looks the move up in the solved table of every position.
+	PERFECT {
+		@Override
+		public int choose(int mine, int theirs, int player, SplittableRandom random) {
+			return (player == 1) ? PerfectPlay.bestMove(mine, theirs) : PerfectPlay.bestMove(theirs, mine);
+		}
+	};
+
+	private static final int CENTRE = 1 << 4;
+	private static final int CORNERS = (1 << 0) | (1 << 2) | (1 << 6) | (1 << 8);
+	private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("bot.budgetMillis", 20));
+
+    /**
+     * This is the choose method.
+     *
+     * @param mine   The Integer mask of the marks of the player to move.
+     * @param theirs The Integer mask of the opponent's marks.
+     * @param player The Integer 1 or 2 for the player to move.
+     * @param random The SplittableRandom of the game, used by this thread only.
+     *
+     * @return int the chosen free cell between 0 and 8.
+     */
+	public abstract int choose(int mine, int theirs, int player, SplittableRandom random);
+
+    /**
+     * This is the parse method.
+     *
+     * @param name The String name, in any case, with '-' or '_' between words (e.g. alpha-beta).
+     *
+     * @return Strategy the strategy of that name.
+     *
+     * @throws IllegalArgumentException If there is no strategy of that name.
+     */
+	public static Strategy parse(String name) {
+		return valueOf(name.trim().toUpperCase().replace('-', '_'));
+	}
+
+    /**
+     * This is the randomCell method.
+     *
+     * @param cells  The Integer mask of the cells to choose from; at least one must be set.
+     * @param random The SplittableRandom to choose with.
+     *
+     * @return int one of the cells, uniformly.
+     */
+	private static int randomCell(int cells, SplittableRandom random) {
+		int skip = random.nextInt(Integer.bitCount(cells));
+		for (int i = 0; i < skip; i++) {
+			cells &= cells - 1;
+		}
+		return Integer.numberOfTrailingZeros(cells);
+	}
+
+    /**
+     * This is the label method.
+     *
+     * @return String the name as given on the command line, e.g. alpha-beta.
+     */
+	public String label() {
+		return name().toLowerCase().replace('_', '-');
+	}
+}
@@ -0,0 +1,307 @@
+package Simulation;
+
+import Server.GameBoard;
+import Server.SharedView;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is the Tournament class, an offline AI-vs-AI runner playing many games between two strategies directly
+ * against the game rules of SharedView, with no sockets.
+ *
+ * The games are split over a fork-join pool: a range of games is halved until it is at most CHUNK games long,
+ * and each chunk is played on the board of the worker thread that runs it, with counters kept in locals and
+ * added to the shared LongAdders once per chunk. The threads share nothing else they write to, so the run scales
+ * with the cores. Every chunk seeds its random source from the run's seed and its first game, so a run gives the
+ * same results on any number of threads, unless a search runs out of time. The totals are streamed every second.
+ *
+ * Usage:
+ *   java Simulation.Tournament --a=heuristic --b=random [--games=1000000] [--threads=N] [--seed=1] [--alternate=true]
+ *   java Simulation.Tournament --a=alpha-beta --b=random --scaling
+ * Strategies are random, heuristic, alpha-beta and perfect. With --alternate, the strategies take turns to move
+ * first; --scaling plays the same games on 1, 2, 4 ... up to N threads and prints the speed-up of each.
+ *
+ * @author karinanathalie
+ * @version 1.0
+ * @since 2023-11-25
+ */
+public class Tournament {
+	private static final int CHUNK = 4096;
+	private static final ThreadLocal<SharedView> BOARDS = ThreadLocal.withInitial(SharedView::new);
+
+	private final Strategy a;
+	private final Strategy b;
+	private final boolean alternate;
+	private final long seed;
+
+	private final LongAdder games = new LongAdder();
+	private final LongAdder aWins = new LongAdder();
+	private final LongAdder bWins = new LongAdder();
+	private final LongAdder draws = new LongAdder();
+	private final LongAdder firstWins = new LongAdder();
+	private final LongAdder moves = new LongAdder();
+	private final LongAdder illegal = new LongAdder();
+
+    /**
+     * This is the constructor for a tournament.
+     *
+     * @param a         The Strategy of the first contestant, which moves first in even games.
+     * @param b         The Strategy of the second contestant.
+     * @param alternate The boolean telling whether b moves first in odd games.
+     * @param seed      The long seed the random sources are derived from.
+     */
+	public Tournament(Strategy a, Strategy b, boolean alternate, long seed) {
+		this.a = a;
+		this.b = b;
+		this.alternate = alternate;
+		this.seed = seed;
+	}
+
+    /**
+     * This is the main method to run a tournament.
+     *
+     * @param args Command line arguments: --a, --b, --games, --threads, --seed, --alternate and --scaling.
+     *
+     * @throws InterruptedException If the run is interrupted.
+     */
+	public static void main(String[] args) throws InterruptedException {
+		Strategy a = Strategy.parse(option(args, "a", "heuristic"));
+		Strategy b = Strategy.parse(option(args, "b", "random"));
+		long count = Long.parseLong(option(args, "games", "1000000"));
+		int threads = Integer.parseInt(option(args, "threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+		long seed = Long.parseLong(option(args, "seed", "1"));
+		boolean alternate = Boolean.parseBoolean(option(args, "alternate", "true"));
+
+		if (!option(args, "scaling", "false").equals("false")) {
+			scaling(a, b, alternate, seed, count, threads);
+			return;
+		}
+		System.out.println(a.label() + " vs " + b.label() + ": " + count + " games on " + threads + " threads"
+				+ (alternate ? ", taking turns to move first" : ", " + a.label() + " moving first"));
+		Tournament tournament = new Tournament(a, b, alternate, seed);
+		long nanos = tournament.run(count, threads, true);
+		System.out.println(tournament.summary(nanos));
+	}
+
+    /**
+     * This is the run method.
+     * It plays the games on a fork-join pool of its own, and returns once all of them are played.
+     *
+     * @param count   The long number of games.
+     * @param threads The Integer parallelism of the pool.
+     * @param stream  The boolean telling whether the totals are printed every second while the games run.
+     *
+     * @return long the nanoseconds the games took.
+     *
+     * @throws InterruptedException If the run is interrupted.
+     */
+	public long run(long count, int threads, boolean stream) throws InterruptedException {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long started = System.nanoTime();
+		try {
+			ForkJoinTask<Void> all = pool.submit(new Games(0, count));
+			while (true) {
+				try {
+					all.get(1, TimeUnit.SECONDS);
+					break;
+				} catch (TimeoutException e) {
+					if (stream) {
+						System.out.println(summary(System.nanoTime() - started));
+					}
+				} catch (ExecutionException e) {
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return System.nanoTime() - started;
+	}
+
+    /**
+     * This is the Games class representing a range of games, split in halves until small enough to play.
+     */
+	private final class Games extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final long from;
+		private final long to;
+
+        /**
+         * This is the constructor for a range of games.
+         *
+         * @param from The long number of the first game.
+         * @param to   The long number after the last game.
+         */
+		Games(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > CHUNK) {
+				long middle = (from + to) >>> 1;
+				invokeAll(new Games(from, middle), new Games(middle, to));
+				return;
+			}
+			play(from, to);
+		}
+	}
+
+    /**
+     * This is the play method.
+     * It plays a chunk of games on the board of the calling thread and adds their results to the totals.
+     *
+     * @param from The long number of the first game.
+     * @param to   The long number after the last game.
+     */
+	private void play(long from, long to) {
+		SharedView board = BOARDS.get();
+		SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + from);
+		Strategy[] seats = new Strategy[2];
+		long wonByA = 0;
+		long wonByB = 0;
+		long drawn = 0;
+		long wonByFirst = 0;
+		long moved = 0;
+		long fouls = 0;
+
+		for (long game = from; game < to; game++) {
+			boolean aFirst = !alternate || ((game & 1) == 0);
+			seats[0] = aFirst ? a : b;
+			seats[1] = aFirst ? b : a;
+			board.restart();
+			int first = 0;
+			int second = 0;
+			int winner = -1;
+			for (int turn = 0; ; turn ^= 1) {
+				int mine = (turn == 0) ? first : second;
+				int theirs = (turn == 0) ? second : first;
+				int cell = seats[turn].choose(mine, theirs, turn + 1, random);
+				GameBoard.MoveResult result = (cell < 0) ? GameBoard.MoveResult.REJECTED
+						: board.applyMove(turn + 1, cell / 3, cell % 3);
+				moved++;
+				if (result == GameBoard.MoveResult.REJECTED) {
+					// A strategy that breaks the rules loses the game
+					fouls++;
+					winner = 1 - turn;
+					break;
+				}
+				if (turn == 0) {
+					first |= 1 << cell;
+				}
+				else {
+					second |= 1 << cell;
+				}
+				if (result == GameBoard.MoveResult.WIN) {
+					winner = turn;
+					break;
+				}
+				if (result == GameBoard.MoveResult.DRAW) {
+					break;
+				}
+			}
+			if (winner < 0) {
+				drawn++;
+			}
+			else if ((winner == 0) == aFirst) {
+				wonByA++;
+			}
+			else {
+				wonByB++;
+			}
+			if (winner == 0) {
+				wonByFirst++;
+			}
+		}
+
+		games.add(to - from);
+		aWins.add(wonByA);
+		bWins.add(wonByB);
+		draws.add(drawn);
+		firstWins.add(wonByFirst);
+		moves.add(moved);
+		illegal.add(fouls);
+	}
+
+    /**
+     * This is the summary method.
+     *
+     * @param nanos The long nanoseconds the games have taken so far.
+     *
+     * @return String one line with the games played, games per second and the share of wins and draws.
+     */
+	public String summary(long nanos) {
+		long played = games.sum();
+		double total = Math.max(1, played);
+		return String.format(Locale.ROOT, "%6.1fs %,12d games %,12.0f games/s  %s wins %5.1f%%  %s wins %5.1f%%  draws %5.1f%%  first mover wins %5.1f%%  %.2f moves/game%s",
+				nanos / 1e9, played, played * 1e9 / Math.max(1, nanos),
+				a.label(), 100 * aWins.sum() / total, b.label(), 100 * bWins.sum() / total, 100 * draws.sum() / total,
+				100 * firstWins.sum() / total, moves.sum() / total,
+				(illegal.sum() > 0) ? "  illegal moves " + illegal.sum() : "");
+	}
+
+    /**
+     * This is the scaling method.
+     * It plays the same games on ever more threads and prints how the throughput grows.
+     *
+     * @param a          The Strategy of the first contestant.
+     * @param b          The Strategy of the second contestant.
+     * @param alternate  The boolean telling whether the strategies take turns to move first.
+     * @param seed       The long seed.
+     * @param count      The long number of games per run.
+     * @param maxThreads The Integer largest number of threads.
+     *
+     * @throws InterruptedException If a run is interrupted.
+     */
+	private static void scaling(Strategy a, Strategy b, boolean alternate, long seed, long count, int maxThreads)
+			throws InterruptedException {
+		// A first run warms up the JIT and fills the search table
+		new Tournament(a, b, alternate, seed).run(count, maxThreads, false);
+		System.out.printf("%8s %16s %10s %12s%n", "Threads", "games/s", "speed-up", "efficiency");
+		double single = 0;
+		for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+			Tournament tournament = new Tournament(a, b, alternate, seed);
+			double perSecond = count * 1e9 / tournament.run(count, threads, false);
+			if (threads == 1) {
+				single = perSecond;
+			}
+			System.out.printf(Locale.ROOT, "%8d %,16.0f %9.2fx %11.0f%%%n", threads, perSecond, perSecond / single,
+					100 * perSecond / single / threads);
+			if (threads == maxThreads) {
+				break;
+			}
+		}
+	}
+
+    /**
+     * This is the option method.
+     * It reads an option given as --name=value; a bare --name counts as "true".
+     *
+     * @param args         The String array of command line arguments.
+     * @param name         The String name of the option.
+     * @param defaultValue The String value used when the option is absent.
+     *
+     * @return String the value of the option.
+     */
+	private static String option(String[] args, String name, String defaultValue) {
+		String prefix = "--" + name + "=";
+		for (String arg : args) {
+			if (arg.startsWith(prefix)) {
+				return arg.substring(prefix.length());
+			}
+			if (arg.equals("--" + name)) {
+				return "true";
+			}
+		}
+		return defaultValue;
+	}
+}